@@ -3,11 +3,13 @@
    Conecta con Spring Boot REST API
    ====================================== */
 
-import { API_URL, STORAGE_KEYS } from './config.js';
+import { API_URL, ENDPOINTS, STORAGE_KEYS } from './config.js';
 
 class ApiService {
     constructor() {
         this.baseURL = API_URL;
+        // Renovación en curso: las peticiones que reciben 401 al mismo tiempo esperan la misma
+        this.refreshing = null;
     }
 
     // Obtener token JWT del localStorage (generado por JwtService.java)
@@ -16,11 +18,14 @@ class ApiService {
     }
 
     // Headers con autenticación JWT (JwtAuthenticationFilter.java valida)
-    getHeaders(includeAuth = true) {
+    // Para FormData no se fija Content-Type: el navegador agrega el boundary del multipart
+    getHeaders(includeAuth = true, json = true) {
         const headers = {
-            'Content-Type': 'application/json',
             'ngrok-skip-browser-warning': 'true'
         };
+        if (json) {
+            headers['Content-Type'] = 'application/json';
+        }
 
         if (includeAuth) {
             const token = this.getAuthToken();
@@ -35,11 +40,19 @@ class ApiService {
     // Método genérico para requests
     async request(url, options = {}) {
         try {
-            const response = await fetch(url, {
+            let response = await fetch(url, {
                 ...options,
-                headers: this.getHeaders(options.auth !== false)
+                headers: this.getHeaders(options.auth !== false, !(options.body instanceof FormData))
             });
 
+            // Access token expirado o revocado: renovar con el refresh token y reintentar una vez
+            if (response.status === 401 && options.auth !== false && await this.refreshSession()) {
+                response = await fetch(url, {
+                    ...options,
+                    headers: this.getHeaders(true, !(options.body instanceof FormData))
+                });
+            }
+
             // Si token inválido (401) redirigir a login
             if (response.status === 401) {
                 this.logout();
@@ -107,6 +120,14 @@ class ApiService {
         });
     }
 
+    // POST multipart (subida de archivos)
+    async upload(url, formData) {
+        return this.request(url, {
+            method: 'POST',
+            body: formData
+        });
+    }
+
     // DELETE request
     async delete(url) {
         return this.request(url, { method: 'DELETE' });
@@ -121,9 +142,52 @@ class ApiService {
         });
     }
 
+    // POST /api/auth/refresh - AuthController.refresh(): el refresh token usado queda revocado
+    // Devuelve false si la sesión ya no se puede renovar (usuario desactivado, token expirado o reutilizado)
+    // Las pestañas comparten localStorage: un Web Lock hace que renueven de una en una
+    async refreshSession() {
+        const refreshToken = localStorage.getItem(STORAGE_KEYS.REFRESH_TOKEN);
+        if (!refreshToken) {
+            return false;
+        }
+        if (!this.refreshing) {
+            const rotate = () => this.rotateRefreshToken(refreshToken);
+            this.refreshing = (navigator.locks ? navigator.locks.request('hotel_refresh', rotate) : rotate())
+                .catch(() => false)
+                .finally(() => {
+                    this.refreshing = null;
+                });
+        }
+        return this.refreshing;
+    }
+
+    // Dentro del lock: si otra pestaña ya rotó el token mientras se esperaba, se usa el que guardó
+    async rotateRefreshToken(staleToken) {
+        const refreshToken = localStorage.getItem(STORAGE_KEYS.REFRESH_TOKEN);
+        if (!refreshToken) {
+            return false;
+        }
+        if (refreshToken !== staleToken) {
+            return true;
+        }
+        const response = await fetch(ENDPOINTS.REFRESH, {
+            method: 'POST',
+            headers: this.getHeaders(false),
+            body: JSON.stringify({ refreshToken })
+        });
+        if (!response.ok) {
+            return false;
+        }
+        this.saveAuth(await response.json());
+        return true;
+    }
+
     // Guardar token y datos de usuario tras login exitoso
     saveAuth(authResponse) {
         localStorage.setItem(STORAGE_KEYS.AUTH_TOKEN, authResponse.token);
+        if (authResponse.refreshToken) {
+            localStorage.setItem(STORAGE_KEYS.REFRESH_TOKEN, authResponse.refreshToken);
+        }
         localStorage.setItem(STORAGE_KEYS.USER_DATA, JSON.stringify({
             userId: authResponse.userId,
             username: authResponse.username,
@@ -138,9 +202,19 @@ class ApiService {
         return data ? JSON.parse(data) : null;
     }
 
-    // Logout
+    // Logout: revoca la sesión en el servidor sin esperar respuesta (keepalive sobrevive a la redirección)
     logout() {
+        const refreshToken = localStorage.getItem(STORAGE_KEYS.REFRESH_TOKEN);
+        if (refreshToken || this.getAuthToken()) {
+            fetch(ENDPOINTS.LOGOUT, {
+                method: 'POST',
+                headers: this.getHeaders(true),
+                body: JSON.stringify({ refreshToken }),
+                keepalive: true
+            }).catch(() => {});
+        }
         localStorage.removeItem(STORAGE_KEYS.AUTH_TOKEN);
+        localStorage.removeItem(STORAGE_KEYS.REFRESH_TOKEN);
         localStorage.removeItem(STORAGE_KEYS.USER_DATA);
     }
 
@@ -11,9 +11,12 @@ export const ENDPOINTS = {
     LOGIN: `${API_URL}/auth/login`,           // POST - Autenticación JWT
     REGISTER: `${API_URL}/auth/register`,     // POST - Registro usuario
     VERIFY: `${API_URL}/auth/verify`,         // GET - Verificar token
+    REFRESH: `${API_URL}/auth/refresh`,       // POST - Renovar access token con el refresh token (rotativo)
+    LOGOUT: `${API_URL}/auth/logout`,         // POST - Revocar refresh token y access token actual
     
     // RoomController.java - /api/rooms
     ROOMS: `${API_URL}/rooms`,                // GET/POST - Todas las habitaciones
+    ROOMS_PAGE: `${API_URL}/rooms/page`,      // GET - Paginado por cursor (?cursor=&limit=&status=...)
     ROOM_BY_ID: (id) => `${API_URL}/rooms/${id}`,              // GET/PUT/DELETE
     ROOMS_BY_BUILDING: (bid) => `${API_URL}/rooms/building/${bid}`,
     ROOMS_BY_STATUS: (status) => `${API_URL}/rooms/status/${status}`,
@@ -21,17 +24,38 @@ export const ENDPOINTS = {
     ROOM_STATUS: (id) => `${API_URL}/rooms/${id}/status`,       // PATCH - Actualizar estado
     ROOM_ASSIGN: (id) => `${API_URL}/rooms/${id}/assign`,       // PATCH - Reasignar habitación
     ROOMS_RESET: `${API_URL}/rooms/reset`,                      // POST - Reinicio manual diario
+    ROOMS_BATCH: `${API_URL}/rooms/batch`,                      // PATCH - Cambios de estado/asignación en lote
+    ROOMS_DISTRIBUTE: `${API_URL}/rooms/distribute`,            // POST - Repartir habitaciones sucias entre mucamas
+    ROOMS_IMPORT: `${API_URL}/import/rooms`,                    // POST - Importación masiva (text/csv o application/x-ndjson)
+    ROOMS_IMPORT_STATUS: `${API_URL}/import/rooms/status`,      // GET - Progreso de la importación
     
     // IncidentController.java - /api/incidents
     INCIDENTS: `${API_URL}/incidents`,        // GET/POST - Todas las incidencias
+    INCIDENTS_PAGE: `${API_URL}/incidents/page`, // GET - Paginado por cursor (?cursor=&limit=&from=...)
+    INCIDENTS_SEARCH: `${API_URL}/incidents/search`, // GET - Búsqueda por texto (?q=&status=&page=&size=)
     INCIDENT_BY_ID: (id) => `${API_URL}/incidents/${id}`,      // GET/PUT/DELETE
     INCIDENTS_BY_ROOM: (rid) => `${API_URL}/incidents/room/${rid}`,
     INCIDENTS_BY_MAID: (mid) => `${API_URL}/incidents/maid/${mid}`,
     INCIDENTS_BY_STATUS: (status) => `${API_URL}/incidents/status/${status}`,
     INCIDENT_RESOLVE: (id) => `${API_URL}/incidents/${id}/resolve`, // PATCH - Resolver incidencia
     
+    // PhotoController.java - /api/photos
+    PHOTOS: `${API_URL}/photos`,              // POST - Subir fotos (multipart, campo "files")
+    PHOTO: (key) => `${API_URL}/photos/${key}`, // GET - Foto por clave SHA-256 (pública, caché inmutable)
+    PHOTO_THUMBNAIL: (key) => `${API_URL}/photos/${key}/thumbnail`, // GET - Miniatura (320 px)
+    
+    // ChangeController.java - /api/changes
+    CHANGES: (since) => `${API_URL}/changes${since != null ? `?since=${since}` : ''}`, // GET - Feed incremental
+    SYNC: `${API_URL}/sync`,                      // POST - Cola offline en lote con claves de idempotencia
+
+    // RollupController.java - /api/rollups
+    ROLLUPS_OCCUPANCY: `${API_URL}/rollups/occupancy`, // GET - Conteos por edificio y piso (?hotelId=)
+    ROLLUPS_DAILY: `${API_URL}/rollups/daily`,         // GET - Actividad diaria (?hotelId=&buildingId=&from=&to=)
+    ROLLUPS_INCIDENTS: `${API_URL}/rollups/incidents`, // GET - p50/p90/p99 de resolución y antigüedad (?groupBy=&hotelId=)
+
     // UserController.java - /api/users
     USERS: `${API_URL}/users`,                // GET/POST - Todos los usuarios
+    USERS_PAGE: `${API_URL}/users/page`,      // GET - Paginado por cursor (?cursor=&limit=&role=...)
     USER_BY_ID: (id) => `${API_URL}/users/${id}`,              // GET/PUT/DELETE
     USERS_BY_ROLE: (role) => `${API_URL}/users/role/${role}`,  // GET - Por rol
     USERS_BY_HOTEL: (hid) => `${API_URL}/users/hotel/${hid}`,  // GET - Por hotel
@@ -70,8 +94,10 @@ export const USER_ROLES = {
 // LocalStorage keys
 export const STORAGE_KEYS = {
     AUTH_TOKEN: 'hotel_auth_token',
+    REFRESH_TOKEN: 'hotel_refresh_token',
     USER_DATA: 'hotel_user_data',
-    OFFLINE_QUEUE: 'hotel_offline_queue'
+    OFFLINE_QUEUE: 'hotel_offline_queue',
+    CHANGES_TOKEN: 'hotel_changes_token'   // { userId, token } del feed GET /api/changes
 };
 
 // Configuración PouchDB (no implementado en backend, solo frontend offline)
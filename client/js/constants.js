@@ -179,10 +179,19 @@ export const POUCHDB_CONFIG = {
 
 // Configuración de WebSocket
 export const WEBSOCKET_CONFIG = {
+    // Colas de la mucama: solo eventos de sus habitaciones asignadas e incidencias que reportó
     TOPICS: {
-        ROOMS: '/topic/rooms',
-        INCIDENTS: '/topic/incidents',
-        NOTIFICATIONS: '/topic/notifications'
+        ROOMS: '/user/queue/rooms',
+        INCIDENTS: '/user/queue/incidents',
+        NOTIFICATIONS: '/user/queue/notifications'
+    },
+    // Formato de EntityDelta que este cliente sabe aplicar sobre PouchDB
+    DELTA_SCHEMA: 2,
+    // Tópicos de recepción/administración por hotel
+    HOTEL_TOPICS: {
+        ROOMS: (hotelId) => `/topic/hotels/${hotelId}/rooms`,
+        INCIDENTS: (hotelId) => `/topic/hotels/${hotelId}/incidents`,
+        NOTIFICATIONS: (hotelId) => `/topic/hotels/${hotelId}/notifications`
     },
     MAX_RECONNECT_ATTEMPTS: 5,
     RECONNECT_DELAY: 3000
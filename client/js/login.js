@@ -34,7 +34,7 @@ document.addEventListener('DOMContentLoaded', () => {
             hideError();
 
             // POST /api/auth/login - AuthController.login()
-            // Autentica con AuthenticationManager y genera JWT con JwtService
+            // Verifica la contraseña con LoginService y genera JWT con JwtService
             const response = await api.login(username, password);
             
             // Guardar token JWT y datos de usuario
@@ -45,7 +45,10 @@ document.addEventListener('DOMContentLoaded', () => {
 
         } catch (error) {
             console.error('Login error:', error);
-            showError('Usuario o contraseña incorrectos');
+            // 429: demasiados intentos o servidor ocupado verificando otros logins
+            showError(error.status === 429
+                ? 'Demasiados intentos, espere un momento e intente de nuevo'
+                : 'Usuario o contraseña incorrectos');
         } finally {
             loginBtn.disabled = false;
             loginBtn.textContent = 'Iniciar Sesión';
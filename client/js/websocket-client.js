@@ -1,10 +1,12 @@
 /* ======================================
    WEBSOCKET-CLIENT.JS - Cliente WebSocket con STOMP
-   Conecta con ws://localhost:8080/ws
-   Tópicos: /topic/incidents, /topic/rooms, /topic/notifications
+   Conecta con ws://localhost:8080/ws (CONNECT autenticado con el JWT)
+   Destinos: /user/queue/{rooms,incidents,notifications} (mucamas)
+             /topic/hotels/{hotelId}/{rooms,incidents,notifications} (recepción)
    ====================================== */
 
 import { API_URL } from './config.js';
+import api from './api.js';
 
 class WebSocketClient {
     constructor() {
@@ -14,14 +16,22 @@ class WebSocketClient {
         this.reconnectAttempts = 0;
         this.maxReconnectAttempts = 5;
         this.reconnectDelay = 3000;
+        this.onConnected = null;
+        this.closing = false;
+        // Se llama cuando el servidor pudo haber descartado eventos: la vista debe recargar desde la API
+        this.onResync = null;
     }
 
     // Conectar al WebSocket
-    connect(onConnected) {
+    // StompAuthChannelInterceptor valida el header Authorization del CONNECT;
+    // si el token expiró se renueva una vez con el refresh token y se reintenta
+    connect(onConnected, retried = false) {
         if (this.connected) {
             console.log('WebSocket already connected');
             return;
         }
+        this.onConnected = onConnected;
+        this.closing = false;
 
         try {
             // SockJS maneja la conexión HTTP, no necesitamos convertir a ws://
@@ -34,20 +44,34 @@ class WebSocketClient {
                 if (import.meta.env?.DEV) console.log(msg);
             };
 
+            const token = api.getAuthToken();
             this.stompClient.connect(
-                {},
+                token ? { Authorization: `Bearer ${token}` } : {},
                 (frame) => {
                     console.log('✅ WebSocket connected:', frame);
+                    const reconnected = this.reconnectAttempts > 0;
                     this.connected = true;
                     this.reconnectAttempts = 0;
                     
                     if (onConnected) onConnected();
+                    // Lo enviado mientras no había conexión se perdió
+                    if (reconnected && this.onResync) this.onResync();
                 },
                 (error) => {
                     console.warn('⚠️ WebSocket connection error (backend may be offline):', error);
+                    const wasConnected = this.connected;
                     this.connected = false;
-                    // No intentar reconectar si el backend no está disponible
-                    // this.attemptReconnect();
+                    this.subscriptions = [];
+                    // Frame ERROR del servidor (token expirado o revocado): renovar sesión y reconectar una vez
+                    if (!retried && error?.command === 'ERROR') {
+                        api.refreshSession().then(refreshed => {
+                            if (refreshed) this.connect(onConnected, true);
+                        });
+                        return;
+                    }
+                    // Conexión caída ya establecida (p. ej. el servidor cerró una sesión lenta): reconectar.
+                    // No intentar reconectar si el backend nunca respondió
+                    if (!this.closing && (wasConnected || this.reconnectAttempts > 0)) this.attemptReconnect();
                 }
             );
         } catch (error) {
@@ -67,7 +91,7 @@ class WebSocketClient {
         console.log(`Reconnecting... (${this.reconnectAttempts}/${this.maxReconnectAttempts})`);
 
         setTimeout(() => {
-            this.connect();
+            this.connect(this.onConnected);
         }, this.reconnectDelay);
     }
 
@@ -80,8 +104,15 @@ class WebSocketClient {
 
         const subscription = this.stompClient.subscribe(topic, (message) => {
             try {
+                // WebSocketSessionMonitor descartó frames por lentitud: este llega marcado para recargar
+                if (message.headers?.resync === 'true' && this.onResync) this.onResync();
                 const data = JSON.parse(message.body);
-                callback(data);
+                // NotificationDispatcher agrupa varios eventos en un frame BATCH: se entregan uno por uno
+                if (data.type === 'BATCH' && Array.isArray(data.data)) {
+                    data.data.forEach(callback);
+                } else {
+                    callback(data);
+                }
             } catch (error) {
                 console.error('Error parsing WebSocket message:', error);
             }
@@ -119,6 +150,7 @@ class WebSocketClient {
                 subscription.unsubscribe();
             });
             this.subscriptions = [];
+            this.closing = true;
 
             this.stompClient.disconnect(() => {
                 console.log('WebSocket disconnected');
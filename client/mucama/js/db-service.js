@@ -4,6 +4,18 @@
    ====================================== */
 
 import { STORAGE_KEYS, ENDPOINTS } from '../../js/config.js';
+import { WEBSOCKET_CONFIG } from '../../js/constants.js';
+
+// Operaciones por petición a /api/sync (las incidencias pueden traer fotos en base64)
+const SYNC_BATCH_SIZE = 25;
+
+/**
+ * Un delta igual o más viejo que la copia local se ignora. Solo se comparan versiones del mismo
+ * formato: las copias guardadas con el esquema 1 tienen updatedAt en milisegundos, no el contador.
+ */
+function isStale(doc, delta) {
+    return doc.deltaSchema === delta.schema && doc.version != null && delta.version <= doc.version;
+}
 
 class DatabaseService {
     constructor() {
@@ -76,6 +88,7 @@ class DatabaseService {
             const docs = rooms.map(room => ({
                 _id: `room_${room.id}`,
                 ...room,
+                deltaSchema: WEBSOCKET_CONFIG.DELTA_SCHEMA,
                 localUpdated: Date.now()
             }));
 
@@ -146,16 +159,99 @@ class DatabaseService {
         }
     }
 
+    /**
+     * Aplica un EntityDelta de habitación recibido por WebSocket
+     * @returns false si la habitación no está guardada localmente (el llamador decide si recargar)
+     */
+    async applyRoomDelta(delta) {
+        await this.ensureReady();
+        if (!this.roomsDB) return false;
+
+        let doc;
+        try {
+            doc = await this.roomsDB.get(`room_${delta.id}`);
+        } catch (e) {
+            return false;
+        }
+        // Un cambio local sin sincronizar gana; un delta igual o más viejo que el aplicado se ignora
+        if (doc.pendingSync || isStale(doc, delta)) {
+            return true;
+        }
+
+        const { assignedToId, buildingId, ...fields } = delta.fields;
+        Object.assign(doc, fields, { version: delta.version, deltaSchema: delta.schema, localUpdated: Date.now() });
+        if ((doc.assignedTo?.id ?? null) !== assignedToId) {
+            doc.assignedTo = assignedToId != null ? { id: assignedToId } : null;
+        }
+        if (buildingId != null && doc.building?.id !== buildingId) {
+            doc.building = { id: buildingId };
+        }
+
+        try {
+            await this.roomsDB.put(doc);
+        } catch (error) {
+            console.error('Error aplicando cambio de habitación:', error);
+        }
+        return true;
+    }
+
+    /**
+     * Reinicio de estados de un edificio (DAILY_RESET / MANUAL_RESET)
+     */
+    async applyRoomStatusByBuilding(buildingId, fromStatus, status, updatedAt) {
+        await this.ensureReady();
+        if (!this.roomsDB) return;
+
+        const result = await this.roomsDB.allDocs({ include_docs: true });
+        const docs = result.rows.map(row => row.doc)
+            .filter(doc => doc.building?.id === buildingId && doc.status === fromStatus && !doc.pendingSync)
+            .map(doc => ({ ...doc, status, updatedAt, localUpdated: Date.now() }));
+        if (docs.length > 0) {
+            await this.roomsDB.bulkDocs(docs);
+        }
+    }
+
     // === GESTIÓN DE INCIDENCIAS ===
 
+    /**
+     * Aplica un EntityDelta de incidencia (creada, actualizada o resuelta) recibido por WebSocket
+     */
+    async applyIncidentDelta(delta) {
+        await this.ensureReady();
+        if (!this.incidentsDB) return;
+
+        const result = await this.incidentsDB.allDocs({ include_docs: true });
+        const existing = result.rows.map(row => row.doc).find(doc => doc.id === delta.id);
+        if (existing && isStale(existing, delta)) {
+            return;
+        }
+
+        const { roomId, reportedById, ...fields } = delta.fields;
+        const doc = existing || { _id: `incident_${delta.id}`, id: delta.id };
+        Object.assign(doc, fields, { version: delta.version, deltaSchema: delta.schema, localUpdated: Date.now() });
+        if (doc.room?.id !== roomId) {
+            doc.room = roomId != null ? { id: roomId } : null;
+        }
+        if (doc.reportedBy?.id !== reportedById) {
+            doc.reportedBy = reportedById != null ? { id: reportedById } : null;
+        }
+
+        try {
+            await this.incidentsDB.put(doc);
+        } catch (error) {
+            console.error('Error aplicando cambio de incidencia:', error);
+        }
+    }
+
     async saveIncidentsLocal(incidents) {
         await this.ensureReady();
         if (!this.incidentsDB) return;
         
         try {
             const docs = incidents.map(inc => ({
-                _id: `incident_${inc.id || Date.now()}_${Math.random()}`,
+                _id: inc.id != null ? `incident_${inc.id}` : `incident_temp_${Date.now()}_${Math.random()}`,
                 ...inc,
+                deltaSchema: WEBSOCKET_CONFIG.DELTA_SCHEMA,
                 localUpdated: Date.now()
             }));
 
@@ -337,27 +433,11 @@ class DatabaseService {
                 console.log('✅ No hay cambios pendientes');
             }
 
-            for (const item of pending) {
-                try {
-                    console.log(`🔄 Sincronizando item:`, {
-                        type: item.type,
-                        endpoint: item.endpoint,
-                        id: item._id
-                    });
-                    
-                    await this.syncItem(item);
-                    
-                    // Marcar como sincronizado
-                    item.synced = true;
-                    item.syncedAt = Date.now();
-                    await this.syncDB.put(item);
-
-                    console.log(`✅ Sincronizado exitosamente: ${item.type}`);
-                } catch (error) {
-                    console.error(`❌ Error sincronizando ${item.type}:`, error);
-                    console.error('Detalles del error:', error.message, error.stack);
-                    // No marcamos como sincronizado, se reintentará
-                }
+            // Toda la cola en una sola petición por bloque (POST /api/sync); el _id del
+            // documento de la cola es la clave de idempotencia, así un reintento no duplica
+            for (let i = 0; i < pending.length; i += SYNC_BATCH_SIZE) {
+                const sent = await this.syncBatch(pending.slice(i, i + SYNC_BATCH_SIZE));
+                if (!sent) break; // Respetar el orden: los bloques siguientes esperan al próximo intento
             }
 
             // Limpiar items sincronizados antiguos (más de 7 días)
@@ -370,14 +450,58 @@ class DatabaseService {
         }
     }
 
-    async syncItem(item) {
+    async syncBatch(items) {
         // Importar API dinámicamente para evitar circulares
         const apiModule = await import('../../js/api.js');
         const api = apiModule.default;
 
+        const operations = items.map(item => this.toSyncOperation(item));
+        console.log(`📤 Enviando ${operations.length} operaciones a ${ENDPOINTS.SYNC}`);
+
+        let response;
+        try {
+            response = await api.post(ENDPOINTS.SYNC, { operations });
+        } catch (error) {
+            // Sin respuesta (timeout, red, 409): se reintenta el bloque completo con las mismas claves
+            console.error('❌ Error sincronizando lote:', error.message);
+            return false;
+        }
+
+        for (const [index, result] of response.results.entries()) {
+            const item = items[index];
+            if (result.status === 'FAILED') {
+                console.error(`❌ Error sincronizando ${item.type}:`, result.error);
+                item.attempts = (item.attempts || 0) + 1;
+                await this.syncDB.put(item);
+                continue;
+            }
+
+            await this.applySyncResult(item, result);
+
+            // Marcar como sincronizado
+            item.synced = true;
+            item.syncedAt = Date.now();
+            await this.syncDB.put(item);
+            console.log(`✅ Sincronizado exitosamente: ${item.type} (${result.status})`);
+        }
+        return true;
+    }
+
+    toSyncOperation(item) {
+        const idempotencyKey = item.idempotencyKey || item._id;
+        switch (item.type) {
+            case 'ROOM_STATUS':
+                return { idempotencyKey, type: item.type, roomId: item.roomId, status: item.data };
+            case 'INCIDENT_CREATE':
+                return { idempotencyKey, type: item.type, tempId: item.tempId, incident: item.data };
+            default:
+                return { idempotencyKey, type: item.type };
+        }
+    }
+
+    async applySyncResult(item, result) {
         switch (item.type) {
             case 'ROOM_STATUS':
-                await api.patch(item.endpoint, item.data);
                 // Actualizar documento local
                 const roomId = item.roomId;
                 if (roomId && this.roomsDB) {
@@ -392,22 +516,11 @@ class DatabaseService {
                 break;
 
             case 'INCIDENT_CREATE':
-                console.log('📤 Enviando incidencia al servidor...');
-                console.log('  Endpoint:', item.endpoint);
-                console.log('  Datos:', {
-                    room: item.data.room,
-                    reportedBy: item.data.reportedBy,
-                    description: item.data.description.substring(0, 50) + '...',
-                    photosLength: item.data.photos ? item.data.photos.length : 0
-                });
-                
-                const newIncident = await api.post(item.endpoint, item.data);
-                console.log('✅ Incidencia creada exitosamente en servidor');
-                console.log('  ID del servidor:', newIncident.id);
+                console.log('  ID del servidor:', result.serverId);
                 console.log('  Temp ID local:', item.tempId);
                 
                 // Reemplazar documento temporal con el real del servidor
-                if (item.tempId && newIncident.id) {
+                if (item.tempId && result.serverId) {
                     try {
                         const tempDoc = await this.incidentsDB.get(item.tempId);
                         await this.incidentsDB.remove(tempDoc);
@@ -417,15 +530,17 @@ class DatabaseService {
                     }
                     
                     // Guardar la incidencia real del servidor
-                    try {
-                        await this.incidentsDB.put({
-                            _id: `incident_${newIncident.id}`,
-                            ...newIncident,
-                            localUpdated: Date.now()
-                        });
-                        console.log('💾 Incidencia del servidor guardada localmente');
-                    } catch (err) {
-                        console.warn('⚠️ Error guardando incidencia del servidor localmente:', err);
+                    if (result.incident) {
+                        try {
+                            await this.incidentsDB.put({
+                                _id: `incident_${result.serverId}`,
+                                ...result.incident,
+                                localUpdated: Date.now()
+                            });
+                            console.log('💾 Incidencia del servidor guardada localmente');
+                        } catch (err) {
+                            console.warn('⚠️ Error guardando incidencia del servidor localmente:', err);
+                        }
                     }
                 }
                 break;
@@ -453,6 +568,121 @@ class DatabaseService {
         }
     }
 
+    // === FEED DE CAMBIOS ===
+
+    /**
+     * Pone al día habitaciones e incidencias locales con GET /api/changes?since=<token>
+     * - Solo baja lo creado, modificado o eliminado desde la última llamada
+     * - reset=true (primera vez, otro usuario o historial depurado en el servidor): descarga los
+     *   listados completos de la mucama y continúa desde el token devuelto
+     * @returns false sin PouchDB (el llamador descarga los listados completos)
+     */
+    async syncChanges(maidId) {
+        await this.ensureReady();
+        if (!this.roomsDB || !this.incidentsDB) return false;
+
+        const apiModule = await import('../../js/api.js');
+        const api = apiModule.default;
+
+        let since = this.getChangesToken(maidId);
+        let page;
+        do {
+            page = await api.get(ENDPOINTS.CHANGES(since));
+            if (page.reset) {
+                const [rooms, incidents] = await Promise.all([
+                    api.get(ENDPOINTS.ROOMS_BY_MAID(maidId)),
+                    api.get(ENDPOINTS.INCIDENTS_BY_MAID(maidId))
+                ]);
+                await this.replaceLocal(maidId, rooms, incidents);
+            } else {
+                await this.applyChanges(maidId, page);
+            }
+            since = page.token;
+            this.setChangesToken(maidId, since);
+        } while (page.hasMore && !page.reset);
+        return true;
+    }
+
+    getChangesToken(userId) {
+        try {
+            const saved = JSON.parse(localStorage.getItem(STORAGE_KEYS.CHANGES_TOKEN));
+            return saved?.userId === userId ? saved.token : null;
+        } catch (e) {
+            return null;
+        }
+    }
+
+    setChangesToken(userId, token) {
+        localStorage.setItem(STORAGE_KEYS.CHANGES_TOKEN, JSON.stringify({ userId, token }));
+    }
+
+    /**
+     * Aplica una página del feed: guarda lo nuevo de la mucama y actualiza lo que ya está guardado
+     * (p. ej. una habitación que le quitaron); un cambio local sin sincronizar gana
+     */
+    async applyChanges(maidId, page) {
+        await this.upsertDocs(this.roomsDB, page.rooms.map(room => ({ _id: `room_${room.id}`, ...room, deltaSchema: WEBSOCKET_CONFIG.DELTA_SCHEMA })),
+            room => room.assignedTo?.id === maidId);
+        await this.upsertDocs(this.incidentsDB, page.incidents.map(inc => ({ _id: `incident_${inc.id}`, ...inc, deltaSchema: WEBSOCKET_CONFIG.DELTA_SCHEMA })),
+            inc => inc.reportedBy?.id === maidId);
+        await this.removeDocs(this.roomsDB, page.deletedRoomIds.map(id => `room_${id}`));
+        await this.removeDocs(this.incidentsDB, page.deletedIncidentIds.map(id => `incident_${id}`));
+
+        const count = page.rooms.length + page.incidents.length + page.deletedRoomIds.length + page.deletedIncidentIds.length;
+        console.log(`🔄 Feed de cambios: ${count} cambios aplicados (token ${page.token})`);
+    }
+
+    /**
+     * Descarga completa tras reset: guarda los listados y quita lo de la mucama que ya no viene
+     * (desasignado o eliminado mientras el token no servía)
+     */
+    async replaceLocal(maidId, rooms, incidents) {
+        await this.saveRoomsLocal(rooms);
+        await this.saveIncidentsLocal(incidents);
+
+        const roomIds = new Set(rooms.map(room => room.id));
+        const localRooms = await this.roomsDB.allDocs({ include_docs: true });
+        await this.removeDocs(this.roomsDB, localRooms.rows.map(row => row.doc)
+            .filter(doc => doc.assignedTo?.id === maidId && !roomIds.has(doc.id) && !doc.pendingSync)
+            .map(doc => doc._id));
+
+        // También las copias con _id aleatorio que guardaban versiones anteriores
+        const incidentIds = new Set(incidents.map(inc => inc.id));
+        const localIncidents = await this.incidentsDB.allDocs({ include_docs: true });
+        await this.removeDocs(this.incidentsDB, localIncidents.rows.map(row => row.doc)
+            .filter(doc => !doc.localCreated && !doc.pendingSync)
+            .filter(doc => doc._id !== `incident_${doc.id}`
+                || (doc.reportedBy?.id === maidId && !incidentIds.has(doc.id)))
+            .map(doc => doc._id));
+    }
+
+    async upsertDocs(db, docs, keepNew) {
+        for (const doc of docs) {
+            try {
+                const existing = await db.get(doc._id);
+                if (existing.pendingSync) continue;
+                doc._rev = existing._rev;
+            } catch (e) {
+                if (!keepNew(doc)) continue;
+            }
+            try {
+                await db.put({ ...doc, localUpdated: Date.now() });
+            } catch (error) {
+                console.error('Error aplicando cambio del feed:', error);
+            }
+        }
+    }
+
+    async removeDocs(db, ids) {
+        for (const id of ids) {
+            try {
+                await db.remove(await db.get(id));
+            } catch (e) {
+                // No estaba guardado localmente
+            }
+        }
+    }
+
     // === SINCRONIZACIÓN COMPLETA ===
 
     async syncAll() {
@@ -474,24 +704,13 @@ class DatabaseService {
                 return;
             }
 
-            // Sincronizar habitaciones y incidencias (cada una de forma independiente)
+            // Habitaciones e incidencias: solo los cambios desde la última sincronización
             if (userData.role === 'MAID') {
-                // Sincronizar habitaciones
-                try {
-                    const rooms = await api.get(ENDPOINTS.ROOMS_BY_MAID(userData.userId));
-                    await this.saveRoomsLocal(rooms);
-                    console.log('✅ Habitaciones sincronizadas');
-                } catch (roomError) {
-                    console.warn('⚠️ Error sincronizando habitaciones:', roomError.message);
-                }
-
-                // Sincronizar incidencias
                 try {
-                    const incidents = await api.get(ENDPOINTS.INCIDENTS_BY_MAID(userData.userId));
-                    await this.saveIncidentsLocal(incidents);
-                    console.log('✅ Incidencias sincronizadas');
-                } catch (incidentError) {
-                    console.warn('⚠️ Error sincronizando incidencias:', incidentError.message);
+                    await this.syncChanges(userData.userId);
+                    console.log('✅ Habitaciones e incidencias sincronizadas');
+                } catch (changesError) {
+                    console.warn('⚠️ Error sincronizando cambios:', changesError.message);
                 }
             }
 
@@ -578,6 +797,7 @@ class DatabaseService {
             if (this.roomsDB) await this.roomsDB.destroy();
             if (this.incidentsDB) await this.incidentsDB.destroy();
             if (this.syncDB) await this.syncDB.destroy();
+            localStorage.removeItem(STORAGE_KEYS.CHANGES_TOKEN);
 
             console.log('🗑️ Bases de datos locales eliminadas');
         } catch (error) {
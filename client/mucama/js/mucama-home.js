@@ -10,6 +10,7 @@ import api from '../../js/api.js';
 import { ENDPOINTS, ROOM_STATUS, USER_ROLES } from '../../js/config.js';
 import dbService from './db-service.js';
 import wsClient from '../../js/websocket-client.js';
+import { WEBSOCKET_CONFIG } from '../../js/constants.js';
 
 let currentRooms = [];
 let currentRoomId = null;
@@ -96,7 +97,8 @@ document.addEventListener('DOMContentLoaded', async () => {
 });
 
 // Cargar habitaciones asignadas a esta mucama (con soporte offline)
-// Backend: RoomController.getRoomsByMaid() - GET /api/rooms/maid/{maidId}
+// Backend: ChangeController - GET /api/changes?since= (solo lo que cambió); sin PouchDB,
+// RoomController.getRoomsByMaid() - GET /api/rooms/maid/{maidId}
 // Offline: Lee desde PouchDB local
 async function loadMyRooms() {
     try {
@@ -107,14 +109,16 @@ async function loadMyRooms() {
         if (navigator.onLine) {
             // ONLINE: Obtener del backend
             try {
-                // Cargar habitaciones e incidencias en paralelo
-                [rooms, incidents] = await Promise.all([
-                    api.get(ENDPOINTS.ROOMS_BY_MAID(userData.userId)),
-                    api.get(ENDPOINTS.INCIDENTS_BY_MAID(userData.userId))
-                ]);
-                // Guardar en PouchDB para uso offline
-                await dbService.saveRoomsLocal(rooms);
-                await dbService.saveIncidentsLocal(incidents);
+                if (await dbService.syncChanges(userData.userId)) {
+                    // PouchDB al día con el feed de cambios: se pinta desde local
+                    rooms = await dbService.getRoomsLocal(userData.userId);
+                    incidents = await dbService.getIncidentsLocal();
+                } else {
+                    [rooms, incidents] = await Promise.all([
+                        api.get(ENDPOINTS.ROOMS_BY_MAID(userData.userId)),
+                        api.get(ENDPOINTS.INCIDENTS_BY_MAID(userData.userId))
+                    ]);
+                }
             } catch (error) {
                 console.warn('Error cargando del backend, usando datos locales:', error);
                 rooms = await dbService.getRoomsLocal(userData.userId);
@@ -127,24 +131,7 @@ async function loadMyRooms() {
             incidents = await dbService.getIncidentsLocal();
         }
         
-        // Marcar habitaciones como bloqueadas si tienen incidencias activas
-        rooms = markBlockedRooms(rooms, incidents);
-        
-        currentRooms = rooms;
-        renderRooms(rooms);
-        updateStats(rooms);
-
-        // Filtrar habitaciones pendientes (no limpias) para mostrar empty state
-        const pendingRooms = rooms.filter(room => room.status !== ROOM_STATUS.CLEAN);
-        
-        // Ocultar/mostrar empty state
-        if (pendingRooms.length === 0) {
-            document.getElementById('emptyState').classList.remove('d-none');
-            document.getElementById('roomsList').classList.add('d-none');
-        } else {
-            document.getElementById('emptyState').classList.add('d-none');
-            document.getElementById('roomsList').classList.remove('d-none');
-        }
+        showRooms(rooms, incidents);
 
     } catch (error) {
         console.error('Error loading rooms:', error);
@@ -152,6 +139,33 @@ async function loadMyRooms() {
     }
 }
 
+// Volver a pintar desde PouchDB (después de aplicar deltas de WebSocket, sin pedir nada al backend)
+async function renderLocalRooms() {
+    const userData = api.getUserData();
+    showRooms(await dbService.getRoomsLocal(userData.userId), await dbService.getIncidentsLocal());
+}
+
+function showRooms(rooms, incidents) {
+    // Marcar habitaciones como bloqueadas si tienen incidencias activas
+    rooms = markBlockedRooms(rooms, incidents);
+    
+    currentRooms = rooms;
+    renderRooms(rooms);
+    updateStats(rooms);
+
+    // Filtrar habitaciones pendientes (no limpias) para mostrar empty state
+    const pendingRooms = rooms.filter(room => room.status !== ROOM_STATUS.CLEAN);
+    
+    // Ocultar/mostrar empty state
+    if (pendingRooms.length === 0) {
+        document.getElementById('emptyState').classList.remove('d-none');
+        document.getElementById('roomsList').classList.add('d-none');
+    } else {
+        document.getElementById('emptyState').classList.add('d-none');
+        document.getElementById('roomsList').classList.remove('d-none');
+    }
+}
+
 // Renderizar lista de habitaciones
 function renderRooms(rooms) {
     const container = document.getElementById('roomsList');
@@ -498,23 +512,30 @@ function updateConnectivityIndicator() {
 // ============ WEBSOCKET REAL-TIME UPDATES ============
 function setupWebSocket() {
     try {
+        // Frames descartados por conexión lenta o reconexión: recargar habitaciones desde la API
+        wsClient.onResync = () => {
+            console.log('🔄 WebSocket resincronizando habitaciones');
+            loadMyRooms();
+        };
         wsClient.connect(() => {
             console.log('🔌 WebSocket conectado - Suscribiendo a notificaciones...');
+            // En una reconexión las suscripciones anteriores ya no existen
+            wsSubscriptions = [];
             
-            // Suscribirse a actualizaciones de habitaciones
-            const roomsSub = wsClient.subscribe('/topic/rooms', (notification) => {
+            // Suscribirse a actualizaciones de sus habitaciones (cola propia de la mucama)
+            const roomsSub = wsClient.subscribe(WEBSOCKET_CONFIG.TOPICS.ROOMS, (notification) => {
                 console.log('📨 Notificación de habitación:', notification);
                 handleRoomNotification(notification);
             });
             
             // Suscribirse a nuevas incidencias
-            const incidentsSub = wsClient.subscribe('/topic/incidents', (notification) => {
+            const incidentsSub = wsClient.subscribe(WEBSOCKET_CONFIG.TOPICS.INCIDENTS, (notification) => {
                 console.log('📨 Notificación de incidencia:', notification);
                 handleIncidentNotification(notification);
             });
             
             // Suscribirse a notificaciones generales
-            const notificationsSub = wsClient.subscribe('/topic/notifications', (notification) => {
+            const notificationsSub = wsClient.subscribe(WEBSOCKET_CONFIG.TOPICS.NOTIFICATIONS, (notification) => {
                 console.log('📨 Notificación general:', notification);
                 showNotificationToast(notification);
             });
@@ -527,19 +548,46 @@ function setupWebSocket() {
     }
 }
 
-function handleRoomNotification(notification) {
-    const { type, data } = notification;
-    
-    // Si es una actualización de habitación que nos afecta, recargar
+// Las notificaciones traen el estado de cada habitación (EntityDelta): se aplica en PouchDB y se
+// vuelve a pintar sin pedir la lista al backend. Solo se recarga si falta una habitación recién
+// asignada o el formato no se reconoce (p. ej. ROOMS_DISTRIBUTED, que solo trae conteos).
+async function handleRoomNotification(notification) {
+    const { data } = notification;
     const userData = api.getUserData();
-    if (data.assignedTo && data.assignedTo.id === userData.userId) {
-        loadMyRooms();
-        showToast(`Habitación ${data.number} actualizada`, 'info');
+    const deltas = data?.entity === 'ROOM' ? [data] : (Array.isArray(data?.rooms) ? data.rooms : null);
+    let needsReload = true;
+    
+    if (deltas && deltas.every(delta => delta.schema === WEBSOCKET_CONFIG.DELTA_SCHEMA)) {
+        needsReload = false;
+        for (const delta of deltas) {
+            const applied = await dbService.applyRoomDelta(delta);
+            if (!applied && delta.fields.assignedToId === userData.userId) {
+                needsReload = true;
+            }
+        }
+        if (data?.entity === 'ROOM' && data.fields.assignedToId === userData.userId) {
+            showToast(`Habitación ${data.fields.number} actualizada`, 'info');
+        }
+    } else if (data?.buildingId && data?.fromStatus && data?.status) {
+        // Reinicio de estados de un edificio
+        await dbService.applyRoomStatusByBuilding(data.buildingId, data.fromStatus, data.status, data.updatedAt);
+        needsReload = false;
+    }
+    
+    if (needsReload) {
+        await loadMyRooms();
+    } else {
+        await renderLocalRooms();
     }
 }
 
-function handleIncidentNotification(notification) {
-    const { type, message } = notification;
+async function handleIncidentNotification(notification) {
+    const { type, message, data } = notification;
+    
+    if (data?.entity === 'INCIDENT' && data.schema === WEBSOCKET_CONFIG.DELTA_SCHEMA) {
+        await dbService.applyIncidentDelta(data);
+        await renderLocalRooms();
+    }
     
     if (type === 'INCIDENT_CREATED') {
         // Reproducir sonido o mostrar notificación
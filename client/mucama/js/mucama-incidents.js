@@ -136,9 +136,10 @@ async function loadMyRooms() {
         const userData = api.getUserData();
         
         if (navigator.onLine) {
-            myRooms = await api.get(ENDPOINTS.ROOMS_BY_MAID(userData.userId));
-            // Guardar en local
-            await dbService.saveRoomsLocal(myRooms);
+            // Solo los cambios desde la última sincronización (sin PouchDB, el listado completo)
+            myRooms = await dbService.syncChanges(userData.userId)
+                ? await dbService.getRoomsLocal(userData.userId)
+                : await api.get(ENDPOINTS.ROOMS_BY_MAID(userData.userId));
         } else {
             // Usar cache local
             myRooms = await dbService.getRoomsLocal();
@@ -218,11 +219,11 @@ async function loadIncidents() {
         const userData = api.getUserData();
         
         if (navigator.onLine) {
-            const incidents = await api.get(ENDPOINTS.INCIDENTS_BY_MAID(userData.userId));
+            // Solo los cambios desde la última sincronización (sin PouchDB, el listado completo)
+            const incidents = await dbService.syncChanges(userData.userId)
+                ? await dbService.getIncidentsLocal(userData.userId)
+                : await api.get(ENDPOINTS.INCIDENTS_BY_MAID(userData.userId));
             allIncidents = filterIncidentsByTime(incidents); // Aplicar filtro de tiempo
-            
-            // Guardar en local
-            await dbService.saveIncidentsLocal(allIncidents);
         } else {
             // Usar cache local
             const cachedIncidents = await dbService.getIncidentsLocal();
@@ -371,7 +372,12 @@ async function createIncident() {
             console.log('🌐 MODO ONLINE: Enviando incidencia directamente al servidor...');
             
             try {
-                const response = await api.post(ENDPOINTS.INCIDENTS, incidentData);
+                // Las fotos se suben primero al almacén; la incidencia solo guarda sus claves
+                const photoKeys = await uploadPhotos(photosBase64);
+                const response = await api.post(ENDPOINTS.INCIDENTS, {
+                    ...incidentData,
+                    photos: JSON.stringify(photoKeys)
+                });
                 console.log('✅ Incidencia creada exitosamente en el servidor:', response);
                 showToast('✅ Incidencia registrada correctamente', 'success');
                 
@@ -639,7 +645,8 @@ window.viewIncidentDetail = async (incidentId) => {
                         <h6>Fotos</h6>
                         <div class="d-flex gap-2 flex-wrap">
                             ${parsePhotos(incident.photos).map(photo => `
-                                <img src="${photo}" class="img-fluid" style="max-width: 150px; border-radius: 8px;">
+                                <img src="${thumbnailUrl(photo)}" class="img-fluid" style="max-width: 150px; border-radius: 8px; cursor: pointer;"
+                                     loading="lazy" onclick="window.open('${photoUrl(photo)}', '_blank')">
                             `).join('')}
                         </div>
                     </div>
@@ -678,6 +685,27 @@ function parsePhotos(photosJson) {
     }
 }
 
+// Clave SHA-256 -> URL de descarga (las incidencias guardadas offline aún traen data URLs)
+function photoUrl(photo) {
+    return photo.startsWith('data:') ? photo : ENDPOINTS.PHOTO(photo);
+}
+
+// La foto completa solo se descarga al abrirla
+function thumbnailUrl(photo) {
+    return photo.startsWith('data:') ? photo : ENDPOINTS.PHOTO_THUMBNAIL(photo);
+}
+
+// Sube las fotos (data URLs ya comprimidas) y devuelve sus claves
+async function uploadPhotos(dataUrls) {
+    const formData = new FormData();
+    for (const [index, dataUrl] of dataUrls.entries()) {
+        const blob = await (await fetch(dataUrl)).blob();
+        formData.append('files', blob, `foto-${index + 1}.jpg`);
+    }
+    const stored = await api.upload(ENDPOINTS.PHOTOS, formData);
+    return stored.map(photo => photo.key);
+}
+
 function truncateText(text, maxLength) {
     if (text.length <= maxLength) return text;
     return text.substring(0, maxLength) + '...';
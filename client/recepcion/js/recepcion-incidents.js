@@ -269,8 +269,8 @@ window.viewDetail = async (incidentId) => {
                         <strong>Fotos:</strong><br>
                         <div class="d-flex gap-2 flex-wrap mt-2">
                             ${parsePhotos(incident.photos).map(photo => `
-                                <img src="${photo}" class="img-thumbnail" style="max-width: 200px; cursor: pointer;" 
-                                     onclick="window.open('${photo}', '_blank')">
+                                <img src="${thumbnailUrl(photo)}" class="img-thumbnail" style="max-width: 200px; cursor: pointer;" 
+                                     loading="lazy" onclick="window.open('${photoUrl(photo)}', '_blank')">
                             `).join('')}
                         </div>
                     </div>
@@ -310,6 +310,16 @@ function parsePhotos(photosJson) {
     }
 }
 
+// Clave SHA-256 -> URL de descarga (filas sin migrar aún pueden traer data URLs)
+function photoUrl(photo) {
+    return photo.startsWith('data:') ? photo : ENDPOINTS.PHOTO(photo);
+}
+
+// La foto completa solo se descarga al abrirla
+function thumbnailUrl(photo) {
+    return photo.startsWith('data:') ? photo : ENDPOINTS.PHOTO_THUMBNAIL(photo);
+}
+
 function truncateText(text, maxLength) {
     if (text.length <= maxLength) return text;
     return text.substring(0, maxLength) + '...';
@@ -88,7 +88,10 @@ self.addEventListener('fetch', (event) => {
     }
     
     // Estrategia diferenciada por tipo de recurso
-    if (url.pathname.startsWith('/api/')) {
+    if (url.pathname.startsWith('/api/changes')) {
+        // Feed de cambios: solo red. Una página guardada aplicaría otra vez cambios viejos
+        event.respondWith(fetch(request));
+    } else if (url.pathname.startsWith('/api/')) {
         // API: Network First con timeout, luego Cache
         event.respondWith(networkFirstStrategy(request));
     } else {
@@ -0,0 +1,77 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verificación de un token en el filtro JWT, en operaciones por segundo
+ * - legacyThreeParses: lo que hacía el filtro antes (clave y parser nuevos, tres parseos por petición)
+ * - verifyOnce: un parseo con la clave y el parser precalculados
+ * - verifyCached: token ya verificado, solo se calcula su SHA-256
+ * Resultado (JDK 21.0.1, 1 fork, mvn -Pbenchmark test-compile exec:exec -Djmh.include=JwtServiceBenchmark):
+ *   legacyThreeParses     52 069 ops/s
+ *   verifyOnce           174 534 ops/s  (3,4x)
+ *   verifyCached       3 030 122 ops/s  (58x)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "mySecretKeyForHotelManagementSystemThatIsVeryLongAndSecure12345";
+
+    private JwtService uncached;
+    private JwtService cached;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncached = new JwtService(SECRET, 86400000L, 0);
+        cached = new JwtService(SECRET, 86400000L, 10000);
+        token = uncached.generateToken(User.withUsername("mucama1").password("x").roles("MAID").build(),
+                Map.of("role", "MAID", "userId", 1L));
+        cached.verify(token);
+    }
+
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String username = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(username)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public Claims verifyOnce() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return cached.verify(token);
+    }
+
+    private static Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,30 +1,71 @@
 package utex.edu.mx.server.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import utex.edu.mx.server.security.StompAuthChannelInterceptor;
+import utex.edu.mx.server.service.WebSocketSessionMonitor;
 
 /**
  * Configuración WebSocket con STOMP para notificaciones en tiempo real
- * Endpoint: ws://localhost:8080/ws
- * Tópicos:
- *   - /topic/incidents - Nuevas incidencias
- *   - /topic/rooms - Actualizaciones de habitaciones
- *   - /topic/notifications - Notificaciones generales
+ * Endpoint: ws://localhost:8080/ws (CONNECT con header "Authorization: Bearer <jwt>")
+ * Destinos (NotificationService):
+ *   - /topic/hotels/{hotelId}/incidents|rooms|notifications - Recepción y administración del hotel
+ *   - /user/queue/incidents|rooms|notifications - Cada mucama, solo sus habitaciones e incidencias
+ * Backpressure: pools propios para los canales de entrada y salida (websocket.inbound.* / websocket.outbound.*),
+ * límites de tiempo y buffer de envío por sesión (websocket.transport.*) y WebSocketSessionMonitor para
+ * clientes lentos
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final WebSocketSessionMonitor sessionMonitor;
+    private final ChannelPool inbound;
+    private final ChannelPool outbound;
+    private final int sendTimeLimitMillis;
+    private final int sendBufferSizeLimit;
+    private final int messageSizeLimit;
+
+    private record ChannelPool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+    }
+
+    public WebSocketConfig(StompAuthChannelInterceptor stompAuthChannelInterceptor,
+                           WebSocketSessionMonitor sessionMonitor,
+                           @Value("${websocket.inbound.core-pool-size:4}") int inboundCorePoolSize,
+                           @Value("${websocket.inbound.max-pool-size:8}") int inboundMaxPoolSize,
+                           @Value("${websocket.inbound.queue-capacity:1000}") int inboundQueueCapacity,
+                           @Value("${websocket.outbound.core-pool-size:4}") int outboundCorePoolSize,
+                           @Value("${websocket.outbound.max-pool-size:16}") int outboundMaxPoolSize,
+                           @Value("${websocket.outbound.queue-capacity:5000}") int outboundQueueCapacity,
+                           @Value("${websocket.transport.send-time-limit-ms:5000}") int sendTimeLimitMillis,
+                           @Value("${websocket.transport.send-buffer-size-limit:262144}") int sendBufferSizeLimit,
+                           @Value("${websocket.transport.message-size-limit:65536}") int messageSizeLimit) {
+        this.stompAuthChannelInterceptor = stompAuthChannelInterceptor;
+        this.sessionMonitor = sessionMonitor;
+        this.inbound = new ChannelPool(inboundCorePoolSize, inboundMaxPoolSize, inboundQueueCapacity);
+        this.outbound = new ChannelPool(outboundCorePoolSize, outboundMaxPoolSize, outboundQueueCapacity);
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.sendBufferSizeLimit = sendBufferSizeLimit;
+        this.messageSizeLimit = messageSizeLimit;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Habilitar un message broker simple en memoria
-        config.enableSimpleBroker("/topic");
+        config.enableSimpleBroker("/topic", "/queue");
         
         // Prefijo para mensajes destinados a métodos @MessageMapping
         config.setApplicationDestinationPrefixes("/app");
+        
+        // convertAndSendToUser(username, "/queue/x") -> suscripción /user/queue/x de ese usuario
+        config.setUserDestinationPrefix("/user");
     }
 
     @Override
@@ -34,4 +75,36 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*") // En producción, especificar dominios exactos
                 .withSockJS();
     }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Valida el JWT en CONNECT y los permisos de cada SUBSCRIBE
+        registration.interceptors(stompAuthChannelInterceptor);
+        configurePool(registration, inbound);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Cuenta los frames en espera por sesión y aplica la política de clientes lentos
+        registration.interceptors(sessionMonitor);
+        configurePool(registration, outbound);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Una sesión que tarda más de send-time-limit en aceptar un frame o acumula más de
+        // send-buffer-size-limit bytes se cierra (SESSION_NOT_RELIABLE) y deja de retener hilos de salida
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(sessionMonitor::decorate);
+    }
+
+    private static void configurePool(ChannelRegistration registration, ChannelPool pool) {
+        // Con cola acotada el pool crece hasta max-pool-size antes de rechazar
+        registration.taskExecutor()
+                .corePoolSize(pool.corePoolSize())
+                .maxPoolSize(pool.maxPoolSize())
+                .queueCapacity(pool.queueCapacity());
+    }
 }
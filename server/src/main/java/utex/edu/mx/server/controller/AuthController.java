@@ -1,18 +1,25 @@
 package utex.edu.mx.server.controller;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 import utex.edu.mx.server.dto.AuthRequest;
 import utex.edu.mx.server.dto.AuthResponse;
+import utex.edu.mx.server.dto.RefreshRequest;
 import utex.edu.mx.server.model.User;
 import utex.edu.mx.server.repository.UserRepository;
 import utex.edu.mx.server.security.CustomUserDetailsService;
 import utex.edu.mx.server.security.JwtService;
+import utex.edu.mx.server.security.LoginRejectedException;
+import utex.edu.mx.server.security.LoginService;
+import utex.edu.mx.server.security.RefreshTokenService;
+import utex.edu.mx.server.security.TokenRevocationService;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -23,36 +30,89 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
 public class AuthController {
     
-    private final AuthenticationManager authenticationManager;
+    private final LoginService loginService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocations;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
     
+    /**
+     * La contraseña se verifica en el pool acotado de LoginService;
+     * 429 con Retry-After si el usuario está bloqueado o el pool está saturado
+     */
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
-        
-        User user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getUsername());
+        User user;
+        try {
+            user = loginService.authenticate(request.getUsername(), request.getPassword());
+        } catch (LoginRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .build();
+        }
         
+        return ResponseEntity.ok(issueTokens(user, refreshTokenService.issue(user.getId())));
+    }
+    
+    /**
+     * Cambia un refresh token por un access token nuevo y otro refresh token (el presentado queda revocado)
+     * 401 si es inválido, expiró, ya se usó o el usuario fue desactivado
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@RequestBody RefreshRequest request) {
+        if (request.getRefreshToken() == null || request.getRefreshToken().isBlank()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+            return ResponseEntity.ok(issueTokens(rotation.user(), rotation.refreshToken()));
+        } catch (BadCredentialsException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+    }
+    
+    /**
+     * Revoca el refresh token y, si viene en el header, el access token actual
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestBody(required = false) RefreshRequest request,
+                                       @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        if (request != null && request.getRefreshToken() != null) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            try {
+                Claims claims = jwtService.verify(authorization.substring(7));
+                tokenRevocations.revokeToken(claims.getId(), claims.getExpiration());
+            } catch (JwtException | IllegalArgumentException e) {
+                // Token ya inválido: no hay nada que revocar
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+    
+    private AuthResponse issueTokens(User user, String refreshToken) {
         Map<String, Object> extraClaims = new HashMap<>();
-        extraClaims.put("role", user.getRole().name());
-        extraClaims.put("userId", user.getId());
+        extraClaims.put(JwtService.ROLE_CLAIM, user.getRole().name());
+        extraClaims.put(JwtService.USER_ID_CLAIM, user.getId());
+        extraClaims.put(JwtService.EPOCH_CLAIM, tokenRevocations.currentEpoch(user.getId()));
+        if (user.getHotel() != null) {
+            extraClaims.put(JwtService.HOTEL_ID_CLAIM, user.getHotel().getId());
+        }
         
-        String token = jwtService.generateToken(userDetails, extraClaims);
+        String token = jwtService.generateToken(userDetailsService.toUserDetails(user), extraClaims);
         
-        return ResponseEntity.ok(new AuthResponse(
+        return new AuthResponse(
                 token,
                 user.getId(),
                 user.getUsername(),
                 user.getName(),
-                user.getRole().name()
-        ));
+                user.getRole().name(),
+                refreshToken,
+                jwtService.getExpirationSeconds()
+        );
     }
     
     @PostMapping("/register")
@@ -0,0 +1,28 @@
+package utex.edu.mx.server.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.ChangeFeedResponse;
+import utex.edu.mx.server.service.ChangeFeedService;
+
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class ChangeController {
+    
+    private final ChangeFeedService changeFeedService;
+    
+    /**
+     * Cambios de habitaciones e incidencias posteriores al token
+     * GET /api/changes?since=<token>&limit=
+     * Sin since (o con un token no válido) responde reset=true y el token actual
+     */
+    @GetMapping
+    public ResponseEntity<ChangeFeedResponse> getChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(changeFeedService.getChanges(since, limit));
+    }
+}
@@ -0,0 +1,61 @@
+package utex.edu.mx.server.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.ImportResult;
+import utex.edu.mx.server.service.RoomImportService;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/import")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class ImportController {
+    
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    
+    private final RoomImportService roomImportService;
+    
+    /**
+     * Importación masiva de hoteles, edificios y habitaciones
+     * POST /api/import/rooms
+     * Content-Type: text/csv (hotel,building,floor,number[,status]) o application/x-ndjson
+     */
+    @PostMapping(value = "/rooms", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importRooms(HttpServletRequest request) throws IOException {
+        if (request.getContentType() == null) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body("Se requiere Content-Type text/csv o application/x-ndjson");
+        }
+        MediaType contentType;
+        try {
+            contentType = MediaType.parseMediaType(request.getContentType());
+        } catch (InvalidMediaTypeException e) {
+            return ResponseEntity.badRequest().body("Content-Type inválido: " + request.getContentType());
+        }
+        RoomImportService.Format format = TEXT_CSV.includes(contentType)
+                ? RoomImportService.Format.CSV
+                : RoomImportService.Format.JSON_LINES;
+        try {
+            return ResponseEntity.ok(roomImportService.importRooms(request.getInputStream(), format));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Progreso de la importación en curso o resultado de la última
+     * GET /api/import/rooms/status
+     */
+    @GetMapping("/rooms/status")
+    public ResponseEntity<ImportResult> getImportStatus() {
+        ImportResult progress = roomImportService.getProgress();
+        return progress == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(progress);
+    }
+}
@@ -1,19 +1,42 @@
 package utex.edu.mx.server.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.CursorPage;
+import utex.edu.mx.server.dto.EntityDelta;
+import utex.edu.mx.server.dto.SearchPage;
 import utex.edu.mx.server.dto.WebSocketNotification;
+import utex.edu.mx.server.model.ArchivedIncident;
+import utex.edu.mx.server.model.ChangeLogEntry;
 import utex.edu.mx.server.model.Incident;
 import utex.edu.mx.server.model.Room;
 import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.ArchivedIncidentRepository;
 import utex.edu.mx.server.repository.IncidentRepository;
 import utex.edu.mx.server.repository.RoomRepository;
 import utex.edu.mx.server.repository.UserRepository;
+import utex.edu.mx.server.service.ChangeFeedService;
+import utex.edu.mx.server.service.IncidentAnalyticsService;
+import utex.edu.mx.server.service.IncidentSearchService;
+import utex.edu.mx.server.service.NotificationService;
+import utex.edu.mx.server.service.OccupancyRollupService;
+import utex.edu.mx.server.service.PhotoProcessingService;
+import utex.edu.mx.server.service.PhotoStorageService;
+import utex.edu.mx.server.service.ResponseCacheService;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/incidents")
@@ -22,39 +45,138 @@ import java.util.List;
 public class IncidentController {
     
     private final IncidentRepository incidentRepository;
+    private final ArchivedIncidentRepository archivedIncidentRepository;
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationService notificationService;
+    private final ResponseCacheService responseCache;
+    private final ChangeFeedService changeFeedService;
+    private final OccupancyRollupService occupancyRollup;
+    private final PhotoStorageService photoStorage;
+    private final PhotoProcessingService photoProcessing;
+    private final IncidentSearchService incidentSearch;
+    private final IncidentAnalyticsService incidentAnalytics;
+    
+    // Los listados se responden con ETag desde ResponseCacheService (304 si el cliente ya tiene la versión)
+    // Por defecto solo incluyen incidencias activas; ?includeArchived=true agrega las del historial
     
     @GetMapping
-    public ResponseEntity<List<Incident>> getAllIncidents() {
-        return ResponseEntity.ok(incidentRepository.findAll());
+    public ResponseEntity<byte[]> getAllIncidents(
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.INCIDENTS, cacheKey("all", includeArchived),
+                ifNoneMatch, () -> withArchived(incidentRepository.findAll(),
+                        includeArchived ? archivedIncidentRepository.findAll() : List.of()));
+    }
+    
+    /**
+     * Listado paginado por cursor (más recientes primero) con filtros combinables
+     * GET /api/incidents/page?cursor=&limit=&hotelId=&buildingId=&floor=&roomId=&status=&maidId=&from=&to=
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Incident>> getIncidentsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) Long buildingId,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) Long roomId,
+            @RequestParam(required = false) Incident.IncidentStatus status,
+            @RequestParam(required = false) Long maidId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Incident> rows = incidentRepository.findPage(cursor, hotelId, buildingId, floor, roomId, status, maidId,
+                from, to, Limit.of(pageSize + 1));
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, Incident::getId));
+    }
+    
+    /**
+     * Búsqueda de texto libre en descripción y notas de resolución, ordenada por relevancia
+     * GET /api/incidents/search?q=aire acondicionado&status=&includeArchived=false&page=0&size=20
+     * Sin acentos ni distinción de plural: "fuga" encuentra "Fugas de agua en el baño"
+     */
+    @GetMapping("/search")
+    public ResponseEntity<SearchPage<Incident>> searchIncidents(
+            @RequestParam String q,
+            @RequestParam(required = false) Incident.IncidentStatus status,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        int pageSize = SearchPage.clampSize(size);
+        int pageNumber = Math.max(page, 0);
+        IncidentSearchService.Result result =
+                incidentSearch.search(q, status, includeArchived, pageNumber * pageSize, pageSize);
+        
+        // Solo se cargan las incidencias de la página, en el orden del ranking
+        List<Long> ids = result.hits().stream().map(IncidentSearchService.Hit::id).toList();
+        Map<Long, Incident> byId = incidentRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Incident::getId, Function.identity()));
+        if (includeArchived && byId.size() < ids.size()) {
+            archivedIncidentRepository.findAllById(ids.stream().filter(id -> !byId.containsKey(id)).toList())
+                    .forEach(archived -> byId.put(archived.getId(), archived.toIncident()));
+        }
+        List<Incident> items = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+        
+        boolean hasMore = (long) (pageNumber + 1) * pageSize < result.total();
+        return ResponseEntity.ok(new SearchPage<>(q, items, pageNumber, pageSize, result.total(), hasMore));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Incident> getIncidentById(@PathVariable Long id) {
+    public ResponseEntity<Incident> getIncidentById(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         return incidentRepository.findById(id)
+                .or(() -> includeArchived
+                        ? archivedIncidentRepository.findById(id).map(ArchivedIncident::toIncident)
+                        : Optional.empty())
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/room/{roomId}")
-    public ResponseEntity<List<Incident>> getIncidentsByRoom(@PathVariable Long roomId) {
-        return ResponseEntity.ok(incidentRepository.findByRoomId(roomId));
+    public ResponseEntity<byte[]> getIncidentsByRoom(
+            @PathVariable Long roomId,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.INCIDENTS,
+                cacheKey("room:" + roomId, includeArchived), ifNoneMatch,
+                () -> withArchived(incidentRepository.findByRoomId(roomId),
+                        includeArchived ? archivedIncidentRepository.findByRoomId(roomId) : List.of()));
     }
     
     @GetMapping("/maid/{maidId}")
-    public ResponseEntity<List<Incident>> getIncidentsByMaid(@PathVariable Long maidId) {
-        return ResponseEntity.ok(incidentRepository.findByReportedById(maidId));
+    public ResponseEntity<byte[]> getIncidentsByMaid(
+            @PathVariable Long maidId,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.INCIDENTS,
+                cacheKey("maid:" + maidId, includeArchived), ifNoneMatch,
+                () -> withArchived(incidentRepository.findByReportedById(maidId),
+                        includeArchived ? archivedIncidentRepository.findByReportedById(maidId) : List.of()));
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Incident>> getIncidentsByStatus(@PathVariable Incident.IncidentStatus status) {
-        return ResponseEntity.ok(incidentRepository.findByStatus(status));
+    public ResponseEntity<byte[]> getIncidentsByStatus(
+            @PathVariable Incident.IncidentStatus status,
+            @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.INCIDENTS,
+                cacheKey("status:" + status, includeArchived), ifNoneMatch,
+                () -> withArchived(incidentRepository.findByStatus(status),
+                        includeArchived ? archivedIncidentRepository.findByStatus(status) : List.of()));
     }
     
+    @Transactional
     @PostMapping
-    public ResponseEntity<Incident> createIncident(@RequestBody Incident incident) {
+    public ResponseEntity<?> createIncident(@RequestBody Incident incident) {
+        // Las fotos en base64 (clientes anteriores / cola offline) se pasan al almacén en disco
+        try {
+            incident.setPhotos(photoStorage.normalizeReferences(incident.getPhotos()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        
         // Fetch and set the Room entity
         if (incident.getRoom() != null && incident.getRoom().getId() != null) {
             Room room = roomRepository.findById(incident.getRoom().getId())
@@ -72,87 +194,124 @@ public class IncidentController {
         incident.setCreatedAt(LocalDateTime.now());
         incident.setUpdatedAt(LocalDateTime.now());
         Incident savedIncident = incidentRepository.save(incident);
+        responseCache.invalidateAfterCommit(ResponseCacheService.Collection.INCIDENTS);
+        changeFeedService.recordIncident(savedIncident.getId(), ChangeLogEntry.Operation.UPSERT);
+        occupancyRollup.incidentChanged(roomIdOf(savedIncident), null, savedIncident.getStatus());
+        incidentSearch.indexAfterCommit(savedIncident);
+        incidentAnalytics.incidentChanged(savedIncident.getId(), null, IncidentAnalyticsService.Sample.of(savedIncident));
+        photoProcessing.processAfterCommit(savedIncident.getId(), savedIncident.getPhotoKeys(),
+                NotificationService.Audience.of(savedIncident));
         
-        // Broadcast WebSocket notification (sin el objeto completo para evitar errores de serialización)
-        try {
-            WebSocketNotification notification = new WebSocketNotification(
-                "INCIDENT_CREATED",
-                "Nueva incidencia reportada en Hab. " + (savedIncident.getRoom() != null ? savedIncident.getRoom().getNumber() : "N/A"),
-                savedIncident.getId() // Solo enviar el ID en lugar del objeto completo
-            );
-            messagingTemplate.convertAndSend("/topic/incidents", notification);
-            messagingTemplate.convertAndSend("/topic/notifications", notification);
-        } catch (Exception wsError) {
-            // Log error but don't fail the request
-            System.err.println("Error sending WebSocket notification: " + wsError.getMessage());
-        }
+        // Notificación WebSocket en la misma transacción (outbox); delta compacto en lugar del objeto completo
+        WebSocketNotification notification = new WebSocketNotification(
+            "INCIDENT_CREATED",
+            "Nueva incidencia reportada en Hab. " + (savedIncident.getRoom() != null ? savedIncident.getRoom().getNumber() : "N/A"),
+            EntityDelta.incident(null, savedIncident)
+        );
+        notificationService.send(NotificationService.Audience.of(savedIncident), notification,
+                NotificationService.Channel.INCIDENTS, NotificationService.Channel.NOTIFICATIONS);
         
         return ResponseEntity.ok(savedIncident);
     }
     
+    @Transactional
     @PutMapping("/{id}")
     public ResponseEntity<Incident> updateIncident(@PathVariable Long id, @RequestBody Incident incidentDetails) {
         return incidentRepository.findById(id)
                 .map(incident -> {
+                    Incident.IncidentStatus previousStatus = incident.getStatus();
+                    IncidentAnalyticsService.Sample previous = IncidentAnalyticsService.Sample.of(incident);
+                    Map<String, Object> before = EntityDelta.incidentFields(incident);
                     incident.setDescription(incidentDetails.getDescription());
                     incident.setStatus(incidentDetails.getStatus());
                     incident.setResolutionNotes(incidentDetails.getResolutionNotes());
                     incident.setResolvedAt(incidentDetails.getResolvedAt());
                     incident.setUpdatedAt(LocalDateTime.now());
-                    Incident updatedIncident = incidentRepository.save(incident);
+                    Incident updatedIncident = incidentRepository.saveAndFlush(incident); // versión nueva para el delta
+                    responseCache.invalidateAfterCommit(ResponseCacheService.Collection.INCIDENTS);
+                    changeFeedService.recordIncident(updatedIncident.getId(), ChangeLogEntry.Operation.UPSERT);
+                    occupancyRollup.incidentChanged(roomIdOf(updatedIncident), previousStatus, updatedIncident.getStatus());
+                    incidentSearch.indexAfterCommit(updatedIncident);
+                    incidentAnalytics.incidentChanged(id, previous, IncidentAnalyticsService.Sample.of(updatedIncident));
                     
-                    // Broadcast WebSocket notification
-                    try {
-                        WebSocketNotification notification = new WebSocketNotification(
-                            "INCIDENT_UPDATED",
-                            "Incidencia actualizada",
-                            updatedIncident.getId()
-                        );
-                        messagingTemplate.convertAndSend("/topic/incidents", notification);
-                    } catch (Exception wsError) {
-                        System.err.println("Error sending WebSocket notification: " + wsError.getMessage());
-                    }
+                    // Notificación WebSocket en la misma transacción (outbox)
+                    WebSocketNotification notification = new WebSocketNotification(
+                        "INCIDENT_UPDATED",
+                        "Incidencia actualizada",
+                        EntityDelta.incident(before, updatedIncident)
+                    );
+                    notificationService.send(NotificationService.Audience.of(updatedIncident), notification,
+                            NotificationService.Channel.INCIDENTS);
                     
                     return ResponseEntity.ok(updatedIncident);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @Transactional
     @PatchMapping("/{id}/resolve")
     public ResponseEntity<Incident> resolveIncident(@PathVariable Long id, @RequestBody String resolutionNotes) {
         return incidentRepository.findById(id)
                 .map(incident -> {
+                    Incident.IncidentStatus previousStatus = incident.getStatus();
+                    IncidentAnalyticsService.Sample previous = IncidentAnalyticsService.Sample.of(incident);
+                    Map<String, Object> before = EntityDelta.incidentFields(incident);
                     incident.setStatus(Incident.IncidentStatus.RESOLVED);
                     incident.setResolutionNotes(resolutionNotes);
                     incident.setResolvedAt(LocalDateTime.now());
                     incident.setUpdatedAt(LocalDateTime.now());
-                    Incident resolvedIncident = incidentRepository.save(incident);
+                    Incident resolvedIncident = incidentRepository.saveAndFlush(incident); // versión nueva para el delta
+                    responseCache.invalidateAfterCommit(ResponseCacheService.Collection.INCIDENTS);
+                    changeFeedService.recordIncident(resolvedIncident.getId(), ChangeLogEntry.Operation.UPSERT);
+                    occupancyRollup.incidentChanged(roomIdOf(resolvedIncident), previousStatus, Incident.IncidentStatus.RESOLVED);
+                    incidentSearch.indexAfterCommit(resolvedIncident);
+                    incidentAnalytics.incidentChanged(id, previous, IncidentAnalyticsService.Sample.of(resolvedIncident));
                     
-                    // Broadcast WebSocket notification
-                    try {
-                        WebSocketNotification notification = new WebSocketNotification(
-                            "INCIDENT_RESOLVED",
-                            "Incidencia resuelta en Hab. " + (resolvedIncident.getRoom() != null ? resolvedIncident.getRoom().getNumber() : "N/A"),
-                            resolvedIncident.getId()
-                        );
-                        messagingTemplate.convertAndSend("/topic/incidents", notification);
-                        messagingTemplate.convertAndSend("/topic/notifications", notification);
-                    } catch (Exception wsError) {
-                        System.err.println("Error sending WebSocket notification: " + wsError.getMessage());
-                    }
+                    // Notificación WebSocket en la misma transacción (outbox)
+                    WebSocketNotification notification = new WebSocketNotification(
+                        "INCIDENT_RESOLVED",
+                        "Incidencia resuelta en Hab. " + (resolvedIncident.getRoom() != null ? resolvedIncident.getRoom().getNumber() : "N/A"),
+                        EntityDelta.incident(before, resolvedIncident)
+                    );
+                    notificationService.send(NotificationService.Audience.of(resolvedIncident), notification,
+                            NotificationService.Channel.INCIDENTS, NotificationService.Channel.NOTIFICATIONS);
                     
                     return ResponseEntity.ok(resolvedIncident);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @Transactional
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteIncident(@PathVariable Long id) {
         return incidentRepository.findById(id)
                 .map(incident -> {
                     incidentRepository.delete(incident);
+                    responseCache.invalidateAfterCommit(ResponseCacheService.Collection.INCIDENTS);
+                    changeFeedService.recordIncident(id, ChangeLogEntry.Operation.DELETE);
+                    occupancyRollup.incidentChanged(roomIdOf(incident), incident.getStatus(), null);
+                    incidentSearch.removeAfterCommit(id);
+                    incidentAnalytics.incidentChanged(id, IncidentAnalyticsService.Sample.of(incident), null);
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
+    
+    private static String cacheKey(String key, boolean includeArchived) {
+        return includeArchived ? key + ":archived" : key;
+    }
+    
+    private static List<Incident> withArchived(List<Incident> incidents, List<ArchivedIncident> archived) {
+        if (archived.isEmpty()) {
+            return incidents;
+        }
+        List<Incident> all = new ArrayList<>(incidents.size() + archived.size());
+        all.addAll(incidents);
+        archived.forEach(incident -> all.add(incident.toIncident()));
+        return all;
+    }
+    
+    private static Long roomIdOf(Incident incident) {
+        return incident.getRoom() != null ? incident.getRoom().getId() : null;
+    }
 }
@@ -0,0 +1,69 @@
+package utex.edu.mx.server.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.security.LoginService;
+import utex.edu.mx.server.security.PrincipalCache;
+import utex.edu.mx.server.service.NotificationDispatcher;
+import utex.edu.mx.server.service.NotificationOutbox;
+import utex.edu.mx.server.service.WebSocketSessionMonitor;
+
+@RestController
+@RequestMapping("/api/metrics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class MetricsController {
+    
+    private final PrincipalCache principalCache;
+    private final LoginService loginService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationOutbox notificationOutbox;
+    private final WebSocketSessionMonitor webSocketSessionMonitor;
+    
+    /**
+     * Aciertos, fallos y desalojos de la caché de usuarios del filtro JWT
+     * GET /api/metrics/principal-cache
+     */
+    @GetMapping("/principal-cache")
+    public ResponseEntity<PrincipalCache.Stats> getPrincipalCacheStats() {
+        return ResponseEntity.ok(principalCache.getStats());
+    }
+    
+    /**
+     * Pool de verificación de contraseñas, rechazos (bloqueo por usuario o saturación) y rehash de BCrypt
+     * GET /api/metrics/login
+     */
+    @GetMapping("/login")
+    public ResponseEntity<LoginService.Stats> getLoginStats() {
+        return ResponseEntity.ok(loginService.getStats());
+    }
+    
+    /**
+     * Eventos WebSocket en espera, agrupados, rechazados y tamaño de los frames publicados
+     * GET /api/metrics/notifications
+     */
+    @GetMapping("/notifications")
+    public ResponseEntity<NotificationDispatcher.Stats> getNotificationStats() {
+        return ResponseEntity.ok(notificationDispatcher.getStats());
+    }
+    
+    /**
+     * Eventos en el outbox sin publicar, reintentos, descartes y demora entre el commit y la entrega
+     * GET /api/metrics/outbox
+     */
+    @GetMapping("/outbox")
+    public ResponseEntity<NotificationOutbox.Stats> getOutboxStats() {
+        return ResponseEntity.ok(notificationOutbox.getStats());
+    }
+    
+    /**
+     * Frames en espera por sesión (las más atrasadas), frames descartados, resincronizaciones y
+     * sesiones cerradas por lentas o por exceder los límites de envío
+     * GET /api/metrics/websocket
+     */
+    @GetMapping("/websocket")
+    public ResponseEntity<WebSocketSessionMonitor.Stats> getWebSocketStats() {
+        return ResponseEntity.ok(webSocketSessionMonitor.getStats());
+    }
+}
@@ -0,0 +1,103 @@
+package utex.edu.mx.server.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import utex.edu.mx.server.service.PhotoProcessingService;
+import utex.edu.mx.server.service.PhotoStorageService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/photos")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class PhotoController {
+
+    private static final int MAX_FILES = 10;
+
+    private final PhotoStorageService photoStorage;
+    private final PhotoProcessingService photoProcessing;
+
+    /**
+     * Subir una o varias fotos (multipart, campo "files")
+     * POST /api/photos
+     * Respuesta: [ { "key": "<sha256>", "size": 12345, "contentType": "image/jpeg" }, ... ]
+     * La clave es la que se guarda en Incident.photos
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadPhotos(@RequestParam("files") List<MultipartFile> files) throws IOException {
+        if (files.isEmpty() || files.size() > MAX_FILES) {
+            return ResponseEntity.badRequest().body("Se permiten de 1 a " + MAX_FILES + " fotos por petición");
+        }
+
+        List<PhotoStorageService.StoredPhoto> stored = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            try (InputStream input = file.getInputStream()) {
+                stored.add(photoStorage.store(input));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(file.getOriginalFilename() + ": " + e.getMessage());
+            }
+        }
+        return ResponseEntity.ok(stored);
+    }
+
+    /**
+     * Descargar una foto por su clave
+     * GET /api/photos/{key}
+     * El contenido nunca cambia para una clave: ETag = clave y caché inmutable de un año.
+     * Soporta Range (206) y If-None-Match (304); el archivo se envía por stream desde disco.
+     */
+    @GetMapping("/{key}")
+    public ResponseEntity<Resource> getPhoto(@PathVariable String key) throws IOException {
+        Optional<Path> path = photoStorage.find(key);
+        if (path.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return immutable(key, path.get());
+    }
+    
+    /**
+     * Miniatura (lado mayor 320 px) o versión de tamaño limitado (1280 px), JPEG sin metadatos
+     * GET /api/photos/{key}/thumbnail
+     * GET /api/photos/{key}/display
+     * Si la variante aún no se generó responde con la original sin caché y encola su generación
+     */
+    @GetMapping("/{key}/{variant:thumbnail|display}")
+    public ResponseEntity<Resource> getPhotoVariant(@PathVariable String key, @PathVariable String variant) throws IOException {
+        Optional<Path> variantPath = photoStorage.findVariant(key, variant);
+        if (variantPath.isPresent()) {
+            return immutable(key + "-" + variant, variantPath.get());
+        }
+        
+        Optional<Path> original = photoStorage.find(key);
+        if (original.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        photoProcessing.requestVariants(key);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.parseMediaType(photoStorage.contentTypeOf(original.get())))
+                .body(new FileSystemResource(original.get()));
+    }
+    
+    private ResponseEntity<Resource> immutable(String etag, Path path) throws IOException {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .contentType(MediaType.parseMediaType(photoStorage.contentTypeOf(path)))
+                .body(new FileSystemResource(path));
+    }
+}
@@ -0,0 +1,65 @@
+package utex.edu.mx.server.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.DailyRollup;
+import utex.edu.mx.server.dto.IncidentTimeStats;
+import utex.edu.mx.server.dto.OccupancyRollup;
+import utex.edu.mx.server.service.IncidentAnalyticsService;
+import utex.edu.mx.server.service.OccupancyRollupService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/rollups")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class RollupController {
+    
+    private static final int DEFAULT_DAYS = 7;
+    
+    private final OccupancyRollupService occupancyRollup;
+    private final IncidentAnalyticsService incidentAnalytics;
+    
+    /**
+     * Conteos actuales por edificio y piso (CLEAN/DIRTY/OCCUPIED, incidencias abiertas, limpiadas hoy)
+     * GET /api/rollups/occupancy?hotelId=
+     */
+    @GetMapping("/occupancy")
+    public ResponseEntity<List<OccupancyRollup>> getOccupancy(@RequestParam(required = false) Long hotelId) {
+        return ResponseEntity.ok(occupancyRollup.getOccupancy(hotelId));
+    }
+    
+    /**
+     * Actividad diaria por piso; por defecto los últimos 7 días
+     * GET /api/rollups/daily?hotelId=&buildingId=&from=2025-01-01&to=2025-01-07
+     */
+    @GetMapping("/daily")
+    public ResponseEntity<?> getDaily(
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) Long buildingId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("from debe ser anterior o igual a to");
+        }
+        List<DailyRollup> rows = occupancyRollup.getDaily(hotelId, buildingId, start, end);
+        return ResponseEntity.ok(rows);
+    }
+    
+    /**
+     * Tiempo de resolución y antigüedad de incidencias abiertas (p50/p90/p99 en segundos)
+     * GET /api/rollups/incidents?groupBy=HOTEL|BUILDING|ROOM|REPORTER&hotelId=
+     */
+    @GetMapping("/incidents")
+    public ResponseEntity<IncidentTimeStats> getIncidentTimes(
+            @RequestParam(defaultValue = "HOTEL") IncidentAnalyticsService.Dimension groupBy,
+            @RequestParam(required = false) Long hotelId) {
+        return ResponseEntity.ok(incidentAnalytics.getStats(groupBy, hotelId));
+    }
+}
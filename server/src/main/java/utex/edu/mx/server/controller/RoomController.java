@@ -1,15 +1,32 @@
 package utex.edu.mx.server.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.CursorPage;
+import utex.edu.mx.server.dto.DistributionResult;
+import utex.edu.mx.server.dto.EntityDelta;
+import utex.edu.mx.server.dto.RoomBatchRequest;
 import utex.edu.mx.server.dto.WebSocketNotification;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.ChangeLogEntry;
 import utex.edu.mx.server.model.Room;
 import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.BuildingRepository;
 import utex.edu.mx.server.repository.RoomRepository;
 import utex.edu.mx.server.repository.UserRepository;
+import utex.edu.mx.server.service.ChangeFeedService;
+import utex.edu.mx.server.service.NotificationService;
+import utex.edu.mx.server.service.ResponseCacheService;
+import utex.edu.mx.server.service.RoomAssignmentService;
+import utex.edu.mx.server.service.RoomBatchService;
 import utex.edu.mx.server.service.RoomSchedulerService;
+import utex.edu.mx.server.service.RoomStateStore;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,105 +38,166 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
 public class RoomController {
     
+    private static final int MAX_BATCH_CHANGES = 1000;
+    
     private final RoomRepository roomRepository;
     private final UserRepository userRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final BuildingRepository buildingRepository;
+    private final NotificationService notificationService;
     private final RoomSchedulerService schedulerService;
+    private final RoomStateStore roomStateStore;
+    private final RoomBatchService roomBatchService;
+    private final ResponseCacheService responseCache;
+    private final ChangeFeedService changeFeedService;
+    private final RoomAssignmentService roomAssignmentService;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Las lecturas se sirven desde RoomStateStore (memoria); las escrituras van a la BD y luego al store.
+    // Los listados se responden con ETag desde ResponseCacheService (304 si el cliente ya tiene la versión)
     
     @GetMapping
-    public ResponseEntity<List<Room>> getAllRooms() {
-        return ResponseEntity.ok(roomRepository.findAll());
+    public ResponseEntity<byte[]> getAllRooms(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.ROOMS, "all", ifNoneMatch,
+                roomStateStore::findAll);
+    }
+    
+    /**
+     * Listado paginado por cursor con filtros combinables
+     * GET /api/rooms/page?cursor=&limit=&hotelId=&buildingId=&floor=&status=&maidId=&updatedFrom=&updatedTo=
+     */
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<Room>> getRoomsPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) Long buildingId,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) Room.RoomStatus status,
+            @RequestParam(required = false) Long maidId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedTo) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<Room> rows = roomRepository.findPage(cursor, hotelId, buildingId, floor, status, maidId,
+                updatedFrom, updatedTo, Limit.of(pageSize + 1));
+        return ResponseEntity.ok(CursorPage.of(rows, pageSize, Room::getId));
     }
     
     @GetMapping("/{id}")
     public ResponseEntity<Room> getRoomById(@PathVariable Long id) {
-        return roomRepository.findById(id)
+        return roomStateStore.findById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/building/{buildingId}")
-    public ResponseEntity<List<Room>> getRoomsByBuilding(@PathVariable Long buildingId) {
-        return ResponseEntity.ok(roomRepository.findByBuildingId(buildingId));
+    public ResponseEntity<byte[]> getRoomsByBuilding(
+            @PathVariable Long buildingId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.ROOMS, "building:" + buildingId, ifNoneMatch,
+                () -> roomStateStore.findByBuildingId(buildingId));
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Room>> getRoomsByStatus(@PathVariable Room.RoomStatus status) {
-        return ResponseEntity.ok(roomRepository.findByStatus(status));
+    public ResponseEntity<byte[]> getRoomsByStatus(
+            @PathVariable Room.RoomStatus status,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.ROOMS, "status:" + status, ifNoneMatch,
+                () -> roomStateStore.findByStatus(status));
     }
     
     @GetMapping("/maid/{maidId}")
-    public ResponseEntity<List<Room>> getRoomsByMaid(@PathVariable Long maidId) {
-        return ResponseEntity.ok(roomRepository.findByAssignedToId(maidId));
+    public ResponseEntity<byte[]> getRoomsByMaid(
+            @PathVariable Long maidId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return responseCache.respond(ResponseCacheService.Collection.ROOMS, "maid:" + maidId, ifNoneMatch,
+                () -> roomStateStore.findByAssignedToId(maidId));
     }
     
+    @Transactional
     @PostMapping
     public ResponseEntity<Room> createRoom(@RequestBody Room room) {
+        // Resolver referencias completas para que el estado en memoria no guarde solo el id
+        if (room.getBuilding() != null && room.getBuilding().getId() != null) {
+            Building building = buildingRepository.findById(room.getBuilding().getId())
+                .orElseThrow(() -> new RuntimeException("Building not found with id: " + room.getBuilding().getId()));
+            room.setBuilding(building);
+        }
+        room.setAssignedTo(resolveAssignee(room.getAssignedTo()));
+        
         room.setCreatedAt(LocalDateTime.now());
         room.setUpdatedAt(LocalDateTime.now());
-        return ResponseEntity.ok(roomRepository.save(room));
+        Room savedRoom = roomRepository.save(room);
+        roomStateStore.put(savedRoom);
+        changeFeedService.recordRoom(savedRoom.getId(), ChangeLogEntry.Operation.UPSERT);
+        return ResponseEntity.ok(savedRoom);
     }
     
+    @Transactional
     @PutMapping("/{id}")
     public ResponseEntity<Room> updateRoom(@PathVariable Long id, @RequestBody Room roomDetails) {
         return roomRepository.findById(id)
                 .map(room -> {
+                    User previousAssignee = room.getAssignedTo();
+                    Map<String, Object> before = EntityDelta.roomFields(room);
                     room.setNumber(roomDetails.getNumber());
                     room.setFloor(roomDetails.getFloor());
                     room.setStatus(roomDetails.getStatus());
-                    room.setAssignedTo(roomDetails.getAssignedTo());
+                    room.setAssignedTo(resolveAssignee(roomDetails.getAssignedTo()));
                     room.setAssignedAt(roomDetails.getAssignedAt());
                     room.setUpdatedAt(LocalDateTime.now());
-                    Room updatedRoom = roomRepository.save(room);
+                    Room updatedRoom = roomRepository.saveAndFlush(room); // versión nueva para el delta
+                    roomStateStore.put(updatedRoom);
+                    changeFeedService.recordRoom(updatedRoom.getId(), ChangeLogEntry.Operation.UPSERT);
                     
-                    // Broadcast WebSocket notification
-                    try {
-                        WebSocketNotification notification = new WebSocketNotification(
-                            "ROOM_UPDATED",
-                            "Habitación " + updatedRoom.getNumber() + " actualizada",
-                            updatedRoom.getId()
-                        );
-                        messagingTemplate.convertAndSend("/topic/rooms", notification);
-                    } catch (Exception wsError) {
-                        System.err.println("Error sending WebSocket notification: " + wsError.getMessage());
-                    }
+                    // Notificación WebSocket en la misma transacción (outbox)
+                    WebSocketNotification notification = new WebSocketNotification(
+                        "ROOM_UPDATED",
+                        "Habitación " + updatedRoom.getNumber() + " actualizada",
+                        EntityDelta.room(before, updatedRoom)
+                    );
+                    notificationService.send(NotificationService.Audience.of(updatedRoom, previousAssignee),
+                            notification, NotificationService.Channel.ROOMS);
                     
                     return ResponseEntity.ok(updatedRoom);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @Transactional
     @PatchMapping("/{id}/status")
     public ResponseEntity<Room> updateRoomStatus(@PathVariable Long id, @RequestBody Room.RoomStatus status) {
         return roomRepository.findById(id)
                 .map(room -> {
+                    Map<String, Object> before = EntityDelta.roomFields(room);
                     room.setStatus(status);
                     room.setUpdatedAt(LocalDateTime.now());
-                    Room updatedRoom = roomRepository.save(room);
+                    Room updatedRoom = roomRepository.saveAndFlush(room); // versión nueva para el delta
+                    roomStateStore.put(updatedRoom);
+                    changeFeedService.recordRoom(updatedRoom.getId(), ChangeLogEntry.Operation.UPSERT);
                     
-                    // Broadcast WebSocket notification
-                    try {
-                        WebSocketNotification notification = new WebSocketNotification(
-                            "ROOM_STATUS_CHANGED",
-                            "Habitación " + updatedRoom.getNumber() + " ahora está " + status,
-                            updatedRoom.getId()
-                        );
-                        messagingTemplate.convertAndSend("/topic/rooms", notification);
-                        messagingTemplate.convertAndSend("/topic/notifications", notification);
-                    } catch (Exception wsError) {
-                        System.err.println("Error sending WebSocket notification: " + wsError.getMessage());
-                    }
+                    // Notificación WebSocket en la misma transacción (outbox)
+                    WebSocketNotification notification = new WebSocketNotification(
+                        "ROOM_STATUS_CHANGED",
+                        "Habitación " + updatedRoom.getNumber() + " ahora está " + status,
+                        EntityDelta.room(before, updatedRoom)
+                    );
+                    notificationService.send(NotificationService.Audience.of(updatedRoom), notification,
+                            NotificationService.Channel.ROOMS, NotificationService.Channel.NOTIFICATIONS);
                     
                     return ResponseEntity.ok(updatedRoom);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @Transactional
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRoom(@PathVariable Long id) {
         return roomRepository.findById(id)
                 .map(room -> {
                     roomRepository.delete(room);
+                    roomStateStore.remove(id);
+                    changeFeedService.recordRoom(id, ChangeLogEntry.Operation.DELETE);
                     return ResponseEntity.ok().<Void>build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -129,12 +207,15 @@ public class RoomController {
      * Reasignar una habitación a otra mucama
      * PATCH /api/rooms/{id}/assign
      */
+    @Transactional
     @PatchMapping("/{id}/assign")
     public ResponseEntity<Room> reassignRoom(@PathVariable Long id, @RequestBody Map<String, Long> body) {
         Long maidId = body.get("maidId");
         
         return roomRepository.findById(id)
                 .map(room -> {
+                    User previousAssignee = room.getAssignedTo();
+                    Map<String, Object> before = EntityDelta.roomFields(room);
                     if (maidId != null) {
                         User maid = userRepository.findById(maidId)
                             .orElseThrow(() -> new RuntimeException("Mucama no encontrada"));
@@ -148,26 +229,71 @@ public class RoomController {
                     }
                     
                     room.setUpdatedAt(LocalDateTime.now());
-                    Room updatedRoom = roomRepository.save(room);
+                    Room updatedRoom = roomRepository.saveAndFlush(room); // versión nueva para el delta
+                    roomStateStore.put(updatedRoom);
+                    changeFeedService.recordRoom(updatedRoom.getId(), ChangeLogEntry.Operation.UPSERT);
                     
-                    // Notificar vía WebSocket
-                    try {
-                        WebSocketNotification notification = new WebSocketNotification(
-                            "ROOM_REASSIGNED",
-                            "Habitación " + updatedRoom.getNumber() + " reasignada",
-                            updatedRoom.getId()
-                        );
-                        messagingTemplate.convertAndSend("/topic/rooms", notification);
-                        messagingTemplate.convertAndSend("/topic/notifications", notification);
-                    } catch (Exception wsError) {
-                        System.err.println("Error sending WebSocket notification: " + wsError.getMessage());
-                    }
+                    // Notificación WebSocket en la misma transacción (outbox)
+                    WebSocketNotification notification = new WebSocketNotification(
+                        "ROOM_REASSIGNED",
+                        "Habitación " + updatedRoom.getNumber() + " reasignada",
+                        EntityDelta.room(before, updatedRoom)
+                    );
+                    // También a la mucama anterior, para que la quite de su lista
+                    notificationService.send(NotificationService.Audience.of(updatedRoom, previousAssignee),
+                            notification, NotificationService.Channel.ROOMS, NotificationService.Channel.NOTIFICATIONS);
                     
                     return ResponseEntity.ok(updatedRoom);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    /**
+     * Aplicar muchos cambios de estado/asignación en una sola transacción
+     * PATCH /api/rooms/batch
+     * Body: { "changes": [ { "roomId": 1, "status": "CLEAN", "maidId": 2, "unassign": false }, ... ] }
+     */
+    @PatchMapping("/batch")
+    public ResponseEntity<?> applyBatch(@RequestBody RoomBatchRequest request) {
+        if (request.getChanges() != null && request.getChanges().size() > MAX_BATCH_CHANGES) {
+            return ResponseEntity.badRequest().body("El lote excede el máximo de " + MAX_BATCH_CHANGES + " cambios");
+        }
+        
+        // Lote y notificación (una por hotel y por mucama) en la misma transacción; un lote inválido no notifica
+        List<Room> updatedRooms;
+        try {
+            updatedRooms = transactionTemplate.execute(status -> {
+                List<Room> rooms = roomBatchService.applyChanges(request.getChanges());
+                notificationService.sendRooms("ROOMS_BATCH_UPDATED", count -> count + " habitaciones actualizadas",
+                        rooms, NotificationService.Channel.ROOMS, NotificationService.Channel.NOTIFICATIONS);
+                return rooms;
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        
+        return ResponseEntity.ok(updatedRooms);
+    }
+    
+    /**
+     * Repartir automáticamente las habitaciones DIRTY entre las mucamas activas
+     * (mismo hotel, mismo edificio y pisos adyacentes, cantidades parejas)
+     * POST /api/rooms/distribute?hotelId=
+     */
+    @Transactional
+    @PostMapping("/distribute")
+    public ResponseEntity<DistributionResult> distributeDirtyRooms(@RequestParam(required = false) Long hotelId) {
+        DistributionResult result = roomAssignmentService.distributeDirtyRooms(hotelId);
+        
+        // Una sola notificación para todo el reparto, en la misma transacción (outbox)
+        if (result.getChangedRooms() > 0) {
+            notificationService.sendDistribution(result,
+                    NotificationService.Channel.ROOMS, NotificationService.Channel.NOTIFICATIONS);
+        }
+        
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * Ejecutar reinicio manual de habitaciones (marca limpias como sucias)
      * POST /api/rooms/reset
@@ -181,4 +307,12 @@ public class RoomController {
             "count", count
         ));
     }
+    
+    private User resolveAssignee(User assignee) {
+        if (assignee == null || assignee.getId() == null) {
+            return null;
+        }
+        return userRepository.findById(assignee.getId())
+            .orElseThrow(() -> new RuntimeException("Mucama no encontrada"));
+    }
 }
@@ -0,0 +1,90 @@
+package utex.edu.mx.server.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.EntityDelta;
+import utex.edu.mx.server.dto.SyncRequest;
+import utex.edu.mx.server.dto.WebSocketNotification;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+import utex.edu.mx.server.service.NotificationService;
+import utex.edu.mx.server.service.SyncService;
+
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"})
+public class SyncController {
+    
+    private static final int MAX_OPERATIONS = 200;
+    
+    private final SyncService syncService;
+    private final UserRepository userRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    
+    /**
+     * Aplicar la cola offline en una sola petición
+     * POST /api/sync
+     * Body: { "operations": [
+     *   { "idempotencyKey": "...", "type": "ROOM_STATUS", "roomId": 1, "status": "CLEAN" },
+     *   { "idempotencyKey": "...", "type": "INCIDENT_CREATE", "tempId": "incident_temp_...", "incident": { ... } } ] }
+     * Respuesta: { "results": [ { "idempotencyKey", "status": APPLIED|DUPLICATE|FAILED, "serverId", "tempId", ... } ] }
+     */
+    @PostMapping
+    public ResponseEntity<?> sync(@RequestBody SyncRequest request, @AuthenticationPrincipal UserDetails principal) {
+        if (request.getOperations() != null && request.getOperations().size() > MAX_OPERATIONS) {
+            return ResponseEntity.badRequest().body("El lote excede el máximo de " + MAX_OPERATIONS + " operaciones");
+        }
+        Optional<User> user = Optional.ofNullable(principal)
+                .flatMap(details -> userRepository.findByUsername(details.getUsername()));
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        // Operaciones y notificaciones en la misma transacción: si el commit falla no se notifica nada
+        SyncService.Outcome outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                SyncService.Outcome applied = syncService.apply(user.get().getId(), request.getOperations());
+                notify(applied);
+                return applied;
+            });
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            // Otra petición con las mismas claves se aplicó al mismo tiempo; al reintentar responderán DUPLICATE
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Operaciones en curso en otra petición, reintente");
+        }
+        
+        return ResponseEntity.ok(outcome.response());
+    }
+    
+    /**
+     * Mismas notificaciones que los endpoints individuales, una sola por hotel y mucama para todas las habitaciones
+     */
+    private void notify(SyncService.Outcome outcome) {
+        if (!outcome.updatedRooms().isEmpty()) {
+            notificationService.sendRooms("ROOMS_BATCH_UPDATED", count -> count + " habitaciones actualizadas",
+                    outcome.updatedRooms(), NotificationService.Channel.ROOMS, NotificationService.Channel.NOTIFICATIONS);
+        }
+        for (Incident incident : outcome.createdIncidents()) {
+            WebSocketNotification notification = new WebSocketNotification(
+                "INCIDENT_CREATED",
+                "Nueva incidencia reportada en Hab. " + incident.getRoom().getNumber(),
+                EntityDelta.incident(null, incident)
+            );
+            notificationService.send(NotificationService.Audience.of(incident), notification,
+                    NotificationService.Channel.INCIDENTS, NotificationService.Channel.NOTIFICATIONS);
+        }
+    }
+}
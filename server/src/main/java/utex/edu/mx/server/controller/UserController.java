@@ -1,12 +1,16 @@
 package utex.edu.mx.server.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import utex.edu.mx.server.dto.CursorPage;
 import utex.edu.mx.server.model.User;
 import utex.edu.mx.server.repository.UserRepository;
-import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.security.PrincipalCache;
+import utex.edu.mx.server.security.TokenRevocationService;
+import utex.edu.mx.server.service.RoomStateStore;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,8 +22,10 @@ import java.util.List;
 public class UserController {
     
     private final UserRepository userRepository;
-    private final RoomRepository roomRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RoomStateStore roomStateStore;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService tokenRevocations;
     
     /**
      * GET /api/users
@@ -30,6 +36,22 @@ public class UserController {
         return userRepository.findAll();
     }
     
+    /**
+     * GET /api/users/page?cursor=&limit=&hotelId=&role=&active=
+     * Listado paginado por cursor con filtros combinables
+     */
+    @GetMapping("/page")
+    public CursorPage<User> getUsersPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Long hotelId,
+            @RequestParam(required = false) User.Role role,
+            @RequestParam(required = false) Boolean active) {
+        int pageSize = CursorPage.clampLimit(limit);
+        List<User> rows = userRepository.findPage(cursor, hotelId, role, active, Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, User::getId);
+    }
+    
     /**
      * GET /api/users/{id}
      * Obtener usuario por ID
@@ -130,6 +152,9 @@ public class UserController {
                         return ResponseEntity.badRequest().body("Nombre no puede estar vacío");
                     }
                     
+                    // El username anterior deja de ser válido en la caché del filtro JWT
+                    String previousUsername = user.getUsername();
+                    
                     // Actualizar username solo si cambió y no existe
                     if (userDetails.getUsername() != null && !userDetails.getUsername().equals(user.getUsername())) {
                         if (userRepository.findByUsername(userDetails.getUsername()).isPresent()) {
@@ -153,15 +178,24 @@ public class UserController {
                     }
                     
                     // Solo actualizar password si se proporciona uno nuevo
+                    boolean passwordChanged = false;
                     if (userDetails.getPassword() != null && !userDetails.getPassword().trim().isEmpty()) {
                         if (userDetails.getPassword().trim().length() < 4) {
                             return ResponseEntity.badRequest().body("Password debe tener al menos 4 caracteres");
                         }
                         user.setPassword(passwordEncoder.encode(userDetails.getPassword()));
+                        passwordChanged = true;
                     }
                     
                     user.setUpdatedAt(LocalDateTime.now());
                     User updatedUser = userRepository.save(user);
+                    principalCache.invalidate(previousUsername);
+                    principalCache.invalidate(updatedUser.getUsername());
+                    if (passwordChanged) {
+                        // Cierra las sesiones abiertas con la contraseña anterior
+                        tokenRevocations.revokeUser(updatedUser.getId());
+                    }
+                    roomStateStore.refreshAssignee(updatedUser);
                     return ResponseEntity.ok(updatedUser);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -182,7 +216,7 @@ public class UserController {
                     
                     // Verificar si es mucama con habitaciones asignadas al desactivar
                     if (user.getRole() == User.Role.MAID && !active) {
-                        long assignedRooms = roomRepository.findByAssignedToId(id).size();
+                        long assignedRooms = roomStateStore.countByAssignedToId(id);
                         if (assignedRooms > 0) {
                             return ResponseEntity.badRequest()
                                 .body("No se puede desactivar una mucama con " + assignedRooms + " habitaciones asignadas. Primero desasigne las habitaciones.");
@@ -192,6 +226,11 @@ public class UserController {
                     user.setActive(active);
                     user.setUpdatedAt(LocalDateTime.now());
                     User updatedUser = userRepository.save(user);
+                    principalCache.invalidate(updatedUser.getUsername());
+                    if (!active) {
+                        // Sus access tokens dejan de valer de inmediato y no puede renovarlos
+                        tokenRevocations.revokeUser(updatedUser.getId());
+                    }
                     return ResponseEntity.ok(updatedUser);
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -212,7 +251,7 @@ public class UserController {
                     
                     // Verificar si es mucama con habitaciones asignadas
                     if (user.getRole() == User.Role.MAID) {
-                        long assignedRooms = roomRepository.findByAssignedToId(id).size();
+                        long assignedRooms = roomStateStore.countByAssignedToId(id);
                         if (assignedRooms > 0) {
                             return ResponseEntity.badRequest()
                                 .body("No se puede eliminar una mucama con " + assignedRooms + " habitaciones asignadas. Primero desasigne las habitaciones.");
@@ -221,6 +260,8 @@ public class UserController {
                     
                     // Hard delete: eliminar permanentemente
                     userRepository.delete(user);
+                    principalCache.invalidate(user.getUsername());
+                    tokenRevocations.revokeUser(user.getId());
                     return ResponseEntity.ok().build();
                 })
                 .orElse(ResponseEntity.notFound().build());
@@ -13,4 +13,7 @@ public class AuthResponse {
     private String username;
     private String name;
     private String role;
+    // Refresh token rotativo (POST /api/auth/refresh) y vigencia del access token en segundos
+    private String refreshToken;
+    private long expiresIn;
 }
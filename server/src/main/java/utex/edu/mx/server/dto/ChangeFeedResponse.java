@@ -0,0 +1,30 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+
+import java.util.List;
+
+/**
+ * Respuesta de GET /api/changes?since=<token>
+ * - rooms / incidents: estado actual de lo creado o modificado después del token
+ * - deletedRoomIds / deletedIncidentIds: eliminaciones (tombstones)
+ * - token: enviar como since en la siguiente llamada
+ * - reset: el token no es utilizable (primera sincronización o historial depurado);
+ *   el cliente debe descargar los listados completos y continuar desde el token devuelto
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeFeedResponse {
+    private Long token;
+    private boolean reset;
+    private boolean hasMore;
+    private List<Room> rooms;
+    private List<Incident> incidents;
+    private List<Long> deletedRoomIds;
+    private List<Long> deletedIncidentIds;
+}
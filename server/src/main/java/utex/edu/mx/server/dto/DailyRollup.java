@@ -0,0 +1,23 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Actividad de un piso en un día (GET /api/rollups/daily)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyRollup {
+    private LocalDate day;
+    private Long hotelId;
+    private Long buildingId;
+    private int floor;
+    private int cleaned;             // transiciones a CLEAN
+    private int incidentsOpened;
+    private int incidentsResolved;
+}
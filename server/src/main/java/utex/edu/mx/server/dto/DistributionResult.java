@@ -0,0 +1,20 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Resultado de POST /api/rooms/distribute
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DistributionResult {
+    private int dirtyRooms;          // habitaciones DIRTY consideradas
+    private int changedRooms;        // habitaciones cuya mucama cambió
+    private int roomsWithoutMaid;    // habitaciones de hoteles sin mucamas activas
+    private Map<Long, Integer> roomsByMaid;
+}
@@ -0,0 +1,95 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Estado compacto de una habitación o incidencia enviado en WebSocketNotification.data
+ * - fields: todos los campos escalares (ids en lugar de entidades), para que el cliente parchee su copia
+ *   local sin volver a pedir la entidad; al agrupar eventos basta con quedarse con el último
+ * - changed: campos que cambiaron en esta escritura (null si no se conoce el estado anterior)
+ * - version: @Version de la entidad (sube en cada escritura); el cliente ignora deltas con versión
+ *   menor o igual a la suya
+ * - schema: formato del delta; un cliente que no lo reconoce vuelve a pedir la entidad
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EntityDelta {
+
+    // 2: version es el contador @Version (en 1 era updatedAt en milisegundos)
+    public static final int SCHEMA = 2;
+
+    public enum EntityType {
+        ROOM, INCIDENT
+    }
+
+    private int schema = SCHEMA;
+    private EntityType entity;
+    private Long id;
+    private long version;
+    private List<String> changed;
+    private Map<String, Object> fields;
+
+    /**
+     * @param before roomFields() antes de modificar la habitación, o null
+     */
+    public static EntityDelta room(Map<String, Object> before, Room room) {
+        return of(EntityType.ROOM, room.getId(), room.getVersion(), before, roomFields(room));
+    }
+
+    /**
+     * @param before incidentFields() antes de modificar la incidencia, o null
+     */
+    public static EntityDelta incident(Map<String, Object> before, Incident incident) {
+        return of(EntityType.INCIDENT, incident.getId(), incident.getVersion(), before, incidentFields(incident));
+    }
+
+    public static Map<String, Object> roomFields(Room room) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("number", room.getNumber());
+        fields.put("floor", room.getFloor());
+        fields.put("status", room.getStatus());
+        fields.put("buildingId", room.getBuilding() != null ? room.getBuilding().getId() : null);
+        fields.put("assignedToId", room.getAssignedTo() != null ? room.getAssignedTo().getId() : null);
+        fields.put("assignedAt", room.getAssignedAt());
+        fields.put("updatedAt", room.getUpdatedAt());
+        return fields;
+    }
+
+    public static Map<String, Object> incidentFields(Incident incident) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("roomId", incident.getRoom() != null ? incident.getRoom().getId() : null);
+        fields.put("reportedById", incident.getReportedBy() != null ? incident.getReportedBy().getId() : null);
+        fields.put("status", incident.getStatus());
+        fields.put("description", incident.getDescription());
+        fields.put("resolutionNotes", incident.getResolutionNotes());
+        fields.put("resolvedAt", incident.getResolvedAt());
+        fields.put("createdAt", incident.getCreatedAt());
+        fields.put("updatedAt", incident.getUpdatedAt());
+        return fields;
+    }
+
+    private static EntityDelta of(EntityType entity, Long id, Long version,
+                                  Map<String, Object> before, Map<String, Object> after) {
+        List<String> changed = null;
+        if (before != null) {
+            changed = new ArrayList<>();
+            for (Map.Entry<String, Object> field : after.entrySet()) {
+                if (!"updatedAt".equals(field.getKey()) && !Objects.equals(before.get(field.getKey()), field.getValue())) {
+                    changed.add(field.getKey());
+                }
+            }
+        }
+        return new EntityDelta(SCHEMA, entity, id, version != null ? version : 0, changed, after);
+    }
+}
@@ -0,0 +1,23 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Resultado (o progreso) de una importación masiva de habitaciones
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportResult {
+    private boolean running;
+    private long linesRead;
+    private long roomsInserted;
+    private int hotelsCreated;
+    private int buildingsCreated;
+    private long elapsedMs;
+    private List<String> errors;
+}
@@ -0,0 +1,40 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Percentiles de tiempo de resolución y antigüedad de incidencias abiertas (GET /api/rollups/incidents)
+ * Todos los tiempos en segundos; los percentiles son null si el grupo no tiene muestras
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IncidentTimeStats {
+    private String groupBy;          // HOTEL, BUILDING, ROOM o REPORTER
+    private Durations resolution;    // total de todos los grupos
+    private Durations openAge;
+    private List<Group> groups;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Group {
+        private Long id;             // id del hotel, edificio, habitación o usuario que reportó
+        private Durations resolution;
+        private Durations openAge;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Durations {
+        private long count;
+        private Long p50;
+        private Long p90;
+        private Long p99;
+    }
+}
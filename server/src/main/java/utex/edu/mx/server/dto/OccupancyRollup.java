@@ -0,0 +1,36 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Conteos actuales de un edificio y de cada uno de sus pisos (GET /api/rollups/occupancy)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OccupancyRollup {
+    private Long hotelId;
+    private Long buildingId;
+    private int clean;
+    private int dirty;
+    private int occupied;
+    private int openIncidents;
+    private int cleanedToday;        // habitaciones que pasaron a CLEAN hoy
+    private List<Floor> floors;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Floor {
+        private int floor;
+        private int clean;
+        private int dirty;
+        private int occupied;
+        private int openIncidents;
+        private int cleanedToday;
+    }
+}
@@ -0,0 +1,29 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import utex.edu.mx.server.model.Room;
+
+import java.util.List;
+
+/**
+ * Lote de cambios de habitaciones para PATCH /api/rooms/batch
+ * Cada cambio puede actualizar el estado, asignar una mucama o desasignarla
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RoomBatchRequest {
+    private List<Change> changes;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Change {
+        private Long roomId;
+        private Room.RoomStatus status; // null = no cambiar estado
+        private Long maidId;            // null = no cambiar asignación
+        private boolean unassign;       // true = quitar mucama asignada
+    }
+}
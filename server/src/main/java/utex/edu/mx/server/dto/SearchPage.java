@@ -0,0 +1,36 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados de búsqueda por relevancia (paginación por número de página)
+ * total es la cantidad de coincidencias en todas las páginas
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SearchPage<T> {
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private String query;
+    private List<T> items;
+    private int page;
+    private int size;
+    private long total;
+    private boolean hasMore;
+
+    /**
+     * Ajusta el tamaño de página solicitado a los límites permitidos
+     */
+    public static int clampSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+}
@@ -0,0 +1,34 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+
+import java.util.List;
+
+/**
+ * Lote ordenado de operaciones de la cola offline para POST /api/sync
+ * - ROOM_STATUS: roomId + status
+ * - INCIDENT_CREATE: incident (mismo cuerpo que POST /api/incidents) + tempId local
+ * idempotencyKey la genera el cliente una vez por operación y la repite en cada reintento
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncRequest {
+    private List<Operation> operations;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Operation {
+        private String idempotencyKey;
+        private String type;
+        private Long roomId;
+        private Room.RoomStatus status;
+        private Incident incident;
+        private String tempId;
+    }
+}
@@ -0,0 +1,38 @@
+package utex.edu.mx.server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import utex.edu.mx.server.model.Incident;
+
+import java.util.List;
+
+/**
+ * Resultado de POST /api/sync, uno por operación y en el mismo orden
+ * - APPLIED: se aplicó en esta petición
+ * - DUPLICATE: la clave ya se había aplicado; serverId es el de la primera vez
+ * - FAILED: no se aplicó (error); el cliente puede reintentarla
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResponse {
+    private List<Result> results;
+
+    public enum Status {
+        APPLIED, DUPLICATE, FAILED
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Result {
+        private String idempotencyKey;
+        private String type;
+        private Status status;
+        private Long serverId;       // id de la habitación o de la incidencia creada
+        private String tempId;       // id local de la incidencia (INCIDENT_CREATE)
+        private Incident incident;   // incidencia del servidor para reemplazar la temporal
+        private String error;
+    }
+}
@@ -2,10 +2,12 @@ package utex.edu.mx.server.dto;
 
 /**
  * DTO para notificaciones WebSocket
- * Enviado a clientes suscritos a /topic/notifications
+ * Enviado a los tópicos de hotel y colas de usuario (NotificationService)
+ * Varios eventos agrupados llegan como type BATCH con la lista de notificaciones en data
+ * Eventos de una habitación o incidencia llevan en data un EntityDelta (estado compacto y versión)
  */
 public class WebSocketNotification {
-    private String type; // INCIDENT_CREATED, ROOM_UPDATED, USER_ASSIGNED, etc.
+    private String type; // INCIDENT_CREATED, ROOM_UPDATED, USER_ASSIGNED, BATCH, etc.
     private String message;
     private Object data;
     private Long timestamp;
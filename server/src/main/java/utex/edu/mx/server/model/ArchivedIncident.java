@@ -0,0 +1,67 @@
+package utex.edu.mx.server.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Incidencia resuelta movida al historial por IncidentArchiveService (tabla incidents_archive).
+ * Conserva el id que tenía en incidents; solo se lee.
+ */
+@Entity
+@Table(name = "incidents_archive")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedIncident {
+
+    @Id
+    private Long id;
+
+    @ManyToOne
+    @JoinColumn(name = "room_id", nullable = false)
+    @JsonIgnoreProperties({"building", "assignedTo"})
+    private Room room;
+
+    @ManyToOne
+    @JoinColumn(name = "reported_by", nullable = false)
+    @JsonIgnoreProperties({"password", "hotel"})
+    private User reportedBy;
+
+    @Column(nullable = false, length = 2000)
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Incident.IncidentStatus status;
+
+    @Column(name = "photos", columnDefinition = "TEXT")
+    private String photos;
+
+    @Column(name = "resolution_notes", length = 2000)
+    private String resolutionNotes;
+
+    @Column(name = "resolved_at")
+    private LocalDateTime resolvedAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    /**
+     * Copia no administrada con la forma de Incident, para responder igual que las incidencias activas
+     */
+    public Incident toIncident() {
+        return new Incident(id, room, reportedBy, description, status, photos, resolutionNotes,
+                resolvedAt, createdAt, updatedAt, null);
+    }
+}
@@ -1,11 +1,16 @@
 package utex.edu.mx.server.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
 
 @Entity
 @Table(name = "incidents")
@@ -14,6 +19,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Incident {
     
+    private static final Pattern PHOTO_KEY = Pattern.compile("[0-9a-f]{64}");
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -36,7 +43,7 @@ public class Incident {
     private IncidentStatus status = IncidentStatus.OPEN;
     
     @Column(name = "photos", columnDefinition = "TEXT")
-    private String photos; // JSON array of base64 images
+    private String photos; // JSON array de claves SHA-256 (PhotoStorageService, GET /api/photos/{key})
     
     @Column(name = "resolution_notes", length = 2000)
     private String resolutionNotes;
@@ -50,6 +57,31 @@ public class Incident {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    // Sube en cada escritura; versión de EntityDelta
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+    
+    /**
+     * Rutas de las miniaturas (generadas en segundo plano por PhotoProcessingService).
+     * Los listados solo necesitan estas; la foto completa se pide al abrirla.
+     */
+    public List<String> getThumbnailUrls() {
+        return getPhotoKeys().stream()
+                .map(key -> "/api/photos/" + key + "/thumbnail")
+                .toList();
+    }
+    
+    @JsonIgnore
+    public List<String> getPhotoKeys() {
+        if (photos == null) {
+            return List.of();
+        }
+        return PHOTO_KEY.matcher(photos).results()
+                .map(MatchResult::group)
+                .toList();
+    }
+    
     public enum IncidentStatus {
         OPEN, RESOLVED
     }
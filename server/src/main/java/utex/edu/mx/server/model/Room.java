@@ -1,6 +1,7 @@
 package utex.edu.mx.server.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -50,6 +51,11 @@ public class Room {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    // Sube en cada escritura (también en UPDATE masivos); versión de EntityDelta
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+    
     public enum RoomStatus {
         CLEAN, DIRTY, OCCUPIED
     }
@@ -0,0 +1,15 @@
+package utex.edu.mx.server.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import utex.edu.mx.server.model.ArchivedIncident;
+import utex.edu.mx.server.model.Incident;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedIncidentRepository extends JpaRepository<ArchivedIncident, Long> {
+    List<ArchivedIncident> findByRoomId(Long roomId);
+    List<ArchivedIncident> findByReportedById(Long userId);
+    List<ArchivedIncident> findByStatus(Incident.IncidentStatus status);
+}
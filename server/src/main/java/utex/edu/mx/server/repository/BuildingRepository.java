@@ -1,11 +1,17 @@
 package utex.edu.mx.server.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import utex.edu.mx.server.model.Building;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BuildingRepository extends JpaRepository<Building, Long> {
     List<Building> findByHotelId(Long hotelId);
+    Optional<Building> findByHotelIdAndName(Long hotelId, String name);
+
+    @Query("SELECT b FROM Building b JOIN FETCH b.hotel")
+    List<Building> findAllWithHotel();
 }
@@ -0,0 +1,25 @@
+package utex.edu.mx.server.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import utex.edu.mx.server.model.ChangeLogEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+    List<ChangeLogEntry> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    Optional<ChangeLogEntry> findTopByOrderByIdDesc();
+    Optional<ChangeLogEntry> findTopByOrderByIdAsc();
+    Optional<ChangeLogEntry> findTopByChangedAtBeforeOrderByIdDesc(LocalDateTime changedAt);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry c WHERE c.changedAt < :cutoff AND c.id < :keepId")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("keepId") Long keepId);
+}
@@ -3,7 +3,9 @@ package utex.edu.mx.server.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import utex.edu.mx.server.model.Hotel;
+import java.util.Optional;
 
 @Repository
 public interface HotelRepository extends JpaRepository<Hotel, Long> {
+    Optional<Hotel> findByName(String name);
 }
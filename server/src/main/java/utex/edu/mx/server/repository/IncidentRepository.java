@@ -1,8 +1,13 @@
 package utex.edu.mx.server.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import utex.edu.mx.server.model.Incident;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -10,4 +15,46 @@ public interface IncidentRepository extends JpaRepository<Incident, Long> {
     List<Incident> findByRoomId(Long roomId);
     List<Incident> findByReportedById(Long userId);
     List<Incident> findByStatus(Incident.IncidentStatus status);
+
+    /**
+     * Cantidad de incidencias por habitación en un estado (carga inicial de OccupancyRollupService)
+     */
+    @Query("SELECT i.room.id AS roomId, COUNT(i) AS total FROM Incident i WHERE i.status = :status GROUP BY i.room.id")
+    List<RoomCount> countByStatusGroupByRoom(@Param("status") Incident.IncidentStatus status);
+
+    interface RoomCount {
+        Long getRoomId();
+        Long getTotal();
+    }
+
+    /**
+     * Página de incidencias por cursor (id descendente, las más recientes primero)
+     * con filtros opcionales combinables
+     */
+    @Query("""
+            SELECT i FROM Incident i
+            JOIN FETCH i.room r
+            JOIN FETCH r.building b
+            JOIN FETCH i.reportedBy u
+            WHERE (:cursor IS NULL OR i.id < :cursor)
+              AND (:hotelId IS NULL OR b.hotel.id = :hotelId)
+              AND (:buildingId IS NULL OR b.id = :buildingId)
+              AND (:floor IS NULL OR r.floor = :floor)
+              AND (:roomId IS NULL OR r.id = :roomId)
+              AND (:status IS NULL OR i.status = :status)
+              AND (:reportedById IS NULL OR u.id = :reportedById)
+              AND (:createdFrom IS NULL OR i.createdAt >= :createdFrom)
+              AND (:createdTo IS NULL OR i.createdAt < :createdTo)
+            ORDER BY i.id DESC
+            """)
+    List<Incident> findPage(@Param("cursor") Long cursor,
+                            @Param("hotelId") Long hotelId,
+                            @Param("buildingId") Long buildingId,
+                            @Param("floor") Integer floor,
+                            @Param("roomId") Long roomId,
+                            @Param("status") Incident.IncidentStatus status,
+                            @Param("reportedById") Long reportedById,
+                            @Param("createdFrom") LocalDateTime createdFrom,
+                            @Param("createdTo") LocalDateTime createdTo,
+                            Limit limit);
 }
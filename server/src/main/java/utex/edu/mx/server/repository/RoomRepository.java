@@ -1,8 +1,15 @@
 package utex.edu.mx.server.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import utex.edu.mx.server.model.Room;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -10,4 +17,64 @@ public interface RoomRepository extends JpaRepository<Room, Long> {
     List<Room> findByBuildingId(Long buildingId);
     List<Room> findByStatus(Room.RoomStatus status);
     List<Room> findByAssignedToId(Long maidId);
+
+    /**
+     * Todas las habitaciones con edificio, hotel y mucama en una sola consulta (carga inicial del estado en memoria)
+     */
+    @Query("""
+            SELECT r FROM Room r
+            JOIN FETCH r.building b
+            JOIN FETCH b.hotel
+            LEFT JOIN FETCH r.assignedTo
+            """)
+    List<Room> findAllWithAssociations();
+
+    @Query("""
+            SELECT r FROM Room r
+            JOIN FETCH r.building
+            LEFT JOIN FETCH r.assignedTo
+            WHERE r.id IN :ids
+            """)
+    List<Room> findAllByIdWithAssociations(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Página de habitaciones por cursor (id ascendente) con filtros opcionales combinables
+     */
+    @Query("""
+            SELECT r FROM Room r
+            JOIN FETCH r.building b
+            LEFT JOIN FETCH r.assignedTo m
+            WHERE (:cursor IS NULL OR r.id > :cursor)
+              AND (:hotelId IS NULL OR b.hotel.id = :hotelId)
+              AND (:buildingId IS NULL OR b.id = :buildingId)
+              AND (:floor IS NULL OR r.floor = :floor)
+              AND (:status IS NULL OR r.status = :status)
+              AND (:maidId IS NULL OR m.id = :maidId)
+              AND (:updatedFrom IS NULL OR r.updatedAt >= :updatedFrom)
+              AND (:updatedTo IS NULL OR r.updatedAt < :updatedTo)
+            ORDER BY r.id ASC
+            """)
+    List<Room> findPage(@Param("cursor") Long cursor,
+                        @Param("hotelId") Long hotelId,
+                        @Param("buildingId") Long buildingId,
+                        @Param("floor") Integer floor,
+                        @Param("status") Room.RoomStatus status,
+                        @Param("maidId") Long maidId,
+                        @Param("updatedFrom") LocalDateTime updatedFrom,
+                        @Param("updatedTo") LocalDateTime updatedTo,
+                        Limit limit);
+
+    /**
+     * Cambio de estado masivo (una sola sentencia UPDATE) acotado a un edificio
+     * Retorna el número de habitaciones actualizadas
+     */
+    @Modifying
+    @Query("""
+            UPDATE Room r SET r.status = :newStatus, r.updatedAt = :updatedAt, r.version = r.version + 1
+            WHERE r.status = :currentStatus AND r.building.id = :buildingId
+            """)
+    int bulkUpdateStatusByBuilding(@Param("buildingId") Long buildingId,
+                                   @Param("currentStatus") Room.RoomStatus currentStatus,
+                                   @Param("newStatus") Room.RoomStatus newStatus,
+                                   @Param("updatedAt") LocalDateTime updatedAt);
 }
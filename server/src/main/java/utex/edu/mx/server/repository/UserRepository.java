@@ -1,6 +1,9 @@
 package utex.edu.mx.server.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import utex.edu.mx.server.model.User;
 import java.util.Optional;
@@ -12,5 +15,24 @@ public interface UserRepository extends JpaRepository<User, Long> {
     List<User> findByRole(User.Role role);
     List<User> findByHotelId(Long hotelId);
     List<User> findByActive(Boolean active);
+    List<User> findByRoleAndActive(User.Role role, Boolean active);
     Boolean existsByUsername(String username);
+
+    /**
+     * Página de usuarios por cursor (id ascendente) con filtros opcionales combinables
+     */
+    @Query("""
+            SELECT u FROM User u
+            LEFT JOIN FETCH u.hotel h
+            WHERE (:cursor IS NULL OR u.id > :cursor)
+              AND (:hotelId IS NULL OR h.id = :hotelId)
+              AND (:role IS NULL OR u.role = :role)
+              AND (:active IS NULL OR u.active = :active)
+            ORDER BY u.id ASC
+            """)
+    List<User> findPage(@Param("cursor") Long cursor,
+                        @Param("hotelId") Long hotelId,
+                        @Param("role") User.Role role,
+                        @Param("active") Boolean active,
+                        Limit limit);
 }
@@ -9,66 +9,109 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Emisión y verificación de JWT
+ * - La clave HMAC y el parser (inmutable, seguro entre hilos) se crean una sola vez
+ * - verify() parsea y verifica la firma y la expiración una vez por petición y devuelve los claims
+ * - Cada token lleva un jti único para poder revocarlo (TokenRevocationService); la revocación se revisa aparte
+ * - Los tokens ya verificados se guardan por su SHA-256 hasta que expiran (jwt.verified-cache.max-size, 0 lo desactiva);
+ *   el mapa es concurrente, sin lock global. Al llenarse se purgan los expirados y, si sigue lleno,
+ *   el token se verifica sin guardarse
+ */
 @Service
 public class JwtService {
-    
-    @Value("${jwt.secret}")
-    private String secret;
-    
-    @Value("${jwt.expiration}")
-    private Long expiration;
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
-    }
-    
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+
+    // Claims que AuthController agrega a los access tokens
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "userId";
+    public static final String HOTEL_ID_CLAIM = "hotelId";
+    public static final String EPOCH_CLAIM = "epoch";
+
+    private final Long expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+
+    private final int verifiedCacheSize;
+    private final Map<String, Claims> verified = new ConcurrentHashMap<>();
+
+    public JwtService(@Value("${jwt.secret}") String secret,
+                      @Value("${jwt.expiration}") Long expiration,
+                      @Value("${jwt.verified-cache.max-size:10000}") int verifiedCacheSize) {
+        this.expiration = expiration;
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifiedCacheSize = verifiedCacheSize;
     }
-    
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+
+    /**
+     * Verifica firma y expiración del token
+     * @return los claims del token
+     * @throws JwtException si el token no es válido o ya expiró
+     */
+    public Claims verify(String token) {
+        if (verifiedCacheSize <= 0) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+
+        String digest = TokenDigests.sha256Hex(token);
+        Claims cached = verified.get(digest);
+        if (cached != null) {
+            if (cached.getExpiration().after(new Date())) {
+                return cached;
+            }
+            verified.remove(digest, cached);
+        }
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getExpiration() != null) {
+            if (verified.size() >= verifiedCacheSize) {
+                purgeExpired();
+            }
+            if (verified.size() < verifiedCacheSize) {
+                verified.put(digest, claims);
+            }
+        }
+        return claims;
     }
-    
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+
+    private void purgeExpired() {
+        Date now = new Date();
+        verified.values().removeIf(claims -> !claims.getExpiration().after(now));
     }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+
+    /**
+     * Tokens verificados en caché
+     */
+    int verifiedCacheSize() {
+        return verified.size();
     }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+
+    /**
+     * Vigencia de los access tokens en segundos (jwt.expiration)
+     */
+    public long getExpirationSeconds() {
+        return expiration / 1000;
     }
-    
+
     public String generateToken(UserDetails userDetails, Map<String, Object> extraClaims) {
         return createToken(extraClaims, userDetails.getUsername());
     }
-    
+
     public String generateToken(UserDetails userDetails) {
         return generateToken(userDetails, new HashMap<>());
     }
-    
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
-    
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
 }
@@ -0,0 +1,18 @@
+package utex.edu.mx.server.security;
+
+import lombok.Getter;
+
+/**
+ * El login no se procesó (usuario con demasiados intentos o verificación de contraseñas saturada);
+ * AuthController responde 429 con Retry-After
+ */
+@Getter
+public class LoginRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,297 @@
+package utex.edu.mx.server.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verificación de contraseñas del login fuera de los hilos de Tomcat
+ * - BCrypt corre en un pool acotado (security.login.hashing-threads / hashing-queue); con la cola llena
+ *   o si la verificación tarda más de security.login.hashing-timeout-ms se rechaza de inmediato (429)
+ * - Por usuario: un login a la vez y, tras security.login.max-failures fallos, bloqueo hasta que termine
+ *   la ventana (security.login.failure-window-seconds); esos intentos se rechazan sin calcular ningún hash
+ * - Se siguen a lo más security.login.max-tracked-users usernames: al llegar al límite se descartan los
+ *   inactivos y, si no alcanza, el de ventana más antigua
+ * - Costo BCrypt fijo por configuración (security.bcrypt.strength); si el hash guardado tiene otro costo se
+ *   recalcula en segundo plano tras un login correcto. El tiempo de un hash se mide al iniciar solo para
+ *   el log y /api/metrics (no elige el costo); se advierte si supera hashing-timeout-ms
+ * Un usuario inexistente también paga un hash para no revelar qué usernames existen.
+ */
+@Service
+@Slf4j
+public class LoginService {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JdbcTemplate jdbcTemplate;
+    private final int targetCost;
+    private final int maxFailures;
+    private final long failureWindowMillis;
+    private final long hashTimeoutMillis;
+    private final int maxTrackedUsers;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+
+    private final String dummyHash;
+    private final long measuredHashMillis;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong saturated = new AtomicLong();
+    private final AtomicLong rehashed = new AtomicLong();
+
+    public record Stats(int bcryptCost, long measuredHashMillis, int threads, int activeThreads, int queued,
+                        int trackedUsers, long succeeded, long failed, long throttled, long saturated, long rehashed) {
+    }
+
+    /**
+     * Intentos de un username; se protege con su propio monitor
+     */
+    private static final class Attempts {
+        boolean inFlight;
+        int failures;
+        long windowStart;
+
+        /**
+         * @return 0 si el intento puede continuar, o los segundos que faltan para poder reintentar
+         */
+        synchronized long tryAcquire(long now, int maxFailures, long windowMillis) {
+            if (now - windowStart >= windowMillis) {
+                failures = 0;
+                windowStart = now;
+            }
+            if (inFlight) {
+                return 1;
+            }
+            if (failures >= maxFailures) {
+                return Math.max(1, (windowStart + windowMillis - now + 999) / 1000);
+            }
+            inFlight = true;
+            return 0;
+        }
+
+        /**
+         * @param verified false si no se llegó a comparar la contraseña (saturación): no cuenta como fallo
+         */
+        synchronized void release(boolean verified, boolean success) {
+            inFlight = false;
+            if (!verified) {
+                return;
+            }
+            if (success) {
+                failures = 0;
+            } else {
+                failures++;
+            }
+        }
+
+        synchronized boolean isIdle(long now, long windowMillis) {
+            return !inFlight && now - windowStart >= windowMillis;
+        }
+
+        /**
+         * @return inicio de la ventana, o Long.MAX_VALUE si hay un login en curso (no se desaloja)
+         */
+        synchronized long evictionOrder() {
+            return inFlight ? Long.MAX_VALUE : windowStart;
+        }
+    }
+
+    public LoginService(UserRepository userRepository,
+                        PasswordEncoder passwordEncoder,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${security.bcrypt.strength:10}") int targetCost,
+                        @Value("${security.login.hashing-threads:0}") int threads,
+                        @Value("${security.login.hashing-queue:64}") int queueCapacity,
+                        @Value("${security.login.hashing-timeout-ms:5000}") long hashTimeoutMillis,
+                        @Value("${security.login.max-failures:5}") int maxFailures,
+                        @Value("${security.login.failure-window-seconds:300}") long failureWindowSeconds,
+                        @Value("${security.login.max-tracked-users:10000}") int maxTrackedUsers) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcTemplate = jdbcTemplate;
+        this.targetCost = targetCost;
+        this.maxFailures = maxFailures;
+        this.failureWindowMillis = failureWindowSeconds * 1000;
+        this.hashTimeoutMillis = hashTimeoutMillis;
+        this.maxTrackedUsers = maxTrackedUsers;
+
+        // Por defecto la mitad de los núcleos: el resto queda para las demás peticiones
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        long start = System.nanoTime();
+        this.dummyHash = passwordEncoder.encode("usuario-inexistente");
+        this.measuredHashMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("BCrypt costo {}: {} ms por hash, {} hilos de verificación, cola de {}",
+                targetCost, measuredHashMillis, poolSize, queueCapacity);
+        if (measuredHashMillis >= hashTimeoutMillis) {
+            log.warn("Un hash BCrypt con costo {} tarda {} ms, más que security.login.hashing-timeout-ms ({} ms): "
+                    + "baja security.bcrypt.strength o sube el timeout", targetCost, measuredHashMillis, hashTimeoutMillis);
+        }
+    }
+
+    /**
+     * Verifica usuario y contraseña
+     * @return el usuario autenticado
+     * @throws BadCredentialsException si no existe, está inactivo o la contraseña no coincide
+     * @throws LoginRejectedException si el usuario está bloqueado o el pool de verificación está saturado
+     */
+    public User authenticate(String username, String password) {
+        if (username == null || password == null) {
+            throw new BadCredentialsException("Credenciales inválidas");
+        }
+
+        Attempts userAttempts = attemptsOf(username);
+        long retryAfter = userAttempts.tryAcquire(System.currentTimeMillis(), maxFailures, failureWindowMillis);
+        if (retryAfter > 0) {
+            throttled.incrementAndGet();
+            throw new LoginRejectedException("Demasiados intentos de login para " + username, retryAfter);
+        }
+
+        boolean success = false;
+        boolean verified = false;
+        try {
+            Optional<User> user = userRepository.findByUsername(username);
+            String hash = user.map(User::getPassword).orElse(dummyHash);
+            boolean matches = matches(password, hash);
+            verified = true;
+            if (!matches || user.isEmpty() || Boolean.FALSE.equals(user.get().getActive())) {
+                failed.incrementAndGet();
+                throw new BadCredentialsException("Credenciales inválidas");
+            }
+
+            success = true;
+            succeeded.incrementAndGet();
+            if (needsRehash(hash)) {
+                rehash(user.get().getId(), password, hash);
+            }
+            return user.get();
+        } finally {
+            userAttempts.release(verified, success);
+        }
+    }
+
+    /**
+     * Contador del username; con el mapa lleno descarta los inactivos y, si no alcanza, el más antiguo.
+     * El límite es aproximado: dos usernames nuevos simultáneos pueden pasarlo por uno.
+     */
+    private Attempts attemptsOf(String username) {
+        Attempts existing = attempts.get(username);
+        if (existing != null) {
+            return existing;
+        }
+        if (attempts.size() >= maxTrackedUsers) {
+            pruneAttempts();
+            while (attempts.size() >= maxTrackedUsers && evictOldest()) {
+                // Desaloja hasta dejar lugar
+            }
+        }
+        return attempts.computeIfAbsent(username, key -> new Attempts());
+    }
+
+    private boolean evictOldest() {
+        Map.Entry<String, Attempts> oldest = null;
+        long oldestOrder = Long.MAX_VALUE;
+        for (Map.Entry<String, Attempts> entry : attempts.entrySet()) {
+            long order = entry.getValue().evictionOrder();
+            if (order < oldestOrder) {
+                oldest = entry;
+                oldestOrder = order;
+            }
+        }
+        return oldest != null && attempts.remove(oldest.getKey(), oldest.getValue());
+    }
+
+    private boolean matches(String password, String hash) {
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> passwordEncoder.matches(password, hash));
+        } catch (RejectedExecutionException e) {
+            saturated.incrementAndGet();
+            throw new LoginRejectedException("Verificación de contraseñas saturada", 1);
+        }
+        try {
+            return result.get(hashTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            saturated.incrementAndGet();
+            throw new LoginRejectedException("Verificación de contraseñas saturada", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginRejectedException("Login interrumpido", 1);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error verificando la contraseña", e.getCause());
+        }
+    }
+
+    boolean needsRehash(String hash) {
+        Matcher matcher = BCRYPT_COST.matcher(hash);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != targetCost;
+    }
+
+    /**
+     * Guarda el hash con el costo actual sin bloquear el login; si la cola está llena se intentará en otro login.
+     * Solo reemplaza el hash que se verificó (un cambio de contraseña simultáneo gana).
+     */
+    private void rehash(Long userId, String password, String previousHash) {
+        try {
+            executor.execute(() -> {
+                int updated = jdbcTemplate.update("UPDATE users SET password = ? WHERE id = ? AND password = ?",
+                        passwordEncoder.encode(password), userId, previousHash);
+                if (updated > 0) {
+                    rehashed.incrementAndGet();
+                    log.info("Contraseña del usuario {} actualizada a BCrypt costo {}", userId, targetCost);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Cola de verificación llena; se omite el rehash del usuario {}", userId);
+        }
+    }
+
+    /**
+     * Descarta los contadores de usernames sin intentos en la ventana actual
+     */
+    @Scheduled(fixedDelayString = "${security.login.cleanup-ms:60000}")
+    public void pruneAttempts() {
+        long now = System.currentTimeMillis();
+        attempts.entrySet().removeIf(entry -> entry.getValue().isIdle(now, failureWindowMillis));
+    }
+
+    public Stats getStats() {
+        return new Stats(targetCost, measuredHashMillis, executor.getMaximumPoolSize(), executor.getActiveCount(),
+                executor.getQueue().size(), attempts.size(), succeeded.get(), failed.get(), throttled.get(), saturated.get(),
+                rehashed.get());
+    }
+}
@@ -0,0 +1,111 @@
+package utex.edu.mx.server.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de UserDetails para JwtAuthenticationFilter (evita un SELECT a users por petición)
+ * - Tamaño máximo con desalojo LRU y expiración por TTL desde que se cargó la entrada
+ * - UserController la invalida al actualizar, activar/desactivar o eliminar un usuario
+ * - Una carga que empezó antes de una invalidación no se guarda (no revive datos viejos)
+ * Contadores de aciertos, fallos y desalojos en GET /api/metrics/principal-cache.
+ */
+@Component
+public class PrincipalCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+
+    private final Map<String, Entry> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private record Entry(UserDetails userDetails, long expiresAt) {
+    }
+
+    public record Stats(int size, int maxSize, long ttlSeconds, long hits, long misses, long evictions, double hitRatio) {
+    }
+
+    public PrincipalCache(@Value("${security.principal-cache.max-size:10000}") int maxSize,
+                          @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PrincipalCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve el usuario en caché o lo carga con loader (la carga ocurre fuera del lock)
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(username);
+            if (entry != null) {
+                if (entry.expiresAt() > now) {
+                    hits.incrementAndGet();
+                    return entry.userDetails();
+                }
+                entries.remove(username);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+
+        long generation = invalidations.get();
+        UserDetails loaded = loader.apply(username);
+        if (maxSize > 0 && ttlMillis > 0) {
+            synchronized (entries) {
+                if (invalidations.get() == generation) {
+                    entries.put(username, new Entry(loaded, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(username);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        return new Stats(size, maxSize, ttlMillis / 1000, hitCount, missCount, evictions.get(),
+                lookups == 0 ? 0.0 : (double) hitCount / lookups);
+    }
+}
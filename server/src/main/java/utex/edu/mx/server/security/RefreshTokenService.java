@@ -0,0 +1,152 @@
+package utex.edu.mx.server.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refresh tokens opacos y rotativos
+ * - Se entregan una sola vez; en refresh_tokens solo queda su SHA-256
+ * - Cada uso revoca el token presentado y emite uno nuevo
+ * - Presentar uno ya revocado (posible robo) revoca toda la sesión del usuario (TokenRevocationService.revokeUser)
+ * - Excepción: dentro de jwt.refresh-reuse-grace-ms después de rotarlo se devuelve el mismo sucesor
+ *   (dos pestañas que comparten localStorage y renuevan a la vez); solo este servidor conoce el sucesor,
+ *   así que sin él el reuso dentro de la ventana se rechaza sin revocar la sesión
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final TokenRevocationService tokenRevocations;
+    private final long expirationMillis;
+    private final long reuseGraceMillis;
+    private final SecureRandom random = new SecureRandom();
+    // SHA-256 del token rotado -> sucesor entregado, mientras dura la ventana de gracia
+    private final Map<String, Successor> recentRotations = new ConcurrentHashMap<>();
+
+    private record StoredToken(Long id, Long userId, LocalDateTime expiresAt, LocalDateTime revokedAt) {
+    }
+
+    private record Successor(Long userId, String refreshToken, LocalDateTime graceUntil) {
+    }
+
+    public record Rotation(User user, String refreshToken) {
+    }
+
+    public RefreshTokenService(JdbcTemplate jdbcTemplate,
+                               UserRepository userRepository,
+                               TokenRevocationService tokenRevocations,
+                               @Value("${jwt.refresh-expiration:1209600000}") long expirationMillis,
+                               @Value("${jwt.refresh-reuse-grace-ms:10000}") long reuseGraceMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.tokenRevocations = tokenRevocations;
+        this.expirationMillis = expirationMillis;
+        this.reuseGraceMillis = reuseGraceMillis;
+    }
+
+    /**
+     * Emite un refresh token nuevo para el usuario
+     */
+    public String issue(Long userId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("INSERT INTO refresh_tokens (user_id, token_hash, expires_at, created_at) VALUES (?, ?, ?, ?)",
+                userId, TokenDigests.sha256Hex(token), Timestamp.valueOf(now.plusNanos(expirationMillis * 1_000_000)),
+                Timestamp.valueOf(now));
+        return token;
+    }
+
+    /**
+     * Cambia un refresh token válido por uno nuevo
+     * @throws BadCredentialsException si no existe, expiró, fue revocado o el usuario está inactivo
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String token) {
+        String hash = TokenDigests.sha256Hex(token);
+        StoredToken stored = find(hash);
+        if (stored == null) {
+            throw new BadCredentialsException("Refresh token inválido");
+        }
+        if (stored.revokedAt() != null) {
+            return reuse(hash, stored);
+        }
+        if (stored.expiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadCredentialsException("Refresh token expirado");
+        }
+
+        // La condición sobre revoked_at evita que dos usos simultáneos del mismo token roten ambos;
+        // el que pierde espera el bloqueo de la fila y recibe el sucesor del que ganó
+        LocalDateTime now = LocalDateTime.now();
+        int revoked = jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = ? WHERE id = ? AND revoked_at IS NULL",
+                Timestamp.valueOf(now), stored.id());
+        if (revoked == 0) {
+            return reuse(hash, new StoredToken(stored.id(), stored.userId(), stored.expiresAt(), now));
+        }
+
+        User user = activeUser(stored.userId());
+        String successor = issue(user.getId());
+        recentRotations.values().removeIf(rotation -> rotation.graceUntil().isBefore(now));
+        recentRotations.put(hash, new Successor(user.getId(), successor,
+                now.plusNanos(reuseGraceMillis * 1_000_000)));
+        return new Rotation(user, successor);
+    }
+
+    /**
+     * Token ya revocado: dentro de la ventana de gracia es una renovación simultánea; fuera de ella, posible robo
+     */
+    private Rotation reuse(String hash, StoredToken stored) {
+        LocalDateTime now = LocalDateTime.now();
+        Successor successor = recentRotations.get(hash);
+        if (successor != null && successor.graceUntil().isAfter(now)) {
+            return new Rotation(activeUser(successor.userId()), successor.refreshToken());
+        }
+        if (stored.revokedAt().isAfter(now.minusNanos(reuseGraceMillis * 1_000_000))) {
+            throw new BadCredentialsException("Refresh token revocado");
+        }
+        log.warn("Refresh token reutilizado para el usuario {}; se revoca la sesión completa", stored.userId());
+        tokenRevocations.revokeUser(stored.userId());
+        throw new BadCredentialsException("Refresh token revocado");
+    }
+
+    private User activeUser(Long userId) {
+        return userRepository.findById(userId)
+                .filter(candidate -> !Boolean.FALSE.equals(candidate.getActive()))
+                .orElseThrow(() -> new BadCredentialsException("Usuario inactivo"));
+    }
+
+    /**
+     * Revoca el refresh token (logout); un token desconocido se ignora
+     */
+    public void revoke(String token) {
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = ? WHERE token_hash = ? AND revoked_at IS NULL",
+                Timestamp.valueOf(LocalDateTime.now()), TokenDigests.sha256Hex(token));
+    }
+
+    private StoredToken find(String hash) {
+        List<StoredToken> rows = jdbcTemplate.query(
+                "SELECT id, user_id, expires_at, revoked_at FROM refresh_tokens WHERE token_hash = ?",
+                (rs, rowNum) -> new StoredToken(rs.getLong("id"), rs.getLong("user_id"),
+                        rs.getTimestamp("expires_at").toLocalDateTime(),
+                        rs.getTimestamp("revoked_at") != null ? rs.getTimestamp("revoked_at").toLocalDateTime() : null),
+                hash);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+}
@@ -0,0 +1,115 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.security.Principal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Autenticación y autorización de las sesiones STOMP
+ * - CONNECT debe traer "Authorization: Bearer <jwt>"; se verifica igual que en JwtAuthenticationFilter
+ *   (firma, expiración y revocación) y la sesión queda con un StompPrincipal registrado en StompSessionRegistry
+ * - SUBSCRIBE y SEND se rechazan si el token de la sesión ya expiró o fue revocado
+ * - SUBSCRIBE: /user/queue/** para cualquier usuario autenticado; /topic/hotels/{id}/** solo para
+ *   recepción del mismo hotel o administradores. Las mucamas reciben únicamente su cola de usuario.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final Pattern HOTEL_TOPIC = Pattern.compile("^/topic/hotels/(\\d+)/[a-z]+$");
+
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocations;
+    private final UserRepository userRepository;
+    private final StompSessionRegistry sessionRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            StompPrincipal principal = authenticate(accessor.getFirstNativeHeader("Authorization"));
+            accessor.setUser(principal);
+            sessionRegistry.register(accessor.getSessionId(), principal);
+        } else if (accessor.getCommand() == StompCommand.DISCONNECT) {
+            sessionRegistry.unregister(accessor.getSessionId());
+        } else if (accessor.getCommand() == StompCommand.SUBSCRIBE) {
+            authorizeSubscription(authenticated(accessor.getUser()), accessor.getDestination());
+        } else if (accessor.getCommand() == StompCommand.SEND) {
+            authenticated(accessor.getUser());
+        }
+        return message;
+    }
+
+    private StompPrincipal authenticated(Principal user) {
+        if (!(user instanceof StompPrincipal principal)) {
+            throw new AccessDeniedException("Sesión STOMP sin autenticar");
+        }
+        if (!sessionRegistry.isValid(principal)) {
+            throw new AccessDeniedException("Token expirado o revocado");
+        }
+        return principal;
+    }
+
+    private StompPrincipal authenticate(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new AccessDeniedException("CONNECT sin token");
+        }
+        Claims claims;
+        try {
+            claims = jwtService.verify(authorization.substring(7));
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new AccessDeniedException("Token inválido o expirado");
+        }
+        if (tokenRevocations.isRevoked(claims)) {
+            throw new AccessDeniedException("Token revocado");
+        }
+
+        Number userId = claims.get(JwtService.USER_ID_CLAIM, Number.class);
+        Number hotelId = claims.get(JwtService.HOTEL_ID_CLAIM, Number.class);
+        String role = claims.get(JwtService.ROLE_CLAIM, String.class);
+        if (userId == null || role == null) {
+            throw new AccessDeniedException("Token sin los claims de usuario");
+        }
+        if (hotelId == null) {
+            // Tokens emitidos antes de incluir el hotel
+            User user = userRepository.findById(userId.longValue())
+                    .orElseThrow(() -> new AccessDeniedException("Usuario no encontrado"));
+            hotelId = user.getHotel() != null ? user.getHotel().getId() : null;
+        }
+        return new StompPrincipal(claims.getSubject(), userId.longValue(),
+                hotelId != null ? hotelId.longValue() : null, User.Role.valueOf(role), claims);
+    }
+
+    private static void authorizeSubscription(StompPrincipal principal, String destination) {
+        if (destination == null) {
+            throw new AccessDeniedException("SUBSCRIBE sin destino");
+        }
+        if (destination.startsWith("/user/queue/")) {
+            return;
+        }
+        Matcher hotelTopic = HOTEL_TOPIC.matcher(destination);
+        if (hotelTopic.matches() && principal.role() != User.Role.MAID
+                && (principal.role() == User.Role.ADMIN || Long.valueOf(hotelTopic.group(1)).equals(principal.hotelId()))) {
+            return;
+        }
+        throw new AccessDeniedException("Sin permiso para suscribirse a " + destination);
+    }
+}
@@ -0,0 +1,25 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import utex.edu.mx.server.model.User;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Usuario de una sesión STOMP, tomado de los claims del JWT presentado en CONNECT
+ * getName() es el username: destino de convertAndSendToUser (/user/queue/...)
+ * Conserva los claims para revisar expiración y revocación durante la sesión (StompSessionRegistry)
+ */
+public record StompPrincipal(String username, Long userId, Long hotelId, User.Role role, Claims claims)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public Instant expiresAt() {
+        return claims.getExpiration().toInstant();
+    }
+}
@@ -0,0 +1,100 @@
+package utex.edu.mx.server.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import utex.edu.mx.server.service.WebSocketSessionMonitor;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Sesiones STOMP autenticadas y el token con que se abrieron
+ * - El JWT solo se presenta en CONNECT: aquí se recuerda para volver a validarlo durante la sesión
+ * - revokeUser (desactivar, eliminar, cambiar contraseña, reuso de refresh token) cierra en el acto
+ *   las sesiones del usuario; una pasada periódica cierra las de tokens expirados o revocados
+ *   (también lo revocado por otras instancias, que llega con TokenRevocationService.reload)
+ * El cliente reconecta con un token renovado.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompSessionRegistry {
+
+    static final CloseStatus TOKEN_NO_LONGER_VALID = CloseStatus.POLICY_VIOLATION.withReason("Token expirado o revocado");
+
+    private final TokenRevocationService tokenRevocations;
+    private final WebSocketSessionMonitor sessionMonitor;
+
+    private final Map<String, StompPrincipal> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+
+    public void register(String sessionId, StompPrincipal principal) {
+        if (sessionId == null) {
+            return;
+        }
+        sessions.put(sessionId, principal);
+        sessionsByUser.computeIfAbsent(principal.userId(), id -> ConcurrentHashMap.newKeySet()).add(sessionId);
+    }
+
+    public void unregister(String sessionId) {
+        StompPrincipal principal = sessionId != null ? sessions.remove(sessionId) : null;
+        if (principal != null) {
+            sessionsByUser.computeIfPresent(principal.userId(), (id, ids) -> {
+                ids.remove(sessionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * Sesión cerrada sin frame DISCONNECT (cliente SockJS que perdió la red, cierre por el servidor)
+     */
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        unregister(event.getSessionId());
+    }
+
+    /**
+     * @return false si el token de la sesión ya expiró o fue revocado
+     */
+    public boolean isValid(StompPrincipal principal) {
+        return principal.expiresAt().isAfter(Instant.now()) && !tokenRevocations.isRevoked(principal.claims());
+    }
+
+    @EventListener
+    public void onUserTokensRevoked(UserTokensRevokedEvent event) {
+        Set<String> ids = sessionsByUser.get(event.userId());
+        if (ids != null) {
+            Set.copyOf(ids).forEach(this::close);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${websocket.auth.sweep-ms:30000}", fixedDelayString = "${websocket.auth.sweep-ms:30000}")
+    public void closeInvalidSessions() {
+        closeWhere(principal -> !isValid(principal));
+    }
+
+    private void closeWhere(Predicate<StompPrincipal> condition) {
+        sessions.forEach((sessionId, principal) -> {
+            if (condition.test(principal)) {
+                close(sessionId);
+            }
+        });
+    }
+
+    private void close(String sessionId) {
+        StompPrincipal principal = sessions.get(sessionId);
+        unregister(sessionId);
+        if (principal != null && sessionMonitor.close(sessionId, TOKEN_NO_LONGER_VALID)) {
+            log.info("Sesión STOMP {} de {} cerrada: token expirado o revocado", sessionId, principal.getName());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revocación de access tokens sin consultar la base de datos en cada petición
+ * - jti revocados (logout) -> expiración: hash set en memoria, se depura cuando el token ya expiró solo
+ * - Época por usuario: los tokens llevan la época con que se emitieron; revokeUser() la incrementa
+ *   (desactivar, eliminar, cambiar contraseña) y revoca sus refresh tokens; publica UserTokensRevokedEvent
+ *   para cerrar sus sesiones STOMP
+ * Respaldado por token_revocations y user_token_epochs; se carga al iniciar y se relee periódicamente
+ * para ver lo revocado por otras instancias.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> epochs = new ConcurrentHashMap<>();
+
+    /**
+     * @return true si el token fue revocado por jti o se emitió antes de la época actual de su usuario
+     */
+    public boolean isRevoked(Claims claims) {
+        if (claims.getId() != null && revokedTokens.containsKey(claims.getId())) {
+            return true;
+        }
+        Number userId = claims.get(JwtService.USER_ID_CLAIM, Number.class);
+        if (userId == null) {
+            return false;
+        }
+        Number epoch = claims.get(JwtService.EPOCH_CLAIM, Number.class);
+        return (epoch != null ? epoch.intValue() : 0) < currentEpoch(userId.longValue());
+    }
+
+    public int currentEpoch(Long userId) {
+        return epochs.getOrDefault(userId, 0);
+    }
+
+    /**
+     * Revoca un access token hasta su expiración (logout)
+     */
+    public void revokeToken(String jti, Date expiresAt) {
+        if (jti == null || expiresAt == null || expiresAt.before(new Date())) {
+            return;
+        }
+        jdbcTemplate.update("INSERT INTO token_revocations (jti, expires_at) VALUES (?, ?) "
+                + "ON DUPLICATE KEY UPDATE expires_at = expires_at", jti, new Timestamp(expiresAt.getTime()));
+        revokedTokens.put(jti, expiresAt.getTime());
+    }
+
+    /**
+     * Invalida todos los access y refresh tokens emitidos hasta ahora para el usuario
+     */
+    public void revokeUser(Long userId) {
+        jdbcTemplate.update("INSERT INTO user_token_epochs (user_id, epoch) VALUES (?, 1) "
+                + "ON DUPLICATE KEY UPDATE epoch = epoch + 1", userId);
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = ? WHERE user_id = ? AND revoked_at IS NULL",
+                Timestamp.valueOf(LocalDateTime.now()), userId);
+        Integer epoch = jdbcTemplate.queryForObject("SELECT epoch FROM user_token_epochs WHERE user_id = ?",
+                Integer.class, userId);
+        epochs.merge(userId, epoch, Math::max);
+        log.info("Tokens del usuario {} revocados (época {})", userId, epoch);
+        eventPublisher.publishEvent(new UserTokensRevokedEvent(userId));
+    }
+
+    /**
+     * Carga las listas al iniciar y las relee cada jwt.revocation.reload-ms (por otras instancias)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${jwt.revocation.reload-ms:30000}", fixedDelayString = "${jwt.revocation.reload-ms:30000}")
+    public void reload() {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT jti, expires_at FROM token_revocations WHERE expires_at > ?", rs -> {
+            revokedTokens.put(rs.getString("jti"), rs.getTimestamp("expires_at").getTime());
+        }, new Timestamp(now));
+        jdbcTemplate.query("SELECT user_id, epoch FROM user_token_epochs", rs -> {
+            epochs.merge(rs.getLong("user_id"), rs.getInt("epoch"), Math::max);
+        });
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    /**
+     * Depura revocaciones de tokens ya expirados y refresh tokens vencidos (cada hora)
+     * Los refresh tokens revocados se conservan hasta su expiración: sin la fila no se detecta su reuso
+     */
+    @Scheduled(cron = "0 45 * * * *")
+    public void pruneExpired() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int revocations = jdbcTemplate.update("DELETE FROM token_revocations WHERE expires_at < ?", now);
+        int refreshTokens = jdbcTemplate.update("DELETE FROM refresh_tokens WHERE expires_at < ?", now);
+        log.debug("Revocaciones depuradas: {}, refresh tokens depurados: {}", revocations, refreshTokens);
+    }
+}
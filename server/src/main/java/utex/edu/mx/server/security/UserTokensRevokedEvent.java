@@ -0,0 +1,7 @@
+package utex.edu.mx.server.security;
+
+/**
+ * Publicado por TokenRevocationService.revokeUser: ya no vale ningún token emitido antes para el usuario
+ */
+public record UserTokensRevokedEvent(Long userId) {
+}
@@ -0,0 +1,205 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import utex.edu.mx.server.dto.ChangeFeedResponse;
+import utex.edu.mx.server.model.ChangeLogEntry;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.ChangeLogRepository;
+import utex.edu.mx.server.repository.IncidentRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Feed incremental de cambios para clientes offline-first
+ * - Cada escritura de habitación/incidencia agrega una fila a change_log dentro de su transacción
+ * - GET /api/changes?since=<token> devuelve solo lo cambiado después del token
+ * - El token solo avanza por ids contiguos: un hueco puede ser una transacción que aún no confirma
+ *   (id menor que confirma después); se espera a que el hueco tenga más de changes.commit-window-ms
+ *   para darlo por revertido y saltarlo
+ * Las filas se insertan con JdbcTemplate (batch / INSERT ... SELECT) para no degradar
+ * las escrituras masivas; las lecturas usan ChangeLogRepository.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChangeFeedService {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 2000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_log (entity_type, entity_id, operation, changed_at) VALUES (?, ?, ?, ?)";
+
+    private final ChangeLogRepository changeLogRepository;
+    private final RoomRepository roomRepository;
+    private final IncidentRepository incidentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${changes.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${changes.commit-window-ms:30000}")
+    private long commitWindowMs;
+
+    // ==================== Registro ====================
+
+    public void recordRoom(Long roomId, ChangeLogEntry.Operation operation) {
+        record(ChangeLogEntry.EntityType.ROOM, List.of(roomId), operation);
+    }
+
+    public void recordRooms(Collection<Long> roomIds, ChangeLogEntry.Operation operation) {
+        record(ChangeLogEntry.EntityType.ROOM, roomIds, operation);
+    }
+
+    public void recordIncident(Long incidentId, ChangeLogEntry.Operation operation) {
+        record(ChangeLogEntry.EntityType.INCIDENT, List.of(incidentId), operation);
+    }
+
+    public void recordIncidents(Collection<Long> incidentIds, ChangeLogEntry.Operation operation) {
+        record(ChangeLogEntry.EntityType.INCIDENT, incidentIds, operation);
+    }
+
+    /**
+     * Registra con una sola sentencia las habitaciones de un edificio que están en el estado indicado.
+     * Debe ejecutarse en la misma transacción y antes del UPDATE masivo que las modifica.
+     */
+    public int recordRoomsByBuildingAndStatus(Long buildingId, Room.RoomStatus status, LocalDateTime changedAt) {
+        return jdbcTemplate.update("""
+                INSERT INTO change_log (entity_type, entity_id, operation, changed_at)
+                SELECT ?, r.id, ?, ? FROM rooms r WHERE r.building_id = ? AND r.status = ?
+                """,
+                ChangeLogEntry.EntityType.ROOM.name(), ChangeLogEntry.Operation.UPSERT.name(),
+                Timestamp.valueOf(changedAt), buildingId, status.name());
+    }
+
+    private void record(ChangeLogEntry.EntityType type, Collection<Long> ids, ChangeLogEntry.Operation operation) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = ids.stream()
+                .map(id -> new Object[]{type.name(), id, operation.name(), now})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    // ==================== Lectura ====================
+
+    @Transactional(readOnly = true)
+    public ChangeFeedResponse getChanges(Long since, Integer limit) {
+        LocalDateTime settledBefore = LocalDateTime.now().minusNanos(commitWindowMs * 1_000_000);
+        long head = changeLogRepository.findTopByOrderByIdDesc().map(ChangeLogEntry::getId).orElse(0L);
+        Long oldest = changeLogRepository.findTopByOrderByIdAsc().map(ChangeLogEntry::getId).orElse(null);
+        if (since == null || since > head) {
+            return reset(safeResetToken(oldest, settledBefore));
+        }
+        if (oldest != null && since < oldest - 1) {
+            // Hay cambios depurados después del token del cliente
+            return reset(safeResetToken(oldest, settledBefore));
+        }
+
+        int pageSize = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        List<ChangeLogEntry> entries = changeLogRepository.findByIdGreaterThanOrderByIdAsc(since, Limit.of(pageSize + 1));
+        boolean hasMore = entries.size() > pageSize;
+        if (hasMore) {
+            entries = entries.subList(0, pageSize);
+        }
+
+        // Avanzar solo hasta el primer hueco reciente: lo que venga después se entrega en otra llamada
+        long token = since;
+        int safe = 0;
+        for (ChangeLogEntry entry : entries) {
+            if (entry.getId() != token + 1 && !entry.getChangedAt().isBefore(settledBefore)) {
+                hasMore = false;
+                break;
+            }
+            token = entry.getId();
+            safe++;
+        }
+        entries = entries.subList(0, safe);
+
+        // La última operación de cada entidad dentro de la página es la que cuenta
+        Map<Long, ChangeLogEntry.Operation> roomOps = new LinkedHashMap<>();
+        Map<Long, ChangeLogEntry.Operation> incidentOps = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            Map<Long, ChangeLogEntry.Operation> ops =
+                    entry.getEntityType() == ChangeLogEntry.EntityType.ROOM ? roomOps : incidentOps;
+            ops.remove(entry.getEntityId());
+            ops.put(entry.getEntityId(), entry.getOperation());
+        }
+
+        List<Room> rooms = roomRepository.findAllByIdWithAssociations(upserted(roomOps));
+        List<Incident> incidents = incidentRepository.findAllById(upserted(incidentOps));
+
+        // Lo registrado como UPSERT que ya no existe se reporta como eliminado
+        List<Long> deletedRoomIds = deleted(roomOps, rooms.stream().map(Room::getId).collect(Collectors.toSet()));
+        List<Long> deletedIncidentIds = deleted(incidentOps,
+                incidents.stream().map(Incident::getId).collect(Collectors.toSet()));
+
+        return new ChangeFeedResponse(token, false, hasMore, rooms, incidents, deletedRoomIds, deletedIncidentIds);
+    }
+
+    /**
+     * Token para un cliente que descarga los listados completos: el último id anterior a la ventana de
+     * confirmación. Los cambios recientes se le vuelven a entregar en la siguiente llamada, que es
+     * inofensivo, pero ninguna transacción pendiente con id menor queda detrás del token.
+     */
+    private long safeResetToken(Long oldest, LocalDateTime settledBefore) {
+        return changeLogRepository.findTopByChangedAtBeforeOrderByIdDesc(settledBefore)
+                .map(ChangeLogEntry::getId)
+                .orElse(oldest != null ? oldest - 1 : 0L);
+    }
+
+    private static ChangeFeedResponse reset(long token) {
+        return new ChangeFeedResponse(token, true, false, List.of(), List.of(), List.of(), List.of());
+    }
+
+    private static List<Long> upserted(Map<Long, ChangeLogEntry.Operation> ops) {
+        return ops.entrySet().stream()
+                .filter(e -> e.getValue() == ChangeLogEntry.Operation.UPSERT)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static List<Long> deleted(Map<Long, ChangeLogEntry.Operation> ops, Set<Long> existing) {
+        List<Long> deleted = new ArrayList<>();
+        ops.forEach((id, op) -> {
+            if (op == ChangeLogEntry.Operation.DELETE || !existing.contains(id)) {
+                deleted.add(id);
+            }
+        });
+        return deleted;
+    }
+
+    // ==================== Depuración ====================
+
+    /**
+     * Elimina el historial más antiguo que el período de retención (3:30 AM)
+     * Los clientes con un token anterior recibirán reset=true
+     * La última fila se conserva siempre: sin ella no se distingue un historial vacío de uno depurado
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void pruneChangeLog() {
+        long head = changeLogRepository.findTopByOrderByIdDesc().map(ChangeLogEntry::getId).orElse(0L);
+        int deleted = changeLogRepository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays), head);
+        log.info("🧹 Historial de cambios depurado: {} registros eliminados", deleted);
+    }
+}
@@ -0,0 +1,92 @@
+package utex.edu.mx.server.service;
+
+/**
+ * Histograma de duraciones en segundos con memoria fija (384 contadores)
+ * - Exacto hasta 15 s; después 16 cubetas por cada potencia de 2 (el punto medio queda a menos de ~3% del valor real)
+ * - Valores mayores a ~4 años se acumulan en la última cubeta
+ * - Se pueden sumar (merge) histogramas de habitaciones o edificios para obtener los de niveles superiores
+ * No es seguro para hilos; quien lo usa lo protege.
+ */
+final class DurationHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 26;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+
+    void record(long seconds) {
+        counts[bucketOf(seconds)]++;
+        total++;
+    }
+
+    /**
+     * Quita una muestra registrada antes (p. ej. una incidencia resuelta que se reabre)
+     */
+    void remove(long seconds) {
+        int bucket = bucketOf(seconds);
+        if (counts[bucket] > 0) {
+            counts[bucket]--;
+            total--;
+        }
+    }
+
+    void merge(DurationHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    long count() {
+        return total;
+    }
+
+    boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * Valor (punto medio de la cubeta) por debajo del cual queda la fracción quantile de las muestras
+     * @return null si no hay muestras
+     */
+    Long percentile(double quantile) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(BUCKETS - 1);
+    }
+
+    static int bucketOf(long seconds) {
+        if (seconds < SUB_BUCKETS) {
+            return (int) Math.max(0, seconds);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(seconds);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (seconds >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    static long midpointOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+}
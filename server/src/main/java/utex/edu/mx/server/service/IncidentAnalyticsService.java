@@ -0,0 +1,234 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.dto.IncidentTimeStats;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Percentiles de tiempo de resolución (resolvedAt - createdAt) y antigüedad de incidencias abiertas
+ * por hotel, edificio, habitación y usuario que reportó
+ * - Tiempos de resolución: un DurationHistogram de tamaño fijo por grupo, actualizado con cada cambio
+ *   que informa IncidentController (alta, cambio, resolución, baja)
+ * - Antigüedad: cambia con el reloj, así que se guarda solo la muestra de cada incidencia abierta
+ *   y los histogramas se arman al consultar
+ * Al iniciar se reconstruye con un recorrido por JDBC de incidents e incidents_archive (sin cargar entidades);
+ * archivar no cambia nada aquí porque solo se archivan incidencias resueltas. Los cambios que llegan durante
+ * el recorrido se guardan y, antes del reemplazo, sustituyen lo que el recorrido leyó de esas incidencias.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentAnalyticsService {
+
+    private static final String SCAN_SQL = """
+            SELECT i.id, i.status, i.created_at, i.resolved_at, i.room_id, i.reported_by, r.building_id, b.hotel_id
+            FROM (
+                SELECT id, status, created_at, resolved_at, room_id, reported_by FROM incidents
+                UNION ALL
+                SELECT id, status, created_at, resolved_at, room_id, reported_by FROM incidents_archive
+            ) i
+            JOIN rooms r ON r.id = i.room_id
+            JOIN buildings b ON b.id = r.building_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Todo el estado se protege con el lock de este servicio
+    private Map<GroupKey, DurationHistogram> resolved = new HashMap<>();
+    private Map<Long, Sample> open = new HashMap<>();
+    // Último estado de las incidencias modificadas mientras corre load() (null si se eliminaron)
+    private Map<Long, Sample> changedDuringLoad;
+
+    public enum Dimension {
+        HOTEL, BUILDING, ROOM, REPORTER
+    }
+
+    /**
+     * Lo que se necesita de una incidencia para las estadísticas (se toma antes de modificarla)
+     */
+    public record Sample(Long hotelId, Long buildingId, Long roomId, Long reporterId,
+                         Incident.IncidentStatus status, LocalDateTime createdAt, LocalDateTime resolvedAt) {
+
+        public static Sample of(Incident incident) {
+            Room room = incident.getRoom();
+            Long buildingId = room != null && room.getBuilding() != null ? room.getBuilding().getId() : null;
+            Long hotelId = room != null && room.getBuilding() != null && room.getBuilding().getHotel() != null
+                    ? room.getBuilding().getHotel().getId() : null;
+            return new Sample(hotelId, buildingId, room != null ? room.getId() : null,
+                    incident.getReportedBy() != null ? incident.getReportedBy().getId() : null,
+                    incident.getStatus(), incident.getCreatedAt(), incident.getResolvedAt());
+        }
+
+        Long idFor(Dimension dimension) {
+            return switch (dimension) {
+                case HOTEL -> hotelId;
+                case BUILDING -> buildingId;
+                case ROOM -> roomId;
+                case REPORTER -> reporterId;
+            };
+        }
+
+        /**
+         * @return null si no está resuelta o le faltan fechas
+         */
+        Long resolutionSeconds() {
+            if (status != Incident.IncidentStatus.RESOLVED || createdAt == null || resolvedAt == null) {
+                return null;
+            }
+            return Math.max(0, Duration.between(createdAt, resolvedAt).toSeconds());
+        }
+    }
+
+    /**
+     * El hotel va en la clave para poder filtrar por hotel a quien reporta en varios
+     */
+    record GroupKey(Dimension dimension, Long hotelId, Long id) {
+    }
+
+    /**
+     * Aplica el cambio de una incidencia cuando la transacción actual confirme
+     * @param previous estado anterior (null en altas)
+     * @param current estado nuevo (null en bajas)
+     */
+    public void incidentChanged(Long incidentId, Sample previous, Sample current) {
+        TransactionCallbacks.afterCommit(() -> applyChange(incidentId, previous, current));
+    }
+
+    synchronized void applyChange(Long incidentId, Sample previous, Sample current) {
+        apply(resolved, open, incidentId, previous, current);
+        if (changedDuringLoad != null) {
+            changedDuringLoad.put(incidentId, current);
+        }
+    }
+
+    private static void apply(Map<GroupKey, DurationHistogram> resolved, Map<Long, Sample> open,
+                              Long incidentId, Sample previous, Sample current) {
+        if (previous != null && previous.resolutionSeconds() != null) {
+            for (Dimension dimension : Dimension.values()) {
+                DurationHistogram histogram = resolved.get(keyOf(dimension, previous));
+                if (histogram != null) {
+                    histogram.remove(previous.resolutionSeconds());
+                }
+            }
+        }
+        if (current != null && current.resolutionSeconds() != null) {
+            recordResolution(resolved, current);
+        }
+
+        open.remove(incidentId);
+        if (current != null && current.status() == Incident.IncidentStatus.OPEN && current.createdAt() != null) {
+            open.put(incidentId, current);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            changedDuringLoad = new HashMap<>();
+        }
+
+        Map<GroupKey, DurationHistogram> loadedResolved = new HashMap<>();
+        Map<Long, Sample> loadedOpen = new HashMap<>();
+        // Lo que el recorrido leyó de cada incidencia, para poder reemplazarlo si cambió mientras tanto
+        Map<Long, Sample> scanned = new HashMap<>();
+        jdbcTemplate.query(SCAN_SQL, rs -> {
+            Long id = rs.getObject("id", Long.class);
+            Sample sample = new Sample(rs.getObject("hotel_id", Long.class), rs.getObject("building_id", Long.class),
+                    rs.getObject("room_id", Long.class), rs.getObject("reported_by", Long.class),
+                    Incident.IncidentStatus.valueOf(rs.getString("status")),
+                    toLocalDateTime(rs.getTimestamp("created_at")), toLocalDateTime(rs.getTimestamp("resolved_at")));
+            // Una incidencia archivada durante el recorrido puede aparecer en ambas tablas
+            if (scanned.putIfAbsent(id, sample) == null) {
+                apply(loadedResolved, loadedOpen, id, null, sample);
+            }
+        });
+
+        synchronized (this) {
+            changedDuringLoad.forEach((id, current) ->
+                    apply(loadedResolved, loadedOpen, id, scanned.get(id), current));
+            changedDuringLoad = null;
+            resolved = loadedResolved;
+            open = loadedOpen;
+        }
+        log.info("Tiempos de incidencias cargados: {} grupos con resoluciones, {} incidencias abiertas",
+                loadedResolved.size(), loadedOpen.size());
+    }
+
+    /**
+     * Percentiles agrupados por la dimensión indicada, opcionalmente solo de un hotel
+     */
+    public synchronized IncidentTimeStats getStats(Dimension groupBy, Long hotelId) {
+        // Los histogramas por hotel de quien reporta en varios hoteles se suman aquí
+        Map<Long, DurationHistogram> resolutionByGroup = new HashMap<>();
+        resolved.forEach((key, histogram) -> {
+            if (key.dimension() == groupBy && (hotelId == null || hotelId.equals(key.hotelId()))
+                    && !histogram.isEmpty()) {
+                resolutionByGroup.computeIfAbsent(key.id(), id -> new DurationHistogram()).merge(histogram);
+            }
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, DurationHistogram> ageByGroup = new HashMap<>();
+        DurationHistogram totalAge = new DurationHistogram();
+        for (Sample sample : open.values()) {
+            if (hotelId != null && !hotelId.equals(sample.hotelId()) || sample.idFor(groupBy) == null) {
+                continue;
+            }
+            long age = Math.max(0, Duration.between(sample.createdAt(), now).toSeconds());
+            ageByGroup.computeIfAbsent(sample.idFor(groupBy), id -> new DurationHistogram()).record(age);
+            totalAge.record(age);
+        }
+
+        DurationHistogram totalResolution = new DurationHistogram();
+        resolutionByGroup.values().forEach(totalResolution::merge);
+
+        Set<Long> groupIds = new TreeSet<>(resolutionByGroup.keySet());
+        groupIds.addAll(ageByGroup.keySet());
+        List<IncidentTimeStats.Group> groups = groupIds.stream()
+                .map(id -> new IncidentTimeStats.Group(id, durationsOf(resolutionByGroup.get(id)),
+                        durationsOf(ageByGroup.get(id))))
+                .toList();
+
+        return new IncidentTimeStats(groupBy.name(), durationsOf(totalResolution), durationsOf(totalAge), groups);
+    }
+
+    private static void recordResolution(Map<GroupKey, DurationHistogram> target, Sample sample) {
+        for (Dimension dimension : Dimension.values()) {
+            GroupKey key = keyOf(dimension, sample);
+            if (key.id() != null) {
+                target.computeIfAbsent(key, k -> new DurationHistogram()).record(sample.resolutionSeconds());
+            }
+        }
+    }
+
+    private static GroupKey keyOf(Dimension dimension, Sample sample) {
+        return new GroupKey(dimension, sample.hotelId(), sample.idFor(dimension));
+    }
+
+    private static IncidentTimeStats.Durations durationsOf(DurationHistogram histogram) {
+        if (histogram == null || histogram.isEmpty()) {
+            return new IncidentTimeStats.Durations(0, null, null, null);
+        }
+        return new IncidentTimeStats.Durations(histogram.count(), histogram.percentile(0.50),
+                histogram.percentile(0.90), histogram.percentile(0.99));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,128 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import utex.edu.mx.server.model.ChangeLogEntry;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Archivado de incidencias resueltas antiguas (tabla incidents -> incidents_archive)
+ * - Cada noche mueve las RESOLVED con resolvedAt anterior a incidents.archive.after-days
+ * - Por lotes de incidents.archive.batch-size, cada uno en su propia transacción corta:
+ *   se bloquean solo las filas del lote, se copian con INSERT ... SELECT y se borran
+ * - Entre lotes hace una pausa para no competir con el tráfico normal
+ * Los listados de incidencias solo consultan la tabla activa salvo que pidan includeArchived=true.
+ * Para los clientes con cache (change feed) una incidencia archivada se informa como eliminada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentArchiveService {
+
+    private static final String COLUMNS =
+            "id, room_id, reported_by, description, photos, status, resolution_notes, resolved_at, created_at, updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeFeedService changeFeedService;
+    private final ResponseCacheService responseCache;
+    private final IncidentSearchService incidentSearch;
+
+    @Value("${incidents.archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${incidents.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${incidents.archive.pause-ms:200}")
+    private long pauseMs;
+
+    /**
+     * Archiva todos los días a las 4:00 AM (después de la depuración del change log)
+     */
+    @Scheduled(cron = "${incidents.archive.cron:0 0 4 * * *}")
+    public void archiveResolvedIncidents() {
+        try {
+            int archived = archiveResolvedBefore(LocalDateTime.now().minusDays(afterDays));
+            log.info("🗄️ Archivado de incidencias completado: {} incidencias movidas al historial", archived);
+        } catch (Exception e) {
+            log.error("❌ Error durante el archivado de incidencias", e);
+        }
+    }
+
+    /**
+     * Mueve al historial las incidencias resueltas antes de la fecha indicada
+     * @return incidencias archivadas
+     */
+    public int archiveResolvedBefore(LocalDateTime cutoff) {
+        Timestamp resolvedBefore = Timestamp.valueOf(cutoff);
+        int total = 0;
+        while (true) {
+            List<Long> candidates = jdbcTemplate.queryForList("""
+                    SELECT id FROM incidents
+                    WHERE status = 'RESOLVED' AND resolved_at < ?
+                    ORDER BY resolved_at
+                    LIMIT ?
+                    """, Long.class, resolvedBefore, batchSize);
+            if (candidates.isEmpty()) {
+                return total;
+            }
+
+            List<Long> archived = transactionTemplate.execute(status -> archiveBatch(candidates));
+            if (archived != null && !archived.isEmpty()) {
+                total += archived.size();
+                responseCache.invalidate(ResponseCacheService.Collection.INCIDENTS);
+                incidentSearch.markArchived(archived);
+                log.debug("Lote archivado: {} incidencias", archived.size());
+            }
+            if (candidates.size() < batchSize || !pause()) {
+                return total;
+            }
+        }
+    }
+
+    /**
+     * Copia y borra un lote; las filas que se reabrieron desde la selección se omiten
+     */
+    private List<Long> archiveBatch(List<Long> candidates) {
+        String in = String.join(", ", Collections.nCopies(candidates.size(), "?"));
+        List<Long> locked = jdbcTemplate.queryForList(
+                "SELECT id FROM incidents WHERE id IN (" + in + ") AND status = 'RESOLVED' FOR UPDATE",
+                Long.class, candidates.toArray());
+        if (locked.isEmpty()) {
+            return locked;
+        }
+
+        String lockedIn = String.join(", ", Collections.nCopies(locked.size(), "?"));
+        Object[] insertArgs = new Object[locked.size() + 1];
+        insertArgs[0] = Timestamp.valueOf(LocalDateTime.now());
+        System.arraycopy(locked.toArray(), 0, insertArgs, 1, locked.size());
+        jdbcTemplate.update("INSERT INTO incidents_archive (" + COLUMNS + ", archived_at) "
+                + "SELECT " + COLUMNS + ", ? FROM incidents WHERE id IN (" + lockedIn + ")", insertArgs);
+        jdbcTemplate.update("DELETE FROM incidents WHERE id IN (" + lockedIn + ")", locked.toArray());
+        changeFeedService.recordIncidents(locked, ChangeLogEntry.Operation.DELETE);
+        return locked;
+    }
+
+    /**
+     * @return false si el hilo fue interrumpido (apagado de la aplicación)
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
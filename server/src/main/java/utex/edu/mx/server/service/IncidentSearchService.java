@@ -0,0 +1,246 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.model.Incident;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre descripción y notas de resolución de las incidencias
+ * - Tokenización en español sin acentos (SpanishAnalyzer): "Fuga" encuentra "fugas", "baño" encuentra "bano"
+ * - IncidentController lo actualiza tras cada alta, cambio, resolución o baja
+ * - Se reconstruye al iniciar recorriendo incidents e incidents_archive una sola vez (sin cargar entidades)
+ * - Las incidencias archivadas siguen indexadas pero solo aparecen si se pide includeArchived
+ * - Ranking BM25: cuenta cualquier término de la consulta; más términos y más raros pesan más
+ * Las búsquedas toman el lock de lectura y no tocan la base de datos; solo la página final se carga por id.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncidentSearchService {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // Incidencias modificadas mientras corre rebuild(); se copian al índice nuevo antes del reemplazo
+    private Set<Long> changedDuringRebuild;
+
+    public record Hit(Long id, double score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+
+    private record Document(Incident.IncidentStatus status, boolean archived, Map<String, Integer> terms, int length) {
+    }
+
+    /**
+     * Término -> (incidencia -> frecuencia) y los términos de cada incidencia para poder quitarla
+     */
+    private static final class Index {
+        final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        final Map<Long, Document> documents = new HashMap<>();
+        long totalLength;
+
+        void put(Long id, Incident.IncidentStatus status, boolean archived, String description, String resolutionNotes) {
+            remove(id);
+            List<String> terms = SpanishAnalyzer.analyze(description);
+            terms.addAll(SpanishAnalyzer.analyze(resolutionNotes));
+            Map<String, Integer> frequencies = new HashMap<>();
+            terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            add(id, new Document(status, archived, frequencies, terms.size()));
+        }
+
+        void add(Long id, Document document) {
+            document.terms().forEach((term, count) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, count));
+            documents.put(id, document);
+            totalLength += document.length();
+        }
+
+        void remove(Long id) {
+            Document previous = documents.remove(id);
+            if (previous == null) {
+                return;
+            }
+            totalLength -= previous.length();
+            for (String term : previous.terms().keySet()) {
+                Map<Long, Integer> docs = postings.get(term);
+                docs.remove(id);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indexa la incidencia cuando la transacción actual confirme
+     */
+    public void indexAfterCommit(Incident incident) {
+        Long id = incident.getId();
+        Incident.IncidentStatus status = incident.getStatus();
+        String description = incident.getDescription();
+        String resolutionNotes = incident.getResolutionNotes();
+        TransactionCallbacks.afterCommit(() -> index(id, status, description, resolutionNotes));
+    }
+
+    public void removeAfterCommit(Long id) {
+        TransactionCallbacks.afterCommit(() -> remove(id));
+    }
+
+    void index(Long id, Incident.IncidentStatus status, String description, String resolutionNotes) {
+        lock.writeLock().lock();
+        try {
+            index.put(id, status, false, description, resolutionNotes);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            index.remove(id);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca como archivadas incidencias ya indexadas (IncidentArchiveService); sus términos no cambian
+     */
+    public void markArchived(Collection<Long> ids) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : ids) {
+                Document document = index.documents.get(id);
+                if (document != null) {
+                    index.documents.put(id, new Document(document.status(), true, document.terms(), document.length()));
+                }
+                if (changedDuringRebuild != null) {
+                    changedDuringRebuild.add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo; las búsquedas siguen usando el anterior hasta el reemplazo
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Index rebuilt = new Index();
+        jdbcTemplate.query("""
+                SELECT id, status, 0 AS archived, description, resolution_notes FROM incidents
+                UNION ALL
+                SELECT id, status, 1 AS archived, description, resolution_notes FROM incidents_archive
+                """, rs -> {
+            rebuilt.put(rs.getLong("id"), Incident.IncidentStatus.valueOf(rs.getString("status")),
+                    rs.getInt("archived") == 1, rs.getString("description"), rs.getString("resolution_notes"));
+        });
+
+        lock.writeLock().lock();
+        try {
+            for (Long id : changedDuringRebuild) {
+                rebuilt.remove(id);
+                Document current = index.documents.get(id);
+                if (current != null) {
+                    rebuilt.add(id, current);
+                }
+            }
+            changedDuringRebuild = null;
+            index = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Índice de búsqueda de incidencias: {} incidencias, {} términos",
+                rebuilt.documents.size(), rebuilt.postings.size());
+    }
+
+    /**
+     * Busca incidencias por texto libre, ordenadas por relevancia (empate: la más reciente primero)
+     * @param status filtro opcional por estado
+     * @param includeArchived incluir incidencias del historial (incidents_archive)
+     * @return los aciertos de [offset, offset + limit) y el total de coincidencias
+     */
+    public Result search(String query, Incident.IncidentStatus status, boolean includeArchived, int offset, int limit) {
+        Set<String> queryTerms = new LinkedHashSet<>(SpanishAnalyzer.analyze(query));
+        if (queryTerms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = index.documents.size();
+            double averageLength = documentCount == 0 ? 1.0 : Math.max(1.0, (double) index.totalLength / documentCount);
+            for (String term : queryTerms) {
+                Map<Long, Integer> docs = index.postings.get(term);
+                if (docs == null) {
+                    continue;
+                }
+                double idf = Math.log(1.0 + (documentCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                for (Map.Entry<Long, Integer> posting : docs.entrySet()) {
+                    Document document = index.documents.get(posting.getKey());
+                    if (status != null && document.status() != status || !includeArchived && document.archived()) {
+                        continue;
+                    }
+                    double frequency = posting.getValue();
+                    double norm = K1 * (1 - B + B * document.length() / averageLength);
+                    scores.merge(posting.getKey(), idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Solo se ordenan los offset + limit mejores, no todas las coincidencias
+        Comparator<Hit> ranking = Comparator.comparingDouble(Hit::score).thenComparing(Hit::id);
+        int wanted = offset + limit;
+        PriorityQueue<Hit> best = new PriorityQueue<>(ranking);
+        scores.forEach((id, score) -> {
+            best.add(new Hit(id, score));
+            if (best.size() > wanted) {
+                best.poll();
+            }
+        });
+        List<Hit> ordered = new ArrayList<>(best);
+        ordered.sort(ranking.reversed());
+        List<Hit> page = offset >= ordered.size() ? List.of() : ordered.subList(offset, ordered.size());
+        return new Result(page, scores.size());
+    }
+}
@@ -0,0 +1,204 @@
+package utex.edu.mx.server.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.dto.WebSocketNotification;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envío diferido y agrupado de notificaciones WebSocket
+ * - El hilo de la petición solo encola; un hilo propio publica cada notifications.dispatch.window-ms
+ *   o en cuanto un destino junta notifications.dispatch.max-batch eventos
+ * - Por destino (tópico de hotel o cola de usuario) los eventos con la misma clave se reemplazan por
+ *   el último: varios cambios seguidos de una habitación llegan como uno solo
+ * - Un evento pendiente se publica tal cual; varios, en un solo frame BATCH con la lista en data
+ * - Con notifications.dispatch.max-pending eventos en espera se rechazan los nuevos (enqueue devuelve false
+ *   y NotificationOutbox los reintenta)
+ * - Cada evento aceptado avisa a su Delivery cuando el frame que lo lleva se publica o falla; un evento
+ *   reemplazado se confirma junto con el que lo reemplazó
+ */
+@Service
+@Slf4j
+public class NotificationDispatcher {
+
+    public static final String BATCH_TYPE = "BATCH";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final long windowMillis;
+    private final int maxBatch;
+    private final int maxPending;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<Target, Map<Object, Pending>> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+    private final AtomicInteger peakPendingEvents = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong eventsSent = new AtomicLong();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    /**
+     * Resultado de la publicación de un evento encolado
+     */
+    public interface Delivery {
+
+        void sent();
+
+        void failed(Exception error);
+    }
+
+    /**
+     * Tópico (user null) o cola /user/{user}{destination}
+     */
+    private record Target(String user, String destination) {
+    }
+
+    /**
+     * Último evento pendiente para una clave y los Delivery de los eventos que fue reemplazando
+     */
+    private record Pending(WebSocketNotification notification, List<Delivery> deliveries) {
+    }
+
+    public record Stats(long windowMillis, int maxBatch, int pendingEvents, int pendingDestinations,
+                        int peakPendingEvents, long enqueued, long coalesced, long rejected, long frames,
+                        long eventsSent, double averageBatchSize, int largestBatch) {
+    }
+
+    public NotificationDispatcher(SimpMessagingTemplate messagingTemplate,
+                                  @Value("${notifications.dispatch.window-ms:100}") long windowMillis,
+                                  @Value("${notifications.dispatch.max-batch:50}") int maxBatch,
+                                  @Value("${notifications.dispatch.max-pending:10000}") int maxPending) {
+        this.messagingTemplate = messagingTemplate;
+        this.windowMillis = windowMillis;
+        this.maxBatch = maxBatch;
+        this.maxPending = maxPending;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushAll, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encola un evento para el tópico destination
+     * @param coalesceKey eventos pendientes con la misma clave se reemplazan; null para no agrupar
+     * @param delivery avisado al publicarse el frame o al fallar (solo si el evento se aceptó)
+     * @return false si hay demasiados eventos en espera y este no se aceptó
+     */
+    public boolean enqueue(String destination, Object coalesceKey, WebSocketNotification notification,
+                           Delivery delivery) {
+        return enqueue(new Target(null, destination), coalesceKey, notification, delivery);
+    }
+
+    /**
+     * Encola un evento para la cola de un usuario (convertAndSendToUser)
+     */
+    public boolean enqueueToUser(String username, String destination, Object coalesceKey,
+                                 WebSocketNotification notification, Delivery delivery) {
+        return enqueue(new Target(username, destination), coalesceKey, notification, delivery);
+    }
+
+    private boolean enqueue(Target target, Object coalesceKey, WebSocketNotification notification,
+                            Delivery delivery) {
+        Object key = coalesceKey != null ? coalesceKey : new Object();
+        boolean[] accepted = {true};
+        boolean[] flushNow = new boolean[1];
+        // compute es atómico por destino: flush() retira el mapa completo con remove()
+        pending.compute(target, (ignored, events) -> {
+            if (events == null) {
+                events = new LinkedHashMap<>();
+            }
+            List<Delivery> deliveries = new ArrayList<>(1);
+            // El reemplazo pasa al final: el orden es el del último cambio
+            Pending replaced = events.remove(key);
+            if (replaced != null) {
+                coalesced.incrementAndGet();
+                deliveries.addAll(replaced.deliveries());
+            } else if (pendingEvents.get() >= maxPending) {
+                accepted[0] = false;
+                return events.isEmpty() ? null : events;
+            } else {
+                peakPendingEvents.accumulateAndGet(pendingEvents.incrementAndGet(), Math::max);
+            }
+            deliveries.add(delivery);
+            events.put(key, new Pending(notification, deliveries));
+            flushNow[0] = events.size() >= maxBatch;
+            return events;
+        });
+        if (!accepted[0]) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        enqueued.incrementAndGet();
+        if (flushNow[0]) {
+            scheduler.execute(() -> flush(target));
+        }
+        return true;
+    }
+
+    /**
+     * Publica todo lo pendiente (cada ventana y al apagar)
+     */
+    void flushAll() {
+        for (Target target : new ArrayList<>(pending.keySet())) {
+            flush(target);
+        }
+    }
+
+    private void flush(Target target) {
+        Map<Object, Pending> events = pending.remove(target);
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        pendingEvents.addAndGet(-events.size());
+
+        List<WebSocketNotification> batch = events.values().stream().map(Pending::notification).toList();
+        WebSocketNotification frame = batch.size() == 1 ? batch.get(0)
+                : new WebSocketNotification(BATCH_TYPE, batch.size() + " eventos", batch);
+        try {
+            if (target.user() != null) {
+                messagingTemplate.convertAndSendToUser(target.user(), target.destination(), frame);
+            } else {
+                messagingTemplate.convertAndSend(target.destination(), frame);
+            }
+            frames.incrementAndGet();
+            eventsSent.addAndGet(batch.size());
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+        } catch (Exception wsError) {
+            log.error("No se pudo publicar el frame de {} eventos a {}", batch.size(), target.destination(), wsError);
+            events.values().forEach(event -> event.deliveries().forEach(delivery -> delivery.failed(wsError)));
+            return;
+        }
+        events.values().forEach(event -> event.deliveries().forEach(Delivery::sent));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdown();
+        flushAll();
+    }
+
+    public Stats getStats() {
+        long sentFrames = frames.get();
+        long sentEvents = eventsSent.get();
+        return new Stats(windowMillis, maxBatch, pendingEvents.get(), pending.size(), peakPendingEvents.get(),
+                enqueued.get(), coalesced.get(), rejected.get(), sentFrames, sentEvents,
+                sentFrames == 0 ? 0.0 : (double) sentEvents / sentFrames, largestBatch.get());
+    }
+}
@@ -0,0 +1,288 @@
+package utex.edu.mx.server.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import utex.edu.mx.server.dto.WebSocketNotification;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outbox transaccional de notificaciones WebSocket (tabla notification_outbox)
+ * - append() inserta los eventos en la transacción actual: un cambio revertido no notifica nada
+ * - Al confirmar se despierta el relay, que corre en su propio hilo: reclama en orden de id hasta
+ *   notifications.outbox.batch-size filas libres (claimed_by, por notifications.outbox.claim-ms) y las
+ *   entrega a NotificationDispatcher; otra instancia no toma filas reclamadas
+ * - Una fila se borra solo cuando el dispatcher confirma que publicó su frame (entrega al menos una vez);
+ *   si el dispatcher está lleno se libera sin contar intento y espera a otra pasada (cada
+ *   notifications.outbox.relay-ms como respaldo); si la publicación falla se libera y cuenta un intento,
+ *   y tras notifications.outbox.max-attempts fallos se descarta
+ * La petición solo paga el INSERT; serializar y publicar ocurre fuera de su hilo.
+ */
+@Service
+@Slf4j
+public class NotificationOutbox {
+
+    private static final String INSERT_SQL = "INSERT INTO notification_outbox "
+            + "(destination, username, coalesce_key, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final NotificationDispatcher dispatcher;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long claimMillis;
+    private final ExecutorService relayExecutor;
+    private final ReentrantLock relayLock = new ReentrantLock();
+    private final AtomicBoolean relayRequested = new AtomicBoolean();
+    // Resultados que avisa el dispatcher desde su hilo; el relay los aplica en la base
+    private final Queue<Long> sentIds = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> failedIds = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private volatile long lastLagMillis;
+
+    /**
+     * Un evento para un destino: tópico de hotel (username null) o cola de usuario
+     */
+    public record Entry(String destination, String username, Object coalesceKey, WebSocketNotification notification) {
+    }
+
+    private record Row(long id, String destination, String username, String coalesceKey, String payload,
+                       int attempts, LocalDateTime createdAt) {
+    }
+
+    public record Stats(long pending, long appended, long relayed, long retried, long discarded, long lastLagMillis) {
+    }
+
+    public NotificationOutbox(JdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              NotificationDispatcher dispatcher,
+                              @Value("${notifications.outbox.batch-size:200}") int batchSize,
+                              @Value("${notifications.outbox.max-attempts:20}") int maxAttempts,
+                              @Value("${notifications.outbox.claim-ms:30000}") long claimMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.dispatcher = dispatcher;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimMillis = claimMillis;
+        this.relayExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Guarda los eventos en la transacción actual y despierta el relay cuando confirme
+     * (sin transacción activa se insertan y se despierta de inmediato)
+     */
+    public void append(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = entries.stream()
+                .map(entry -> new Object[]{entry.destination(), entry.username(),
+                        entry.coalesceKey() != null ? entry.coalesceKey().toString() : null,
+                        objectMapper.writeValueAsString(entry.notification()), now})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        appended.addAndGet(entries.size());
+        TransactionCallbacks.afterCommit(this::requestRelay);
+    }
+
+    private void requestRelay() {
+        // Varios commits seguidos se atienden con una sola pasada pendiente
+        if (relayRequested.compareAndSet(false, true)) {
+            try {
+                relayExecutor.execute(() -> {
+                    relayRequested.set(false);
+                    relay();
+                });
+            } catch (RejectedExecutionException e) {
+                // Apagando: lo confirmado sin borrar se vuelve a entregar al reiniciar
+                relayRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Aplica los envíos confirmados o fallidos y entrega lo pendiente en orden; también recoge lo que
+     * quedó de pasadas fallidas, de reclamos vencidos o de un reinicio
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.relay-ms:1000}")
+    public void relay() {
+        relayLock.lock();
+        try {
+            acknowledge();
+            List<Row> rows;
+            do {
+                rows = claim();
+            } while (deliver(rows) && rows.size() == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo leer el outbox de notificaciones; se reintenta en la próxima pasada: {}", e.getMessage());
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    /**
+     * Reclama hasta batchSize filas libres (o con reclamo vencido) para esta pasada.
+     * El UPDATE condicional por id hace que dos instancias no reclamen la misma fila.
+     */
+    private List<Row> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidates = jdbcTemplate.queryForList(
+                "SELECT id FROM notification_outbox WHERE claimed_until IS NULL OR claimed_until < ? ORDER BY id LIMIT ?",
+                Long.class, Timestamp.valueOf(now), batchSize);
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        String claim = UUID.randomUUID().toString();
+        Timestamp until = Timestamp.valueOf(now.plus(Duration.ofMillis(claimMillis)));
+        jdbcTemplate.batchUpdate("UPDATE notification_outbox SET claimed_by = ?, claimed_until = ? "
+                        + "WHERE id = ? AND (claimed_until IS NULL OR claimed_until < ?)",
+                candidates.stream().map(id -> new Object[]{claim, until, id, Timestamp.valueOf(now)}).toList());
+        return jdbcTemplate.query(
+                "SELECT id, destination, username, coalesce_key, payload, attempts, created_at "
+                        + "FROM notification_outbox WHERE claimed_by = ? ORDER BY id",
+                (rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("destination"),
+                        rs.getString("username"), rs.getString("coalesce_key"), rs.getString("payload"),
+                        rs.getInt("attempts"), rs.getTimestamp("created_at").toLocalDateTime()),
+                claim);
+    }
+
+    /**
+     * @return false si el dispatcher rechazó un evento y la pasada debe esperar
+     */
+    private boolean deliver(List<Row> rows) {
+        List<Object[]> unreadable = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            WebSocketNotification notification;
+            try {
+                notification = objectMapper.readValue(row.payload(), WebSocketNotification.class);
+            } catch (JacksonException e) {
+                log.error("Evento {} del outbox ilegible; se descarta: {}", row.id(), e.getMessage());
+                discarded.incrementAndGet();
+                unreadable.add(new Object[]{row.id()});
+                continue;
+            }
+
+            NotificationDispatcher.Delivery delivery = new RowDelivery(row);
+            boolean accepted = row.username() != null
+                    ? dispatcher.enqueueToUser(row.username(), row.destination(), row.coalesceKey(), notification, delivery)
+                    : dispatcher.enqueue(row.destination(), row.coalesceKey(), notification, delivery);
+            if (!accepted) {
+                // Dispatcher lleno: no es un fallo de la fila, no cuenta intento. Se conserva el orden:
+                // esta fila y las que siguen esperan a la próxima pasada
+                retried.incrementAndGet();
+                release(rows.subList(i, rows.size()));
+                delete(unreadable);
+                return false;
+            }
+        }
+        delete(unreadable);
+        return true;
+    }
+
+    /**
+     * Borra lo que el dispatcher publicó y libera para reintento lo que falló
+     */
+    private void acknowledge() {
+        List<Object[]> sent = new ArrayList<>();
+        for (Long id = sentIds.poll(); id != null; id = sentIds.poll()) {
+            sent.add(new Object[]{id});
+        }
+        delete(sent);
+        for (Long id = failedIds.poll(); id != null; id = failedIds.poll()) {
+            retry(id);
+        }
+    }
+
+    private void retry(long id) {
+        jdbcTemplate.update("UPDATE notification_outbox SET attempts = attempts + 1, claimed_by = NULL, "
+                + "claimed_until = NULL WHERE id = ?", id);
+        if (jdbcTemplate.update("DELETE FROM notification_outbox WHERE id = ? AND attempts >= ?", id, maxAttempts) > 0) {
+            log.warn("Evento {} del outbox descartado tras {} intentos", id, maxAttempts);
+            discarded.incrementAndGet();
+        } else {
+            retried.incrementAndGet();
+        }
+    }
+
+    private void release(List<Row> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE notification_outbox SET claimed_by = NULL, claimed_until = NULL WHERE id = ?",
+                    rows.stream().map(row -> new Object[]{row.id()}).toList());
+        }
+    }
+
+    private void delete(List<Object[]> ids) {
+        if (!ids.isEmpty()) {
+            // Por id y no por rango: una transacción con id menor puede confirmar después
+            jdbcTemplate.batchUpdate("DELETE FROM notification_outbox WHERE id = ?", ids);
+        }
+    }
+
+    /**
+     * Resultado de una fila: se anota y el relay lo aplica en su hilo
+     */
+    private class RowDelivery implements NotificationDispatcher.Delivery {
+
+        private final Row row;
+
+        RowDelivery(Row row) {
+            this.row = row;
+        }
+
+        @Override
+        public void sent() {
+            relayed.incrementAndGet();
+            lastLagMillis = Duration.between(row.createdAt(), LocalDateTime.now()).toMillis();
+            sentIds.add(row.id());
+            requestRelay();
+        }
+
+        @Override
+        public void failed(Exception error) {
+            failedIds.add(row.id());
+            requestRelay();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        relayExecutor.shutdown();
+    }
+
+    public Stats getStats() {
+        Long pending = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox", Long.class);
+        return new Stats(pending != null ? pending : 0, appended.get(), relayed.get(), retried.get(),
+                discarded.get(), lastLagMillis);
+    }
+}
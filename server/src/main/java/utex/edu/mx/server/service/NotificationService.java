@@ -0,0 +1,220 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.dto.DistributionResult;
+import utex.edu.mx.server.dto.EntityDelta;
+import utex.edu.mx.server.dto.WebSocketNotification;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Enrutamiento de notificaciones WebSocket solo a quien le interesan
+ * - Recepción/administración del hotel: /topic/hotels/{hotelId}/{rooms|incidents|notifications}
+ * - Mucamas: /user/queue/{rooms|incidents|notifications}, solo eventos de sus habitaciones asignadas
+ *   y de las incidencias que reportaron
+ * El costo de cada envío depende de los destinatarios interesados, no de todos los clientes conectados.
+ * Los eventos se guardan en NotificationOutbox dentro de la transacción del cambio que los origina;
+ * el relay los publica (agrupados por NotificationDispatcher) solo después del commit.
+ * StompAuthChannelInterceptor valida el JWT al conectar y quién puede suscribirse a cada tópico de hotel.
+ */
+@Service
+@RequiredArgsConstructor
+public class NotificationService {
+
+    private final NotificationOutbox outbox;
+    private final UserRepository userRepository;
+    private final RoomStateStore roomStateStore;
+
+    public enum Channel {
+        ROOMS("rooms"), INCIDENTS("incidents"), NOTIFICATIONS("notifications");
+
+        private final String path;
+
+        Channel(String path) {
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+    }
+
+    /**
+     * Hoteles y mucamas (por username) que deben recibir un evento
+     */
+    public record Audience(Set<Long> hotelIds, Set<String> usernames) {
+
+        /**
+         * El hotel de la habitación, su mucama asignada y otros usuarios afectados (p. ej. la mucama anterior)
+         */
+        public static Audience of(Room room, User... alsoNotify) {
+            Audience audience = new Audience(new HashSet<>(), new HashSet<>());
+            audience.addRoom(room);
+            Arrays.stream(alsoNotify).forEach(audience::addUser);
+            return audience;
+        }
+
+        /**
+         * El hotel de la incidencia, quien la reportó y la mucama asignada a la habitación
+         */
+        public static Audience of(Incident incident) {
+            Audience audience = new Audience(new HashSet<>(), new HashSet<>());
+            audience.addRoom(incident.getRoom());
+            audience.addUser(incident.getReportedBy());
+            return audience;
+        }
+
+        private void addRoom(Room room) {
+            if (room == null) {
+                return;
+            }
+            Long hotelId = hotelIdOf(room);
+            if (hotelId != null) {
+                hotelIds.add(hotelId);
+            }
+            addUser(room.getAssignedTo());
+        }
+
+        private void addUser(User user) {
+            if (user != null && user.getUsername() != null) {
+                usernames.add(user.getUsername());
+            }
+        }
+    }
+
+    public void send(Audience audience, WebSocketNotification notification, Channel... channels) {
+        Object key = coalesceKey(notification);
+        List<NotificationOutbox.Entry> entries = new ArrayList<>();
+        for (Channel channel : channels) {
+            for (Long hotelId : audience.hotelIds()) {
+                entries.add(new NotificationOutbox.Entry(hotelTopic(hotelId, channel), null, key, notification));
+            }
+            for (String username : audience.usernames()) {
+                entries.add(new NotificationOutbox.Entry("/queue/" + channel.path(), username, key, notification));
+            }
+        }
+        outbox.append(entries);
+    }
+
+    /**
+     * Un aviso por hotel y por mucama con solo sus habitaciones: { count, roomIds, rooms: [EntityDelta] }
+     */
+    public void sendRooms(String type, IntFunction<String> message, Collection<Room> rooms, Channel... channels) {
+        Map<Long, List<EntityDelta>> roomsByHotel = new LinkedHashMap<>();
+        Map<String, List<EntityDelta>> roomsByMaid = new LinkedHashMap<>();
+        for (Room room : rooms) {
+            EntityDelta delta = EntityDelta.room(null, room);
+            Long hotelId = hotelIdOf(room);
+            if (hotelId != null) {
+                roomsByHotel.computeIfAbsent(hotelId, id -> new ArrayList<>()).add(delta);
+            }
+            if (room.getAssignedTo() != null && room.getAssignedTo().getUsername() != null) {
+                roomsByMaid.computeIfAbsent(room.getAssignedTo().getUsername(), name -> new ArrayList<>()).add(delta);
+            }
+        }
+
+        List<NotificationOutbox.Entry> entries = new ArrayList<>();
+        roomsByHotel.forEach((hotelId, deltas) -> {
+            WebSocketNotification notification = roomsNotification(type, message, deltas);
+            for (Channel channel : channels) {
+                entries.add(new NotificationOutbox.Entry(hotelTopic(hotelId, channel), null, null, notification));
+            }
+        });
+        roomsByMaid.forEach((username, deltas) -> {
+            WebSocketNotification notification = roomsNotification(type, message, deltas);
+            for (Channel channel : channels) {
+                entries.add(new NotificationOutbox.Entry("/queue/" + channel.path(), username, null, notification));
+            }
+        });
+        outbox.append(entries);
+    }
+
+    /**
+     * Reparto de habitaciones: cada hotel recibe el conteo de sus mucamas y cada mucama solo el suyo
+     */
+    public void sendDistribution(DistributionResult result, Channel... channels) {
+        Map<Long, Map<Long, Integer>> countsByHotel = new HashMap<>();
+        for (User maid : userRepository.findAllById(result.getRoomsByMaid().keySet())) {
+            int count = result.getRoomsByMaid().get(maid.getId());
+            if (maid.getHotel() != null) {
+                countsByHotel.computeIfAbsent(maid.getHotel().getId(), id -> new HashMap<>()).put(maid.getId(), count);
+            }
+            send(new Audience(Set.of(), Set.of(maid.getUsername())), new WebSocketNotification(
+                    "ROOMS_DISTRIBUTED",
+                    count + " habitaciones asignadas",
+                    Map.of(maid.getId(), count)), channels);
+        }
+        countsByHotel.forEach((hotelId, roomsByMaid) -> send(new Audience(Set.of(hotelId), Set.of()),
+                new WebSocketNotification(
+                        "ROOMS_DISTRIBUTED",
+                        roomsByMaid.values().stream().mapToInt(Integer::intValue).sum()
+                                + " habitaciones repartidas entre " + roomsByMaid.size() + " mucamas",
+                        roomsByMaid), channels));
+    }
+
+    /**
+     * Reinicio de estados de un edificio: su hotel y las mucamas con habitaciones asignadas en él.
+     * Se llama dentro de la transacción del edificio, después de aplicar el cambio en RoomStateStore.
+     * data: { count, buildingId, fromStatus, status, updatedAt } para que el cliente cambie el estado de
+     * las habitaciones del edificio sin volver a pedirlas.
+     */
+    public void sendReset(String type, IntFunction<String> message, Building building, int count,
+                          Room.RoomStatus fromStatus, Room.RoomStatus toStatus, LocalDateTime updatedAt,
+                          Channel... channels) {
+        Set<String> maids = new HashSet<>();
+        for (Room room : roomStateStore.findByBuildingId(building.getId())) {
+            if (room.getAssignedTo() != null && room.getAssignedTo().getUsername() != null) {
+                maids.add(room.getAssignedTo().getUsername());
+            }
+        }
+        Set<Long> hotelIds = building.getHotel() != null ? Set.of(building.getHotel().getId()) : Set.of();
+        send(new Audience(hotelIds, maids),
+                new WebSocketNotification(type, message.apply(count), Map.of("count", count, "buildingId", building.getId(),
+                        "fromStatus", fromStatus, "status", toStatus, "updatedAt", updatedAt)),
+                channels);
+    }
+
+    public static String hotelTopic(Long hotelId, Channel channel) {
+        return "/topic/hotels/" + hotelId + "/" + channel.path();
+    }
+
+    /**
+     * Eventos de una sola entidad (data = EntityDelta, que lleva el estado completo): los de una habitación
+     * se agrupan entre sí (ROOM_UPDATED, ROOM_STATUS_CHANGED, ROOM_REASSIGNED -> queda el último); los de
+     * incidencias solo con repeticiones del mismo tipo. Los avisos de lotes y repartos nunca se agrupan.
+     */
+    static Object coalesceKey(WebSocketNotification notification) {
+        if (!(notification.getData() instanceof EntityDelta delta) || notification.getType() == null) {
+            return null;
+        }
+        return delta.getEntity() == EntityDelta.EntityType.ROOM
+                ? "ROOM:" + delta.getId() : notification.getType() + ":" + delta.getId();
+    }
+
+    private static WebSocketNotification roomsNotification(String type, IntFunction<String> message,
+                                                           List<EntityDelta> rooms) {
+        return new WebSocketNotification(type, message.apply(rooms.size()), Map.of("count", rooms.size(),
+                "roomIds", rooms.stream().map(EntityDelta::getId).toList(), "rooms", rooms));
+    }
+
+    private static Long hotelIdOf(Room room) {
+        return room.getBuilding() != null && room.getBuilding().getHotel() != null
+                ? room.getBuilding().getHotel().getId() : null;
+    }
+}
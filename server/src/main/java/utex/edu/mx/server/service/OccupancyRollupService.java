@@ -0,0 +1,349 @@
+package utex.edu.mx.server.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.dto.DailyRollup;
+import utex.edu.mx.server.dto.OccupancyRollup;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.IncidentRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Conteos de ocupación y limpieza por hotel / edificio / piso / día
+ * - Conteo actual de CLEAN/DIRTY/OCCUPIED e incidencias abiertas por piso (solo memoria)
+ * - Actividad diaria por piso: habitaciones limpiadas, incidencias abiertas y resueltas
+ * RoomStateStore informa cada cambio de habitación (controladores, lote, reparto, reinicio diario, importación)
+ * y IncidentController cada alta, cambio de estado o baja de incidencia.
+ * Las consultas recorren pisos, no habitaciones. La actividad diaria se guarda en floor_daily_stats
+ * en bloque cada minuto y se recarga al iniciar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OccupancyRollupService {
+
+    private static final String UPSERT_DAY_SQL = """
+            INSERT INTO floor_daily_stats
+                (stat_date, building_id, floor, hotel_id, cleaned, incidents_opened, incidents_resolved)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                cleaned = VALUES(cleaned),
+                incidents_opened = VALUES(incidents_opened),
+                incidents_resolved = VALUES(incidents_resolved)
+            """;
+
+    private final IncidentRepository incidentRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${rollups.daily-retention-days:90}")
+    private int retentionDays;
+
+    // Todo el estado se protege con el lock de este servicio
+    private final Map<Long, FloorKey> floorByRoom = new HashMap<>();
+    private final Map<Long, Integer> openIncidentsByRoom = new HashMap<>();
+    private final Map<FloorKey, FloorCounters> floors = new HashMap<>();
+    private final Map<DayKey, DayCounters> days = new HashMap<>();
+    private final Set<DayKey> unsavedDays = new LinkedHashSet<>();
+
+    record FloorKey(Long hotelId, Long buildingId, int floor) {
+    }
+
+    record DayKey(LocalDate day, FloorKey floor) {
+    }
+
+    private static final class FloorCounters {
+        final int[] rooms = new int[Room.RoomStatus.values().length];
+        int openIncidents;
+
+        boolean isEmpty() {
+            return openIncidents == 0 && Arrays.stream(rooms).allMatch(count -> count == 0);
+        }
+    }
+
+    private static final class DayCounters {
+        int cleaned;
+        int incidentsOpened;
+        int incidentsResolved;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<IncidentRepository.RoomCount> openIncidents =
+                incidentRepository.countByStatusGroupByRoom(Incident.IncidentStatus.OPEN);
+        LocalDate since = LocalDate.now().minusDays(retentionDays);
+        List<Map.Entry<DayKey, DayCounters>> savedDays = jdbcTemplate.query("""
+                SELECT stat_date, building_id, floor, hotel_id, cleaned, incidents_opened, incidents_resolved
+                FROM floor_daily_stats WHERE stat_date >= ?
+                """, (rs, rowNum) -> {
+            DayCounters counters = new DayCounters();
+            counters.cleaned = rs.getInt("cleaned");
+            counters.incidentsOpened = rs.getInt("incidents_opened");
+            counters.incidentsResolved = rs.getInt("incidents_resolved");
+            FloorKey floor = new FloorKey(rs.getLong("hotel_id"), rs.getLong("building_id"), rs.getInt("floor"));
+            return Map.entry(new DayKey(rs.getDate("stat_date").toLocalDate(), floor), counters);
+        }, Date.valueOf(since));
+
+        synchronized (this) {
+            openIncidentsByRoom.clear();
+            openIncidents.forEach(row -> openIncidentsByRoom.put(row.getRoomId(), row.getTotal().intValue()));
+            recountOpenIncidents();
+            savedDays.forEach(entry -> days.putIfAbsent(entry.getKey(), entry.getValue()));
+        }
+        log.info("Rollups cargados: {} habitaciones con incidencias abiertas, {} filas diarias",
+                openIncidents.size(), savedDays.size());
+    }
+
+    // ==================== Habitaciones (desde RoomStateStore) ====================
+
+    /**
+     * Recalcula los conteos de habitaciones a partir del estado completo del store
+     */
+    public synchronized void rebuildRooms(Collection<Room> rooms) {
+        floorByRoom.clear();
+        floors.clear();
+        for (Room room : rooms) {
+            FloorKey key = keyOf(room);
+            if (key != null) {
+                floorByRoom.put(room.getId(), key);
+                countRoom(key, room.getStatus(), 1);
+            }
+        }
+        recountOpenIncidents();
+    }
+
+    /**
+     * Aplica el reemplazo de una habitación (previous o current pueden ser null en altas y bajas)
+     */
+    public synchronized void roomChanged(Room previous, Room current) {
+        Long roomId = previous != null ? previous.getId() : current != null ? current.getId() : null;
+        if (roomId == null) {
+            return;
+        }
+        FloorKey previousKey = previous == null ? null : floorByRoom.remove(previous.getId());
+        if (previousKey != null) {
+            countRoom(previousKey, previous.getStatus(), -1);
+        }
+        FloorKey currentKey = current == null ? null : keyOf(current);
+        if (currentKey != null) {
+            floorByRoom.put(current.getId(), currentKey);
+            countRoom(currentKey, current.getStatus(), 1);
+            if (previous != null && previous.getStatus() != Room.RoomStatus.CLEAN
+                    && current.getStatus() == Room.RoomStatus.CLEAN) {
+                today(currentKey).cleaned++;
+            }
+        }
+
+        // Las incidencias abiertas siguen a la habitación si cambia de piso; se descartan si se elimina
+        int open = openIncidentsByRoom.getOrDefault(roomId, 0);
+        if (open > 0 && !Objects.equals(previousKey, currentKey)) {
+            if (previousKey != null) {
+                floor(previousKey).openIncidents -= open;
+            }
+            if (currentKey != null) {
+                floor(currentKey).openIncidents += open;
+            } else {
+                openIncidentsByRoom.remove(roomId);
+            }
+        }
+    }
+
+    /**
+     * Cambio de estado de una habitación ya indexada (UPDATE masivo del reinicio diario)
+     */
+    public synchronized void statusChanged(Long roomId, Room.RoomStatus from, Room.RoomStatus to) {
+        FloorKey key = floorByRoom.get(roomId);
+        if (key == null) {
+            return;
+        }
+        countRoom(key, from, -1);
+        countRoom(key, to, 1);
+        if (from != Room.RoomStatus.CLEAN && to == Room.RoomStatus.CLEAN) {
+            today(key).cleaned++;
+        }
+    }
+
+    // ==================== Incidencias (desde IncidentController) ====================
+
+    /**
+     * Registra el cambio de estado de una incidencia cuando la transacción actual confirme
+     * (previous null = alta, current null = baja)
+     */
+    public void incidentChanged(Long roomId, Incident.IncidentStatus previous, Incident.IncidentStatus current) {
+        if (roomId == null || previous == current) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> applyIncidentChange(roomId, previous, current));
+    }
+
+    private synchronized void applyIncidentChange(Long roomId, Incident.IncidentStatus previous,
+                                                  Incident.IncidentStatus current) {
+        int delta = (current == Incident.IncidentStatus.OPEN ? 1 : 0)
+                - (previous == Incident.IncidentStatus.OPEN ? 1 : 0);
+        if (delta != 0) {
+            openIncidentsByRoom.compute(roomId, (id, open) -> {
+                int total = (open == null ? 0 : open) + delta;
+                return total > 0 ? total : null;
+            });
+        }
+        FloorKey key = floorByRoom.get(roomId);
+        if (key == null) {
+            return;
+        }
+        floor(key).openIncidents += delta;
+        if (current == Incident.IncidentStatus.OPEN) {
+            today(key).incidentsOpened++;
+        } else if (current == Incident.IncidentStatus.RESOLVED && previous == Incident.IncidentStatus.OPEN) {
+            today(key).incidentsResolved++;
+        }
+    }
+
+    // ==================== Lecturas ====================
+
+    /**
+     * Conteos actuales por edificio con el detalle de cada piso
+     */
+    public synchronized List<OccupancyRollup> getOccupancy(Long hotelId) {
+        LocalDate today = LocalDate.now();
+        Map<Long, OccupancyRollup> buildings = new TreeMap<>();
+        floors.entrySet().stream()
+                .filter(entry -> hotelId == null || hotelId.equals(entry.getKey().hotelId()))
+                .filter(entry -> !entry.getValue().isEmpty())
+                .sorted(Comparator.comparingInt(entry -> entry.getKey().floor()))
+                .forEach(entry -> {
+                    FloorKey key = entry.getKey();
+                    FloorCounters counters = entry.getValue();
+                    DayCounters day = days.get(new DayKey(today, key));
+                    OccupancyRollup.Floor floor = new OccupancyRollup.Floor(
+                            key.floor(),
+                            counters.rooms[Room.RoomStatus.CLEAN.ordinal()],
+                            counters.rooms[Room.RoomStatus.DIRTY.ordinal()],
+                            counters.rooms[Room.RoomStatus.OCCUPIED.ordinal()],
+                            counters.openIncidents,
+                            day == null ? 0 : day.cleaned);
+
+                    OccupancyRollup building = buildings.computeIfAbsent(key.buildingId(),
+                            id -> new OccupancyRollup(key.hotelId(), id, 0, 0, 0, 0, 0, new ArrayList<>()));
+                    building.setClean(building.getClean() + floor.getClean());
+                    building.setDirty(building.getDirty() + floor.getDirty());
+                    building.setOccupied(building.getOccupied() + floor.getOccupied());
+                    building.setOpenIncidents(building.getOpenIncidents() + floor.getOpenIncidents());
+                    building.setCleanedToday(building.getCleanedToday() + floor.getCleanedToday());
+                    building.getFloors().add(floor);
+                });
+        return new ArrayList<>(buildings.values());
+    }
+
+    /**
+     * Actividad diaria por piso en el rango [from, to] (ambos inclusive)
+     */
+    public synchronized List<DailyRollup> getDaily(Long hotelId, Long buildingId, LocalDate from, LocalDate to) {
+        return days.entrySet().stream()
+                .filter(entry -> !entry.getKey().day().isBefore(from) && !entry.getKey().day().isAfter(to))
+                .filter(entry -> hotelId == null || hotelId.equals(entry.getKey().floor().hotelId()))
+                .filter(entry -> buildingId == null || buildingId.equals(entry.getKey().floor().buildingId()))
+                .map(entry -> {
+                    DayKey key = entry.getKey();
+                    DayCounters counters = entry.getValue();
+                    return new DailyRollup(key.day(), key.floor().hotelId(), key.floor().buildingId(),
+                            key.floor().floor(), counters.cleaned, counters.incidentsOpened,
+                            counters.incidentsResolved);
+                })
+                .sorted(Comparator.comparing(DailyRollup::getDay)
+                        .thenComparing(DailyRollup::getBuildingId)
+                        .thenComparingInt(DailyRollup::getFloor))
+                .toList();
+    }
+
+    // ==================== Persistencia diaria ====================
+
+    /**
+     * Guarda los contadores diarios modificados desde la última escritura y
+     * descarta de memoria los días fuera de la retención (la tabla conserva el histórico)
+     */
+    @Scheduled(fixedDelayString = "${rollups.flush-interval-ms:60000}")
+    @PreDestroy
+    public void flush() {
+        List<Object[]> rows = new ArrayList<>();
+        List<DayKey> keys;
+        synchronized (this) {
+            keys = new ArrayList<>(unsavedDays);
+            unsavedDays.clear();
+            for (DayKey key : keys) {
+                DayCounters counters = days.get(key);
+                rows.add(new Object[]{
+                        Date.valueOf(key.day()), key.floor().buildingId(), key.floor().floor(), key.floor().hotelId(),
+                        counters.cleaned, counters.incidentsOpened, counters.incidentsResolved});
+            }
+            LocalDate oldest = LocalDate.now().minusDays(retentionDays);
+            days.keySet().removeIf(key -> key.day().isBefore(oldest) && !unsavedDays.contains(key));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_DAY_SQL, rows);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                unsavedDays.addAll(keys);
+            }
+            log.error("No se pudieron guardar {} filas de floor_daily_stats: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    // ==================== Internos ====================
+
+    private static FloorKey keyOf(Room room) {
+        if (room.getBuilding() == null || room.getBuilding().getHotel() == null) {
+            return null;
+        }
+        int floor = room.getFloor() == null ? 0 : room.getFloor();
+        return new FloorKey(room.getBuilding().getHotel().getId(), room.getBuilding().getId(), floor);
+    }
+
+    private void countRoom(FloorKey key, Room.RoomStatus status, int delta) {
+        if (status != null) {
+            floor(key).rooms[status.ordinal()] += delta;
+        }
+    }
+
+    private void recountOpenIncidents() {
+        floors.values().forEach(counters -> counters.openIncidents = 0);
+        openIncidentsByRoom.forEach((roomId, open) -> {
+            FloorKey key = floorByRoom.get(roomId);
+            if (key != null) {
+                floor(key).openIncidents += open;
+            }
+        });
+    }
+
+    private FloorCounters floor(FloorKey key) {
+        return floors.computeIfAbsent(key, k -> new FloorCounters());
+    }
+
+    private DayCounters today(FloorKey floor) {
+        DayKey key = new DayKey(LocalDate.now(), floor);
+        unsavedDays.add(key);
+        return days.computeIfAbsent(key, k -> new DayCounters());
+    }
+}
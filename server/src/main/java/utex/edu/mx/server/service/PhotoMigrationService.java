@@ -0,0 +1,83 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import utex.edu.mx.server.model.ChangeLogEntry;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Migra las fotos en base64 guardadas en incidents.photos al almacén en disco (PhotoStorageService)
+ * - Recorre las incidencias por id en bloques pequeños (no carga todas las fotos a la vez)
+ * - Reemplaza cada arreglo por el de claves SHA-256; es idempotente y se ejecuta al iniciar
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoMigrationService {
+
+    private static final int CHUNK_SIZE = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PhotoStorageService photoStorage;
+    private final ChangeFeedService changeFeedService;
+    private final ResponseCacheService responseCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${photos.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrateInlinePhotos();
+        }
+    }
+
+    /**
+     * @return número de incidencias migradas
+     */
+    public int migrateInlinePhotos() {
+        int migrated = 0;
+        int failed = 0;
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                    SELECT id, photos FROM incidents
+                    WHERE id > ? AND photos LIKE '%data:%'
+                    ORDER BY id LIMIT ?
+                    """, lastId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : rows) {
+                lastId = ((Number) row.get("id")).longValue();
+                try {
+                    String keys = photoStorage.normalizeReferences((String) row.get("photos"));
+                    long incidentId = lastId;
+                    // La fila de change_log se confirma junto con las fotos
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update("UPDATE incidents SET photos = ?, version = version + 1 WHERE id = ?", keys, incidentId);
+                        changeFeedService.recordIncident(incidentId, ChangeLogEntry.Operation.UPSERT);
+                    });
+                    migrated++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.error("No se pudieron migrar las fotos de la incidencia {}: {}", lastId, e.getMessage());
+                }
+            }
+        }
+        if (migrated > 0 || failed > 0) {
+            responseCache.invalidate(ResponseCacheService.Collection.INCIDENTS);
+            log.info("Fotos migradas a disco: {} incidencias ({} con error)", migrated, failed);
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,253 @@
+package utex.edu.mx.server.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.dto.WebSocketNotification;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Procesamiento de fotos en segundo plano
+ * - Por cada foto genera una miniatura y una versión de tamaño limitado, ambas JPEG re-codificadas
+ *   (la re-codificación descarta EXIF/GPS y demás metadatos)
+ * - Corre en un pool acotado (photos.processing-threads, cola photos.processing-queue); el hilo
+ *   de la petición solo encola
+ * - Al terminar las fotos de una incidencia publica INCIDENT_MEDIA_READY a su hotel y a quien la reportó
+ * - Antes de decodificar lee solo el encabezado: las imágenes de más de photos.max-pixels no se
+ *   decodifican (un PNG pequeño puede declarar dimensiones que agotan la memoria)
+ * Mientras una variante no exista, GET /api/photos/{key}/thumbnail responde con la original
+ * y encola su generación (requestVariants).
+ */
+@Service
+@Slf4j
+public class PhotoProcessingService {
+
+    public enum Variant {
+        THUMBNAIL("thumbnail", 320, 0.75f),
+        DISPLAY("display", 1280, 0.82f);
+
+        private final String suffix;
+        private final int maxDimension;
+        private final float quality;
+
+        Variant(String suffix, int maxDimension, float quality) {
+            this.suffix = suffix;
+            this.maxDimension = maxDimension;
+            this.quality = quality;
+        }
+
+        public String suffix() {
+            return suffix;
+        }
+    }
+
+    private final PhotoStorageService photoStorage;
+    private final NotificationService notificationService;
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+
+    public PhotoProcessingService(PhotoStorageService photoStorage,
+                                  NotificationService notificationService,
+                                  @Value("${photos.processing-threads:2}") int threads,
+                                  @Value("${photos.processing-queue:200}") int queueCapacity,
+                                  @Value("${photos.max-pixels:40000000}") long maxPixels) {
+        this.photoStorage = photoStorage;
+        this.notificationService = notificationService;
+        this.maxPixels = maxPixels;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "photo-processing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Encola el procesamiento de las fotos de una incidencia cuando la transacción actual confirme.
+     * Si la cola está llena se descarta: las variantes faltantes se sirven con la foto original.
+     */
+    public void processAfterCommit(Long incidentId, List<String> keys, NotificationService.Audience audience) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            try {
+                executor.execute(() -> processIncident(incidentId, keys, audience));
+            } catch (RejectedExecutionException e) {
+                log.warn("Cola de procesamiento de fotos llena; incidencia {} sin variantes", incidentId);
+            }
+        });
+    }
+
+    /**
+     * Encola la generación de variantes de una foto que aún no las tiene (fotos migradas desde base64
+     * o descartadas por cola llena). Se llama al servir una variante faltante; no bloquea.
+     */
+    public void requestVariants(String key) {
+        if (!pendingKeys.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    processPhoto(key);
+                } catch (IOException | RuntimeException e) {
+                    log.error("No se pudo procesar la foto {}: {}", key, e.getMessage());
+                } finally {
+                    pendingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingKeys.remove(key);
+        }
+    }
+
+    void processIncident(Long incidentId, List<String> keys, NotificationService.Audience audience) {
+        List<String> thumbnails = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            try {
+                if (processPhoto(key)) {
+                    thumbnails.add("/api/photos/" + key + "/" + Variant.THUMBNAIL.suffix());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("No se pudo procesar la foto {} de la incidencia {}: {}", key, incidentId, e.getMessage());
+            }
+        }
+
+        // Va al outbox: un fallo al publicar se reintenta desde ahí
+        WebSocketNotification notification = new WebSocketNotification(
+            "INCIDENT_MEDIA_READY",
+            "Fotos de la incidencia " + incidentId + " listas",
+            Map.of("incidentId", incidentId, "thumbnailUrls", thumbnails)
+        );
+        notificationService.send(audience, notification, NotificationService.Channel.INCIDENTS);
+    }
+
+    /**
+     * Genera las variantes que falten de una foto
+     * @return false si la foto no existe, su formato no se puede decodificar (p. ej. WebP)
+     *         o excede photos.max-pixels
+     */
+    boolean processPhoto(String key) throws IOException {
+        Path original = photoStorage.find(key).orElse(null);
+        if (original == null) {
+            return false;
+        }
+        if (photoStorage.findVariant(key, Variant.THUMBNAIL.suffix()).isPresent()
+                && photoStorage.findVariant(key, Variant.DISPLAY.suffix()).isPresent()) {
+            return true;
+        }
+
+        BufferedImage image = decode(key, original);
+        if (image == null) {
+            return false;
+        }
+        for (Variant variant : Variant.values()) {
+            if (photoStorage.findVariant(key, variant.suffix()).isEmpty()) {
+                writeVariant(key, variant, image);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodifica la foto solo si sus dimensiones declaradas caben en photos.max-pixels
+     */
+    private BufferedImage decode(String key, Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Foto {} sin variantes: {}x{} excede el límite de {} píxeles",
+                            key, reader.getWidth(0), reader.getHeight(0), maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void writeVariant(String key, Variant variant, BufferedImage image) throws IOException {
+        BufferedImage scaled = scaleToRgb(image, variant.maxDimension);
+        Path tmp = photoStorage.createTempFile();
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(tmp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(variant.quality);
+                writer.write(null, new IIOImage(scaled, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            photoStorage.saveVariant(key, variant.suffix(), tmp);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reduce manteniendo la proporción (nunca amplía) y aplana la transparencia sobre blanco
+     */
+    private static BufferedImage scaleToRgb(BufferedImage image, int maxDimension) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
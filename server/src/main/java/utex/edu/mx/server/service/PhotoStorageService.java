@@ -0,0 +1,216 @@
+package utex.edu.mx.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de fotos en disco direccionado por contenido
+ * - La clave de cada foto es el SHA-256 de sus bytes: la misma imagen se guarda una sola vez
+ * - Ruta: {photos.storage-dir}/ab/cd/abcd...; se escribe en tmp/ y se mueve de forma atómica
+ * - Incident.photos guarda solo el arreglo JSON de claves
+ * - Variantes derivadas (miniatura, tamaño limitado) en variants/ab/{clave}-{variante}.jpg
+ * Las fotos antiguas en base64 (data:image/...;base64,...) se convierten con normalizeReferences.
+ */
+@Service
+@Slf4j
+public class PhotoStorageService {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int SNIFF_BYTES = 12;
+
+    private final Path root;
+    private final Path tmpDir;
+    private final ObjectMapper objectMapper;
+
+    public record StoredPhoto(String key, long size, String contentType) {
+    }
+
+    public PhotoStorageService(@Value("${photos.storage-dir:data/photos}") String storageDir,
+                               ObjectMapper objectMapper) throws IOException {
+        this.root = Paths.get(storageDir).toAbsolutePath().normalize();
+        this.tmpDir = root.resolve("tmp");
+        this.objectMapper = objectMapper;
+        Files.createDirectories(tmpDir);
+    }
+
+    public static boolean isKey(String value) {
+        return value != null && KEY_PATTERN.matcher(value).matches();
+    }
+
+    /**
+     * Guarda el contenido del stream (sin cargarlo completo en memoria) y devuelve su clave.
+     * Solo acepta JPEG, PNG, GIF y WebP.
+     */
+    public StoredPhoto store(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input);
+        buffered.mark(SNIFF_BYTES);
+        String contentType = sniffContentType(buffered.readNBytes(SNIFF_BYTES));
+        buffered.reset();
+        if (contentType == null) {
+            throw new IllegalArgumentException("Formato de imagen no soportado (JPEG, PNG, GIF o WebP)");
+        }
+
+        MessageDigest digest = sha256();
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            long size;
+            try (InputStream digesting = new DigestInputStream(buffered, digest)) {
+                size = Files.copy(digesting, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(key);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Otra petición guardó la misma foto al mismo tiempo
+                }
+            }
+            return new StoredPhoto(key, size, contentType);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Guarda una foto en base64, con o sin prefijo data:image/...;base64,
+     */
+    public StoredPhoto storeBase64(String encoded) throws IOException {
+        int comma = encoded.startsWith("data:") ? encoded.indexOf(',') : -1;
+        byte[] ascii = encoded.substring(comma + 1).getBytes(StandardCharsets.US_ASCII);
+        try (InputStream decoded = Base64.getMimeDecoder().wrap(new ByteArrayInputStream(ascii))) {
+            return store(decoded);
+        }
+    }
+
+    /**
+     * Convierte el arreglo JSON de Incident.photos a solo claves: las fotos en base64 se guardan
+     * en disco y se reemplazan por su clave. Devuelve el mismo texto si no hay nada que convertir.
+     */
+    public String normalizeReferences(String photosJson) {
+        if (photosJson == null || photosJson.isBlank()) {
+            return photosJson;
+        }
+        List<String> entries;
+        try {
+            entries = List.of(objectMapper.readValue(photosJson, String[].class));
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("photos debe ser un arreglo JSON de textos");
+        }
+        if (entries.stream().allMatch(PhotoStorageService::isKey)) {
+            return photosJson;
+        }
+
+        List<String> keys = new ArrayList<>(entries.size());
+        for (String entry : entries) {
+            if (entry == null || entry.isBlank()) {
+                continue;
+            }
+            try {
+                keys.add(isKey(entry) ? entry : storeBase64(entry).key());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return objectMapper.writeValueAsString(keys);
+    }
+
+    public Optional<Path> find(String key) {
+        if (!isKey(key)) {
+            return Optional.empty();
+        }
+        Path path = pathOf(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public Optional<Path> findVariant(String key, String variant) {
+        if (!isKey(key)) {
+            return Optional.empty();
+        }
+        Path path = variantPathOf(key, variant);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Archivo temporal dentro del almacén (mismo sistema de archivos, para moverlo de forma atómica)
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(tmpDir, "variant-", ".part");
+    }
+
+    /**
+     * Publica una variante ya escrita en un archivo temporal de createTempFile()
+     */
+    public void saveVariant(String key, String variant, Path tmp) throws IOException {
+        Path target = variantPathOf(key, variant);
+        Files.createDirectories(target.getParent());
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public String contentTypeOf(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            String contentType = sniffContentType(input.readNBytes(SNIFF_BYTES));
+            return contentType != null ? contentType : "application/octet-stream";
+        }
+    }
+
+    // ==================== Internos ====================
+
+    private Path pathOf(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private Path variantPathOf(String key, String variant) {
+        return root.resolve("variants").resolve(key.substring(0, 2)).resolve(key + "-" + variant + ".jpg");
+    }
+
+    private static String sniffContentType(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (header.length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "image/png";
+        }
+        if (header.length >= 4 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "image/gif";
+        }
+        if (header.length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
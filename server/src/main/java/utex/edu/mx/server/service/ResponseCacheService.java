@@ -0,0 +1,125 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache de respuestas JSON ya serializadas con ETag por colección
+ * - Cada colección (habitaciones, incidencias) tiene un contador de versión
+ * - El ETag se deriva de la versión; If-None-Match coincidente responde 304 sin consultar ni serializar
+ * - Las escrituras invalidan la colección al confirmar la transacción
+ */
+@Service
+@RequiredArgsConstructor
+public class ResponseCacheService {
+
+    public enum Collection {
+        ROOMS, INCIDENTS
+    }
+
+    private static final int MAX_ENTRIES_PER_COLLECTION = 512;
+
+    // Distingue ETags de ejecuciones anteriores (los contadores reinician al arrancar)
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<Collection, AtomicLong> versions = new EnumMap<>(Collection.class);
+    private final Map<Collection, Map<String, CachedBody>> bodies = new EnumMap<>(Collection.class);
+
+    {
+        for (Collection collection : Collection.values()) {
+            versions.put(collection, new AtomicLong());
+            bodies.put(collection, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Responde una lista de la colección usando el cache.
+     *
+     * @param key         identifica el filtro dentro de la colección (p. ej. "status:CLEAN")
+     * @param ifNoneMatch valor del header If-None-Match (puede ser null)
+     * @param loader      consulta a ejecutar solo si no hay respuesta vigente en cache
+     */
+    public ResponseEntity<byte[]> respond(Collection collection, String key, String ifNoneMatch, Supplier<?> loader) {
+        long version = versions.get(collection).get();
+        String etag = etag(collection, version);
+
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        Map<String, CachedBody> cache = bodies.get(collection);
+        CachedBody cached = cache.get(key);
+        byte[] body;
+        if (cached != null && cached.version() == version) {
+            body = cached.json();
+        } else {
+            body = objectMapper.writeValueAsBytes(loader.get());
+            // Solo guardar si nadie invalidó la colección mientras se consultaba
+            if (versions.get(collection).get() == version && cache.size() < MAX_ENTRIES_PER_COLLECTION) {
+                cache.put(key, new CachedBody(version, body));
+            }
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Invalida las colecciones indicadas de inmediato
+     */
+    public void invalidate(Collection... collections) {
+        for (Collection collection : collections) {
+            versions.get(collection).incrementAndGet();
+            bodies.get(collection).clear();
+        }
+    }
+
+    /**
+     * Invalida las colecciones indicadas cuando la transacción actual confirme
+     */
+    public void invalidateAfterCommit(Collection... collections) {
+        TransactionCallbacks.afterCommit(() -> invalidate(collections));
+    }
+
+    private static String etag(Collection collection, long version) {
+        return "\"" + collection.name().toLowerCase() + "-" + EPOCH + "-" + version + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record CachedBody(long version, byte[] json) {
+    }
+}
@@ -0,0 +1,68 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.dto.DistributionResult;
+import utex.edu.mx.server.dto.RoomBatchRequest;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Reparto automático de habitaciones DIRTY entre las mucamas activas
+ * El plan se calcula en memoria (RoomStateStore + WorkloadBalancer) y se aplica con un solo
+ * lote de RoomBatchService (una transacción, UPDATE en batch JDBC)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomAssignmentService {
+
+    private final RoomStateStore roomStateStore;
+    private final UserRepository userRepository;
+    private final RoomBatchService roomBatchService;
+
+    /**
+     * @param hotelId limitar el reparto a un hotel (null = todos)
+     */
+    public DistributionResult distributeDirtyRooms(Long hotelId) {
+        long start = System.nanoTime();
+
+        List<Room> dirtyRooms = roomStateStore.findByStatus(Room.RoomStatus.DIRTY).stream()
+                .filter(room -> hotelId == null || hotelId.equals(room.getBuilding().getHotel().getId()))
+                .toList();
+        List<User> maids = new ArrayList<>(userRepository.findByRoleAndActive(User.Role.MAID, true));
+
+        Map<Long, Long> plan = WorkloadBalancer.plan(dirtyRooms, maids);
+
+        // Solo se escriben las habitaciones cuya mucama cambia
+        List<RoomBatchRequest.Change> changes = new ArrayList<>();
+        Map<Long, Integer> roomsByMaid = new TreeMap<>();
+        for (Room room : dirtyRooms) {
+            Long maidId = plan.get(room.getId());
+            if (maidId == null) {
+                continue;
+            }
+            roomsByMaid.merge(maidId, 1, Integer::sum);
+            Long currentMaidId = room.getAssignedTo() != null ? room.getAssignedTo().getId() : null;
+            if (!Objects.equals(currentMaidId, maidId)) {
+                changes.add(new RoomBatchRequest.Change(room.getId(), null, maidId, false));
+            }
+        }
+
+        if (!changes.isEmpty()) {
+            roomBatchService.applyChanges(changes);
+        }
+
+        log.info("🧹 Reparto de habitaciones: {} DIRTY, {} reasignadas entre {} mucamas en {} ms",
+                dirtyRooms.size(), changes.size(), roomsByMaid.size(), (System.nanoTime() - start) / 1_000_000);
+        return new DistributionResult(dirtyRooms.size(), changes.size(), dirtyRooms.size() - plan.size(), roomsByMaid);
+    }
+}
@@ -0,0 +1,113 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import utex.edu.mx.server.dto.RoomBatchRequest;
+import utex.edu.mx.server.model.ChangeLogEntry;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Aplica cambios de estado y asignación de muchas habitaciones en una sola transacción.
+ * Las habitaciones y mucamas se cargan con una consulta cada una y los UPDATE se envían
+ * en lotes JDBC (hibernate.jdbc.batch_size) al confirmar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomBatchService {
+
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final RoomStateStore roomStateStore;
+    private final ChangeFeedService changeFeedService;
+
+    /**
+     * @return habitaciones actualizadas (sin duplicados), en el orden de los cambios recibidos
+     * @throws IllegalArgumentException si el lote es inválido; no se aplica ningún cambio
+     */
+    @Transactional
+    public List<Room> applyChanges(List<RoomBatchRequest.Change> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("El lote no contiene cambios");
+        }
+
+        Set<Long> roomIds = changes.stream()
+                .map(RoomBatchRequest.Change::getRoomId)
+                .collect(Collectors.toSet());
+        if (roomIds.contains(null)) {
+            throw new IllegalArgumentException("Cada cambio requiere roomId");
+        }
+
+        Map<Long, Room> rooms = roomRepository.findAllByIdWithAssociations(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+        Map<Long, User> maids = loadMaids(changes);
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Room> updated = new LinkedHashMap<>();
+        for (RoomBatchRequest.Change change : changes) {
+            Room room = rooms.get(change.getRoomId());
+            if (room == null) {
+                throw new IllegalArgumentException("Habitación no encontrada: " + change.getRoomId());
+            }
+
+            if (change.getStatus() != null) {
+                room.setStatus(change.getStatus());
+            }
+            if (change.isUnassign()) {
+                room.setAssignedTo(null);
+                room.setAssignedAt(null);
+            } else if (change.getMaidId() != null) {
+                room.setAssignedTo(maids.get(change.getMaidId()));
+                room.setAssignedAt(now);
+            }
+            room.setUpdatedAt(now);
+            updated.put(room.getId(), room);
+        }
+        // Los UPDATE salen ahora: las habitaciones devueltas (y sus deltas) llevan la versión nueva
+        roomRepository.flush();
+        roomStateStore.putAll(updated.values());
+        changeFeedService.recordRooms(updated.keySet(), ChangeLogEntry.Operation.UPSERT);
+
+        log.info("Lote de habitaciones aplicado: {} cambios sobre {} habitaciones", changes.size(), rooms.size());
+        return new ArrayList<>(updated.values());
+    }
+
+    /**
+     * Valida todas las mucamas referenciadas en el lote con una sola consulta
+     */
+    private Map<Long, User> loadMaids(List<RoomBatchRequest.Change> changes) {
+        Set<Long> maidIds = changes.stream()
+                .filter(change -> !change.isUnassign())
+                .map(RoomBatchRequest.Change::getMaidId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (maidIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Long, User> maids = userRepository.findAllById(maidIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        for (Long maidId : maidIds) {
+            User maid = maids.get(maidId);
+            if (maid == null || maid.getRole() != User.Role.MAID) {
+                throw new IllegalArgumentException("Mucama no encontrada: " + maidId);
+            }
+        }
+        return maids;
+    }
+}
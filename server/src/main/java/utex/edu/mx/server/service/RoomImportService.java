@@ -0,0 +1,344 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+import utex.edu.mx.server.dto.ImportResult;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.ChangeLogEntry;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Importación masiva de hoteles, edificios y habitaciones
+ * - Lee el cuerpo línea por línea (CSV o JSON lines) sin cargar el archivo completo en memoria
+ * - Hoteles y edificios se crean la primera vez que aparecen (por nombre)
+ * - Las habitaciones se insertan con JdbcTemplate.batchUpdate en bloques de CHUNK_SIZE,
+ *   cada bloque en su propia transacción (el id IDENTITY impide el batch de inserts de Hibernate)
+ * - Cada bloque registra sus habitaciones en change_log dentro de su transacción; al terminar solo
+ *   las habitaciones importadas se agregan a RoomStateStore (no se recarga el estado completo)
+ * Formato CSV: hotel,building,floor,number[,status]  (encabezado opcional)
+ * Formato JSON lines: {"hotel":"...","building":"...","floor":1,"number":"101","status":"DIRTY"}
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomImportService {
+
+    public static final int CHUNK_SIZE = 500;
+    private static final int MAX_ERRORS = 100;
+
+    private static final String INSERT_ROOM_SQL = """
+            INSERT INTO rooms (number, floor, status, building_id, active, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    public enum Format {
+        CSV, JSON_LINES
+    }
+
+    private final HotelRepository hotelRepository;
+    private final BuildingRepository buildingRepository;
+    private final RoomRepository roomRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomStateStore roomStateStore;
+    private final ChangeFeedService changeFeedService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<ImportJob> lastJob = new AtomicReference<>();
+
+    /**
+     * Importa las habitaciones del stream. Solo se permite una importación a la vez.
+     *
+     * @throws IllegalStateException si ya hay una importación en curso
+     */
+    public ImportResult importRooms(InputStream input, Format format) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una importación en curso");
+        }
+        ImportJob job = new ImportJob();
+        lastJob.set(job);
+        try {
+            run(input, format, job);
+        } finally {
+            job.finish();
+            running.set(false);
+        }
+        log.info("📦 Importación finalizada: {} líneas, {} habitaciones, {} hoteles y {} edificios nuevos en {} ms",
+                job.linesRead.get(), job.roomsInserted.get(), job.hotelsCreated, job.buildingsCreated, job.elapsedMs());
+        return job.toResult();
+    }
+
+    /**
+     * Progreso de la importación en curso (o resultado de la última)
+     */
+    public ImportResult getProgress() {
+        ImportJob job = lastJob.get();
+        return job == null ? null : job.toResult();
+    }
+
+    private void run(InputStream input, Format format, ImportJob job) throws IOException {
+        Timestamp startedAt = Timestamp.valueOf(LocalDateTime.now().withNano(0));
+        Map<String, Hotel> hotels = new HashMap<>();
+        Map<String, Building> buildings = new HashMap<>();
+        Map<Long, Integer> maxFloorByCreatedBuilding = new HashMap<>();
+        List<Object[]> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Long> insertedIds = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            job.linesRead.incrementAndGet();
+
+            Row row;
+            try {
+                row = format == Format.CSV ? parseCsv(line) : parseJson(line);
+                if (row == null) {
+                    continue; // encabezado CSV
+                }
+                validate(row);
+            } catch (IllegalArgumentException | JacksonException e) {
+                job.addError("Línea " + lineNumber + ": " + e.getMessage());
+                continue;
+            }
+
+            Building building = resolveBuilding(row, hotels, buildings, maxFloorByCreatedBuilding, job);
+            maxFloorByCreatedBuilding.computeIfPresent(building.getId(), (id, max) -> Math.max(max, row.floor()));
+
+            chunk.add(new Object[]{
+                row.number().trim(), row.floor(), parseStatus(row.status()).name(), building.getId(),
+                true, startedAt, startedAt
+            });
+            if (chunk.size() == CHUNK_SIZE) {
+                flush(chunk, insertedIds, job);
+            }
+        }
+        flush(chunk, insertedIds, job);
+
+        // Edificios creados: número de pisos según las habitaciones importadas
+        maxFloorByCreatedBuilding.forEach((buildingId, maxFloor) -> buildingRepository.findById(buildingId)
+                .ifPresent(building -> {
+                    building.setFloors(maxFloor);
+                    buildingRepository.save(building);
+                }));
+
+        // Ya con los pisos de los edificios creados: agregar al estado en memoria solo lo importado
+        for (int from = 0; from < insertedIds.size(); from += CHUNK_SIZE) {
+            List<Long> ids = insertedIds.subList(from, Math.min(from + CHUNK_SIZE, insertedIds.size()));
+            roomStateStore.putAll(roomRepository.findAllByIdWithAssociations(ids));
+        }
+    }
+
+    private void flush(List<Object[]> chunk, List<Long> insertedIds, ImportJob job) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<Long> ids = transactionTemplate.execute(status -> {
+            List<Long> chunkIds = insertChunk(chunk);
+            changeFeedService.recordRooms(chunkIds, ChangeLogEntry.Operation.UPSERT);
+            return chunkIds;
+        });
+        insertedIds.addAll(ids);
+        job.roomsInserted.addAndGet(chunk.size());
+        log.debug("Importación: {} habitaciones insertadas", job.roomsInserted.get());
+        chunk.clear();
+    }
+
+    private List<Long> insertChunk(List<Object[]> chunk) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_ROOM_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Object[] values = chunk.get(i);
+                        for (int column = 0; column < values.length; column++) {
+                            ps.setObject(column + 1, values[column]);
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return chunk.size();
+                    }
+                }, keyHolder);
+        return keyHolder.getKeyList().stream()
+                .map(keys -> ((Number) keys.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    private Building resolveBuilding(Row row, Map<String, Hotel> hotels, Map<String, Building> buildings,
+                                     Map<Long, Integer> maxFloorByCreatedBuilding, ImportJob job) {
+        String hotelName = row.hotel().trim();
+        String buildingName = row.building().trim();
+
+        Hotel hotel = hotels.computeIfAbsent(hotelName, name -> hotelRepository.findByName(name)
+                .orElseGet(() -> {
+                    Hotel created = new Hotel();
+                    created.setName(name);
+                    created.setActive(true);
+                    job.hotelsCreated++;
+                    return hotelRepository.save(created);
+                }));
+
+        return buildings.computeIfAbsent(hotelName + "\u0000" + buildingName,
+                key -> buildingRepository.findByHotelIdAndName(hotel.getId(), buildingName)
+                        .orElseGet(() -> {
+                            Building created = new Building();
+                            created.setName(buildingName);
+                            created.setHotel(hotel);
+                            created.setActive(true);
+                            created = buildingRepository.save(created);
+                            maxFloorByCreatedBuilding.put(created.getId(), 0);
+                            job.buildingsCreated++;
+                            return created;
+                        }));
+    }
+
+    // ==================== Parsing ====================
+
+    record Row(String hotel, String building, Integer floor, String number, String status) {
+    }
+
+    private Row parseJson(String line) {
+        return objectMapper.readValue(line, Row.class);
+    }
+
+    private static Row parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.get(0).trim().equalsIgnoreCase("hotel")) {
+            return null;
+        }
+        if (fields.size() < 4) {
+            throw new IllegalArgumentException("se esperaban al menos 4 columnas (hotel,building,floor,number)");
+        }
+        Integer floor;
+        try {
+            floor = Integer.valueOf(fields.get(2).trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("piso inválido: " + fields.get(2));
+        }
+        String status = fields.size() > 4 ? fields.get(4) : null;
+        return new Row(fields.get(0), fields.get(1), floor, fields.get(3), status);
+    }
+
+    /**
+     * Separa una línea CSV respetando campos entre comillas ("a, b" y comillas escapadas "")
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static void validate(Row row) {
+        if (isBlank(row.hotel()) || isBlank(row.building()) || isBlank(row.number()) || row.floor() == null) {
+            throw new IllegalArgumentException("hotel, building, floor y number son requeridos");
+        }
+        parseStatus(row.status());
+    }
+
+    private static Room.RoomStatus parseStatus(String status) {
+        if (isBlank(status)) {
+            return Room.RoomStatus.DIRTY;
+        }
+        try {
+            return Room.RoomStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("estado inválido: " + status);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static class ImportJob {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong linesRead = new AtomicLong();
+        private final AtomicLong roomsInserted = new AtomicLong();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile int hotelsCreated;
+        private volatile int buildingsCreated;
+        private volatile long finishedNanos;
+
+        void addError(String error) {
+            if (errors.size() < MAX_ERRORS) {
+                errors.add(error);
+            }
+        }
+
+        void finish() {
+            finishedNanos = System.nanoTime();
+        }
+
+        long elapsedMs() {
+            long end = finishedNanos == 0 ? System.nanoTime() : finishedNanos;
+            return (end - startNanos) / 1_000_000;
+        }
+
+        ImportResult toResult() {
+            List<String> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = List.copyOf(errors);
+            }
+            return new ImportResult(finishedNanos == 0, linesRead.get(), roomsInserted.get(),
+                    hotelsCreated, buildingsCreated, elapsedMs(), errorsCopy);
+        }
+    }
+}
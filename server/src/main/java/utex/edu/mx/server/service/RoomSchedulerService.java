@@ -2,16 +2,19 @@ package utex.edu.mx.server.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import utex.edu.mx.server.dto.WebSocketNotification;
+import org.springframework.transaction.support.TransactionTemplate;
+import utex.edu.mx.server.model.Building;
 import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.BuildingRepository;
 import utex.edu.mx.server.repository.RoomRepository;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
 
 @Service
 @RequiredArgsConstructor
@@ -19,7 +22,11 @@ import java.util.List;
 public class RoomSchedulerService {
 
     private final RoomRepository roomRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final BuildingRepository buildingRepository;
+    private final NotificationService notificationService;
+    private final TransactionTemplate transactionTemplate;
+    private final RoomStateStore roomStateStore;
+    private final ChangeFeedService changeFeedService;
 
     /**
      * Reinicia el estado de las habitaciones cada día a las 8:00 AM
@@ -28,45 +35,17 @@ public class RoomSchedulerService {
      * - Las habitaciones OCCUPIED no se modifican
      */
     @Scheduled(cron = "0 0 8 * * *") // Ejecutar a las 8:00 AM todos los días
-    @Transactional
     public void dailyRoomReset() {
         log.info("🕐 Iniciando reinicio diario de habitaciones a las 8:00 AM");
         
         try {
-            // Obtener todas las habitaciones que están limpias
-            List<Room> cleanRooms = roomRepository.findByStatus(Room.RoomStatus.CLEAN);
-            
-            int updatedCount = 0;
-            
-            for (Room room : cleanRooms) {
-                // Cambiar estado a DIRTY
-                room.setStatus(Room.RoomStatus.DIRTY);
-                room.setUpdatedAt(LocalDateTime.now());
-                
-                // Mantener la asignación de mucama (assignedTo no se modifica)
-                // La mucama ya asignada seguirá viendo esta habitación
-                
-                roomRepository.save(room);
-                updatedCount++;
-                
-                log.debug("Habitación {} marcada como DIRTY, asignada a: {}", 
-                    room.getNumber(), 
-                    room.getAssignedTo() != null ? room.getAssignedTo().getUsername() : "sin asignar");
-            }
+            // Cada edificio notifica a su hotel y a sus mucamas en la misma transacción del cambio
+            Map<Long, Integer> countsByHotel = resetCleanRooms("DAILY_RESET",
+                count -> String.format("Reinicio diario: %d habitaciones marcadas como pendientes de limpieza", count));
+            int updatedCount = total(countsByHotel);
             
             log.info("✅ Reinicio diario completado: {} habitaciones marcadas como DIRTY", updatedCount);
             
-            // Notificar a todos los clientes conectados vía WebSocket
-            if (updatedCount > 0) {
-                WebSocketNotification notification = new WebSocketNotification(
-                    "DAILY_RESET",
-                    String.format("Reinicio diario: %d habitaciones marcadas como pendientes de limpieza", updatedCount),
-                    null
-                );
-                messagingTemplate.convertAndSend("/topic/rooms", notification);
-                messagingTemplate.convertAndSend("/topic/notifications", notification);
-            }
-            
         } catch (Exception e) {
             log.error("❌ Error durante el reinicio diario de habitaciones", e);
         }
@@ -75,32 +54,68 @@ public class RoomSchedulerService {
     /**
      * Método para ejecutar el reinicio manualmente (útil para pruebas)
      */
-    @Transactional
     public int manualReset() {
         log.info("🔧 Reinicio manual de habitaciones solicitado");
         
-        List<Room> cleanRooms = roomRepository.findByStatus(Room.RoomStatus.CLEAN);
-        
-        for (Room room : cleanRooms) {
-            room.setStatus(Room.RoomStatus.DIRTY);
-            room.setUpdatedAt(LocalDateTime.now());
-            roomRepository.save(room);
-        }
-        
-        int count = cleanRooms.size();
+        int count = total(resetCleanRooms());
         log.info("✅ Reinicio manual completado: {} habitaciones actualizadas", count);
         
-        // Notificar
-        if (count > 0) {
-            WebSocketNotification notification = new WebSocketNotification(
-                "MANUAL_RESET",
-                String.format("Reinicio manual: %d habitaciones marcadas como pendientes", count),
-                null
-            );
-            messagingTemplate.convertAndSend("/topic/rooms", notification);
-            messagingTemplate.convertAndSend("/topic/notifications", notification);
+        return count;
+    }
+    
+    /**
+     * Marca como DIRTY todas las habitaciones CLEAN con un UPDATE masivo por edificio.
+     * Cada edificio se procesa en su propia transacción para que ninguna quede demasiado grande;
+     * el número de sentencias depende de los edificios, no de las habitaciones.
+     * Si un edificio falla solo se revierte ese edificio y se continúa con los demás.
+     * La asignación de mucama no se modifica. Notifica como reinicio manual.
+     * El aviso es uno por edificio, no por hotel: sale en la transacción de su edificio (si ese edificio
+     * se revierte no se avisa) y el cliente lo aplica por buildingId sobre su copia local.
+     *
+     * @return habitaciones actualizadas por id de hotel
+     */
+    public Map<Long, Integer> resetCleanRooms() {
+        return resetCleanRooms("MANUAL_RESET",
+            count -> String.format("Reinicio manual: %d habitaciones marcadas como pendientes", count));
+    }
+    
+    private Map<Long, Integer> resetCleanRooms(String notificationType, IntFunction<String> message) {
+        List<Building> buildings = buildingRepository.findAllWithHotel();
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> countsByHotel = new LinkedHashMap<>();
+        
+        for (Building building : buildings) {
+            Integer updated;
+            try {
+                updated = transactionTemplate.execute(status -> {
+                    changeFeedService.recordRoomsByBuildingAndStatus(building.getId(), Room.RoomStatus.CLEAN, now);
+                    int rows = roomRepository.bulkUpdateStatusByBuilding(
+                        building.getId(), Room.RoomStatus.CLEAN, Room.RoomStatus.DIRTY, now);
+                    roomStateStore.applyBulkStatus(building.getId(), Room.RoomStatus.CLEAN, Room.RoomStatus.DIRTY, now);
+                    if (rows > 0) {
+                        notificationService.sendReset(notificationType, message, building, rows,
+                            Room.RoomStatus.CLEAN, Room.RoomStatus.DIRTY, now,
+                            NotificationService.Channel.ROOMS, NotificationService.Channel.NOTIFICATIONS);
+                    }
+                    return rows;
+                });
+            } catch (RuntimeException e) {
+                log.error("❌ Error al reiniciar el edificio {} ({}); se revierte solo este edificio",
+                    building.getName(), building.getId(), e);
+                continue;
+            }
+            
+            if (updated != null && updated > 0) {
+                countsByHotel.merge(building.getHotel().getId(), updated, Integer::sum);
+                log.debug("Edificio {}: {} habitaciones marcadas como DIRTY", building.getName(), updated);
+            }
         }
         
-        return count;
+        return countsByHotel;
     }
+    
+    private static int total(Map<Long, Integer> countsByHotel) {
+        return countsByHotel.values().stream().mapToInt(Integer::intValue).sum();
+    }
+    
 }
@@ -0,0 +1,279 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Estado en memoria de las habitaciones (write-through)
+ * - Se carga completo al iniciar la aplicación
+ * - Se actualiza después de cada escritura confirmada (afterCommit si hay transacción activa)
+ * - Índices secundarios por estado, edificio y mucama asignada
+ * Las lecturas no tocan la base de datos; las escrituras se serializan con un lock del store.
+ * Las habitaciones guardadas son copias que el store nunca modifica: un cambio reemplaza la copia,
+ * así que un lector (o Jackson serializándola) no ve estados a medias. No deben modificarse;
+ * para escribir se carga la entidad desde RoomRepository.
+ * load() arma índices nuevos y los publica de una vez; los cambios confirmados mientras lee la base
+ * se vuelven a aplicar sobre los índices nuevos antes de publicarlos.
+ * Cada cambio aplicado invalida las respuestas cacheadas de habitaciones e incidencias
+ * (las incidencias incluyen los datos de su habitación) y se refleja en OccupancyRollupService.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoomStateStore {
+
+    private final RoomRepository roomRepository;
+    private final ResponseCacheService responseCache;
+    private final OccupancyRollupService occupancyRollup;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private volatile Indexes indexes = new Indexes();
+    // Cambios aplicados durante un load() en curso (guardado por this); null si no hay carga
+    private List<Consumer<Indexes>> changedDuringLoad;
+
+    /**
+     * Habitaciones por id e índices secundarios; load() reemplaza la instancia completa
+     */
+    private static final class Indexes {
+        final Map<Long, Room> roomsById = new ConcurrentHashMap<>();
+        final Map<Room.RoomStatus, Set<Long>> idsByStatus = new EnumMap<>(Room.RoomStatus.class);
+        final Map<Long, Set<Long>> idsByBuilding = new ConcurrentHashMap<>();
+        final Map<Long, Set<Long>> idsByMaid = new ConcurrentHashMap<>();
+
+        Indexes() {
+            for (Room.RoomStatus status : Room.RoomStatus.values()) {
+                idsByStatus.put(status, new ConcurrentSkipListSet<>());
+            }
+        }
+
+        void index(Room room) {
+            Long id = room.getId();
+            roomsById.put(id, room);
+            if (room.getStatus() != null) {
+                idsByStatus.get(room.getStatus()).add(id);
+            }
+            if (room.getBuilding() != null) {
+                idsByBuilding.computeIfAbsent(room.getBuilding().getId(), k -> new ConcurrentSkipListSet<>()).add(id);
+            }
+            if (room.getAssignedTo() != null) {
+                idsByMaid.computeIfAbsent(room.getAssignedTo().getId(), k -> new ConcurrentSkipListSet<>()).add(id);
+            }
+        }
+
+        Room unindex(Long id) {
+            Room previous = roomsById.remove(id);
+            if (previous == null) {
+                return null;
+            }
+            if (previous.getStatus() != null) {
+                idsByStatus.get(previous.getStatus()).remove(id);
+            }
+            if (previous.getBuilding() != null) {
+                removeFromIndex(idsByBuilding, previous.getBuilding().getId(), id);
+            }
+            if (previous.getAssignedTo() != null) {
+                removeFromIndex(idsByMaid, previous.getAssignedTo().getId(), id);
+            }
+            return previous;
+        }
+
+        /**
+         * Reemplaza la copia de una habitación y devuelve la anterior (null en altas)
+         */
+        Room replace(Room room) {
+            Room previous = unindex(room.getId());
+            index(room);
+            return previous;
+        }
+
+        List<Room> resolve(Set<Long> ids) {
+            if (ids == null) {
+                return List.of();
+            }
+            return ids.stream()
+                    .map(roomsById::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadLock.lock();
+        try {
+            synchronized (this) {
+                changedDuringLoad = new ArrayList<>();
+            }
+            List<Room> rooms = roomRepository.findAllWithAssociations();
+            Indexes fresh = new Indexes();
+            rooms.forEach(room -> fresh.index(copyOf(room)));
+            synchronized (this) {
+                occupancyRollup.rebuildRooms(fresh.roomsById.values());
+                changedDuringLoad.forEach(change -> change.accept(fresh));
+                changedDuringLoad = null;
+                indexes = fresh;
+            }
+            invalidateResponses();
+            log.info("Estado de habitaciones cargado en memoria: {} habitaciones", rooms.size());
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    // ==================== Lecturas ====================
+
+    public List<Room> findAll() {
+        return sorted(indexes.roomsById.values());
+    }
+
+    public Optional<Room> findById(Long id) {
+        return Optional.ofNullable(indexes.roomsById.get(id));
+    }
+
+    public List<Room> findByStatus(Room.RoomStatus status) {
+        Indexes current = indexes;
+        return current.resolve(current.idsByStatus.get(status)).stream()
+                .filter(room -> room.getStatus() == status)
+                .toList();
+    }
+
+    public List<Room> findByBuildingId(Long buildingId) {
+        Indexes current = indexes;
+        return current.resolve(current.idsByBuilding.get(buildingId));
+    }
+
+    public List<Room> findByAssignedToId(Long maidId) {
+        Indexes current = indexes;
+        return current.resolve(current.idsByMaid.get(maidId));
+    }
+
+    public int countByAssignedToId(Long maidId) {
+        Set<Long> ids = indexes.idsByMaid.get(maidId);
+        return ids == null ? 0 : ids.size();
+    }
+
+    // ==================== Escrituras ====================
+
+    /**
+     * Registra una habitación creada o modificada cuando la transacción actual confirme
+     */
+    public void put(Room room) {
+        putAll(List.of(room));
+    }
+
+    /**
+     * Registra varias habitaciones creadas o modificadas cuando la transacción actual confirme
+     */
+    public void putAll(Collection<Room> rooms) {
+        if (rooms.isEmpty()) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            List<Room> copies = rooms.stream().map(RoomStateStore::copyOf).toList();
+            apply(target -> copies.forEach(copy -> occupancyRollup.roomChanged(target.replace(copy), copy)));
+        });
+    }
+
+    public void remove(Long roomId) {
+        TransactionCallbacks.afterCommit(() ->
+                apply(target -> occupancyRollup.roomChanged(target.unindex(roomId), null)));
+    }
+
+    /**
+     * Refleja un UPDATE masivo de estado por edificio.
+     * Solo cambia habitaciones no modificadas después del UPDATE (updatedAt anterior)
+     */
+    public void applyBulkStatus(Long buildingId, Room.RoomStatus currentStatus,
+                                Room.RoomStatus newStatus, LocalDateTime updatedAt) {
+        TransactionCallbacks.afterCommit(() -> apply(target -> {
+            for (Room room : target.resolve(target.idsByBuilding.get(buildingId))) {
+                if (room.getStatus() == currentStatus
+                        && (room.getUpdatedAt() == null || !room.getUpdatedAt().isAfter(updatedAt))) {
+                    Room changed = copyOf(room);
+                    changed.setStatus(newStatus);
+                    changed.setUpdatedAt(updatedAt);
+                    // El UPDATE masivo subió la versión de cada fila
+                    changed.setVersion(room.getVersion() != null ? room.getVersion() + 1 : null);
+                    target.replace(changed);
+                    occupancyRollup.statusChanged(room.getId(), currentStatus, newStatus);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Actualiza los datos de la mucama embebidos en sus habitaciones (nombre, usuario, etc.)
+     */
+    public void refreshAssignee(User user) {
+        TransactionCallbacks.afterCommit(() -> apply(target -> {
+            for (Room room : target.resolve(target.idsByMaid.get(user.getId()))) {
+                Room changed = copyOf(room);
+                changed.setAssignedTo(user);
+                target.replace(changed);
+            }
+        }));
+    }
+
+    // ==================== Internos ====================
+
+    /**
+     * Aplica un cambio a los índices publicados; si hay un load() en curso también se guarda
+     * para repetirlo sobre los índices nuevos
+     */
+    private void apply(Consumer<Indexes> change) {
+        synchronized (this) {
+            change.accept(indexes);
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change);
+            }
+        }
+        invalidateResponses();
+    }
+
+    private static Room copyOf(Room room) {
+        return new Room(room.getId(), room.getNumber(), room.getFloor(), room.getStatus(), room.getBuilding(),
+                room.getAssignedTo(), room.getAssignedAt(), room.getActive(), room.getCreatedAt(), room.getUpdatedAt(),
+                room.getVersion());
+    }
+
+    private static void removeFromIndex(Map<Long, Set<Long>> index, Long key, Long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private void invalidateResponses() {
+        responseCache.invalidate(ResponseCacheService.Collection.ROOMS, ResponseCacheService.Collection.INCIDENTS);
+    }
+
+    private static List<Room> sorted(Collection<Room> rooms) {
+        return rooms.stream()
+                .sorted(Comparator.comparing(Room::getId))
+                .toList();
+    }
+}
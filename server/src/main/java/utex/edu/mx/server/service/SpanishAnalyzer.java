@@ -0,0 +1,77 @@
+package utex.edu.mx.server.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizador para búsqueda en español
+ * - Minúsculas y sin acentos ("Habitación" -> "habitacion", "baño" -> "bano")
+ * - Descarta palabras vacías (de, la, que, el, en, ...)
+ * - Reducción ligera de plural y género: "fugas" -> "fug", "luces" -> "luz", "acondicionada" -> "acondicionad"
+ * El mismo análisis se aplica al indexar y al consultar, así "Fuga" encuentra "fugas".
+ */
+final class SpanishAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "al", "algo", "ante", "con", "como", "cual", "de", "del", "desde", "donde", "durante", "e",
+            "el", "ella", "ellos", "en", "entre", "era", "es", "esta", "estaba", "este", "esto", "fue", "ha",
+            "hay", "la", "las", "le", "les", "lo", "los", "mas", "me", "mi", "muy", "no", "o", "para", "pero",
+            "por", "que", "se", "sin", "sobre", "su", "sus", "tambien", "te", "tiene", "u", "un", "una", "unos",
+            "unas", "y", "ya");
+
+    private SpanishAnalyzer() {
+    }
+
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        for (String token : NON_WORD.split(fold(text))) {
+            if (!token.isEmpty() && !STOPWORDS.contains(token)) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("");
+    }
+
+    /**
+     * Quita terminaciones de plural y la vocal final de género en palabras de 4 letras o más
+     * ("fuga" y "fugas" -> "fug")
+     */
+    static String stem(String term) {
+        int length = term.length();
+        if (length < 4) {
+            return term;
+        }
+        char last = term.charAt(length - 1);
+        if (last == 'o' || last == 'a' || last == 'e') {
+            return term.substring(0, length - 1);
+        }
+        if (last == 's') {
+            if (term.endsWith("eses")) {
+                return term.substring(0, length - 2);
+            }
+            if (term.endsWith("ces")) {
+                return term.substring(0, length - 3) + "z";
+            }
+            char beforeLast = term.charAt(length - 2);
+            if (beforeLast == 'o' || beforeLast == 'a' || beforeLast == 'e') {
+                return term.substring(0, length - 2);
+            }
+        }
+        return term;
+    }
+}
@@ -0,0 +1,269 @@
+package utex.edu.mx.server.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import utex.edu.mx.server.dto.SyncRequest;
+import utex.edu.mx.server.dto.SyncResponse;
+import utex.edu.mx.server.model.ChangeLogEntry;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.IncidentRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Aplica la cola offline de un cliente (POST /api/sync) en una sola transacción
+ * - Las operaciones se aplican en el orden recibido; habitaciones y usuarios se cargan con una consulta cada uno
+ *   y los UPDATE de habitaciones se envían en lotes JDBC al confirmar
+ * - Cada operación trae una clave de idempotencia; las ya aplicadas (tabla sync_operations) no se repiten
+ *   y responden DUPLICATE con el id del servidor de la primera vez
+ * - Una operación inválida responde FAILED sin afectar a las demás; un error de base de datos revierte el lote
+ * - Las incidencias quedan reportadas por el usuario autenticado; un reportedBy distinto responde FAILED
+ * Dos peticiones simultáneas con la misma clave chocan en la llave primaria de sync_operations:
+ * la segunda se revierte completa y el cliente la reintenta.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncService {
+
+    public static final String ROOM_STATUS = "ROOM_STATUS";
+    public static final String INCIDENT_CREATE = "INCIDENT_CREATE";
+
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private static final String INSERT_APPLIED_SQL = """
+            INSERT INTO sync_operations (user_id, idempotency_key, operation_type, server_id, created_at)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+    private final RoomRepository roomRepository;
+    private final UserRepository userRepository;
+    private final IncidentRepository incidentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final RoomStateStore roomStateStore;
+    private final ChangeFeedService changeFeedService;
+    private final ResponseCacheService responseCache;
+    private final OccupancyRollupService occupancyRollup;
+    private final IncidentSearchService incidentSearch;
+    private final IncidentAnalyticsService incidentAnalytics;
+    private final PhotoStorageService photoStorage;
+    private final PhotoProcessingService photoProcessing;
+
+    @Value("${sync.idempotency-retention-hours:72}")
+    private int retentionHours;
+
+    /**
+     * Resultado del lote más lo que cambió, para que el controlador notifique por WebSocket
+     */
+    public record Outcome(SyncResponse response, List<Room> updatedRooms, List<Incident> createdIncidents) {
+    }
+
+    private record AppliedOperation(String type, Long serverId) {
+    }
+
+    /**
+     * @throws IllegalArgumentException si el lote está vacío o alguna operación no tiene clave válida;
+     *                                  no se aplica ninguna operación
+     */
+    @Transactional
+    public Outcome apply(Long userId, List<SyncRequest.Operation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("El lote no contiene operaciones");
+        }
+        for (SyncRequest.Operation operation : operations) {
+            String key = operation.getIdempotencyKey();
+            if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException(
+                        "Cada operación requiere idempotencyKey (máximo " + MAX_KEY_LENGTH + " caracteres)");
+            }
+        }
+
+        Map<String, AppliedOperation> applied = findApplied(userId, operations);
+        Map<Long, Incident> appliedIncidents = incidentRepository.findAllById(applied.values().stream()
+                        .filter(op -> INCIDENT_CREATE.equals(op.type()) && op.serverId() != null)
+                        .map(AppliedOperation::serverId)
+                        .toList()).stream()
+                .collect(Collectors.toMap(Incident::getId, Function.identity()));
+        Map<Long, Room> rooms = loadRooms(operations);
+        User reporter = operations.stream().anyMatch(operation -> INCIDENT_CREATE.equals(operation.getType()))
+                ? userRepository.findById(userId).orElse(null)
+                : null;
+
+        LocalDateTime now = LocalDateTime.now();
+        List<SyncResponse.Result> results = new ArrayList<>(operations.size());
+        Map<String, SyncResponse.Result> resultsByKey = new HashMap<>();
+        Map<Long, Room> updatedRooms = new LinkedHashMap<>();
+        List<Incident> createdIncidents = new ArrayList<>();
+        List<Object[]> appliedRows = new ArrayList<>();
+
+        for (SyncRequest.Operation operation : operations) {
+            String key = operation.getIdempotencyKey();
+            AppliedOperation previous = applied.get(key);
+            SyncResponse.Result earlier = resultsByKey.get(key);
+            if (previous != null) {
+                results.add(new SyncResponse.Result(key, previous.type(), SyncResponse.Status.DUPLICATE,
+                        previous.serverId(), operation.getTempId(), appliedIncidents.get(previous.serverId()), null));
+                continue;
+            }
+            if (earlier != null && earlier.getStatus() != SyncResponse.Status.FAILED) {
+                // Misma clave repetida dentro del lote
+                results.add(new SyncResponse.Result(key, earlier.getType(), SyncResponse.Status.DUPLICATE,
+                        earlier.getServerId(), operation.getTempId(), earlier.getIncident(), null));
+                continue;
+            }
+
+            SyncResponse.Result result;
+            try {
+                result = switch (Objects.requireNonNullElse(operation.getType(), "")) {
+                    case ROOM_STATUS -> applyRoomStatus(operation, rooms, now, updatedRooms);
+                    case INCIDENT_CREATE -> createIncident(operation, rooms, reporter, now, createdIncidents);
+                    default -> throw new IllegalArgumentException("Tipo de operación desconocido: " + operation.getType());
+                };
+                appliedRows.add(new Object[]{userId, key, operation.getType(), result.getServerId(), Timestamp.valueOf(now)});
+            } catch (IllegalArgumentException e) {
+                result = new SyncResponse.Result(key, operation.getType(), SyncResponse.Status.FAILED,
+                        null, operation.getTempId(), null, e.getMessage());
+            }
+            resultsByKey.put(key, result);
+            results.add(result);
+        }
+
+        // Los UPDATE salen ahora: las habitaciones notificadas llevan la versión nueva
+        roomRepository.flush();
+        roomStateStore.putAll(updatedRooms.values());
+        changeFeedService.recordRooms(updatedRooms.keySet(), ChangeLogEntry.Operation.UPSERT);
+        changeFeedService.recordIncidents(createdIncidents.stream().map(Incident::getId).toList(),
+                ChangeLogEntry.Operation.UPSERT);
+        if (!createdIncidents.isEmpty()) {
+            responseCache.invalidateAfterCommit(ResponseCacheService.Collection.INCIDENTS);
+        }
+        jdbcTemplate.batchUpdate(INSERT_APPLIED_SQL, appliedRows);
+
+        log.info("Sincronización del usuario {}: {} operaciones, {} aplicadas, {} habitaciones, {} incidencias",
+                userId, operations.size(), appliedRows.size(), updatedRooms.size(), createdIncidents.size());
+        return new Outcome(new SyncResponse(results), List.copyOf(updatedRooms.values()), createdIncidents);
+    }
+
+    private SyncResponse.Result applyRoomStatus(SyncRequest.Operation operation, Map<Long, Room> rooms,
+                                                LocalDateTime now, Map<Long, Room> updatedRooms) {
+        Room room = rooms.get(operation.getRoomId());
+        if (room == null) {
+            throw new IllegalArgumentException("Habitación no encontrada: " + operation.getRoomId());
+        }
+        if (operation.getStatus() == null) {
+            throw new IllegalArgumentException("ROOM_STATUS requiere status");
+        }
+
+        room.setStatus(operation.getStatus());
+        room.setUpdatedAt(now);
+        updatedRooms.put(room.getId(), room);
+        return new SyncResponse.Result(operation.getIdempotencyKey(), ROOM_STATUS, SyncResponse.Status.APPLIED,
+                room.getId(), null, null, null);
+    }
+
+    /**
+     * Igual que POST /api/incidents: normaliza fotos, guarda y avisa a los índices en memoria al confirmar
+     */
+    private SyncResponse.Result createIncident(SyncRequest.Operation operation, Map<Long, Room> rooms,
+                                               User reporter, LocalDateTime now,
+                                               List<Incident> createdIncidents) {
+        Incident incident = operation.getIncident();
+        if (incident == null) {
+            throw new IllegalArgumentException("INCIDENT_CREATE requiere incident");
+        }
+        Long roomId = incident.getRoom() != null ? incident.getRoom().getId() : null;
+        Long reporterId = incident.getReportedBy() != null ? incident.getReportedBy().getId() : null;
+        Room room = rooms.get(roomId);
+        if (room == null) {
+            throw new IllegalArgumentException("Habitación no encontrada: " + roomId);
+        }
+        if (reporter == null) {
+            throw new IllegalArgumentException("Usuario autenticado no encontrado");
+        }
+        if (reporterId != null && !reporterId.equals(reporter.getId())) {
+            throw new IllegalArgumentException("reportedBy no coincide con el usuario autenticado: " + reporterId);
+        }
+
+        incident.setPhotos(photoStorage.normalizeReferences(incident.getPhotos()));
+        incident.setId(null);
+        incident.setRoom(room);
+        incident.setReportedBy(reporter);
+        if (incident.getStatus() == null) {
+            incident.setStatus(Incident.IncidentStatus.OPEN);
+        }
+        incident.setCreatedAt(now);
+        incident.setUpdatedAt(now);
+        Incident saved = incidentRepository.save(incident);
+
+        occupancyRollup.incidentChanged(room.getId(), null, saved.getStatus());
+        incidentSearch.indexAfterCommit(saved);
+        incidentAnalytics.incidentChanged(saved.getId(), null, IncidentAnalyticsService.Sample.of(saved));
+        photoProcessing.processAfterCommit(saved.getId(), saved.getPhotoKeys(), NotificationService.Audience.of(saved));
+        createdIncidents.add(saved);
+        return new SyncResponse.Result(operation.getIdempotencyKey(), INCIDENT_CREATE, SyncResponse.Status.APPLIED,
+                saved.getId(), operation.getTempId(), saved, null);
+    }
+
+    private Map<String, AppliedOperation> findApplied(Long userId, List<SyncRequest.Operation> operations) {
+        List<String> keys = operations.stream().map(SyncRequest.Operation::getIdempotencyKey).distinct().toList();
+        String in = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        List<Object> args = new ArrayList<>(keys.size() + 1);
+        args.add(userId);
+        args.addAll(keys);
+
+        Map<String, AppliedOperation> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT idempotency_key, operation_type, server_id FROM sync_operations "
+                        + "WHERE user_id = ? AND idempotency_key IN (" + in + ")",
+                rs -> {
+                    long serverId = rs.getLong("server_id");
+                    applied.put(rs.getString("idempotency_key"),
+                            new AppliedOperation(rs.getString("operation_type"), rs.wasNull() ? null : serverId));
+                }, args.toArray());
+        return applied;
+    }
+
+    private Map<Long, Room> loadRooms(List<SyncRequest.Operation> operations) {
+        Set<Long> roomIds = operations.stream()
+                .map(operation -> operation.getIncident() != null && operation.getIncident().getRoom() != null
+                        ? operation.getIncident().getRoom().getId()
+                        : operation.getRoomId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (roomIds.isEmpty()) {
+            return Map.of();
+        }
+        return roomRepository.findAllByIdWithAssociations(roomIds).stream()
+                .collect(Collectors.toMap(Room::getId, Function.identity()));
+    }
+
+    /**
+     * Depura las claves de idempotencia más antiguas que el período de retención (cada hora)
+     * Un cliente que reintente después de ese plazo volvería a aplicar la operación
+     */
+    @Scheduled(cron = "0 15 * * * *")
+    public void pruneAppliedOperations() {
+        int deleted = jdbcTemplate.update("DELETE FROM sync_operations WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+        log.debug("Claves de sincronización depuradas: {}", deleted);
+    }
+}
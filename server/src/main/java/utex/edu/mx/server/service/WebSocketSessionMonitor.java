@@ -0,0 +1,263 @@
+package utex.edu.mx.server.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Detección de clientes WebSocket lentos (mucamas con mala señal)
+ * - Cuenta por sesión los frames MESSAGE aceptados en clientOutboundChannel que aún no se escriben
+ *   en el socket (cola del executor + buffer de ConcurrentWebSocketSessionDecorator)
+ * - Con websocket.slow-consumer.max-queued-frames en espera la sesión se considera lenta:
+ *   RESYNC descarta los frames nuevos y marca el siguiente que sí se entrega con el header "resync",
+ *   para que el cliente recargue desde la API; DISCONNECT cierra la sesión (el cliente reconecta y recarga)
+ * - Los límites de tiempo de envío y de buffer de WebSocketConfig cierran la sesión con
+ *   SESSION_NOT_RELIABLE; aquí solo se cuentan
+ */
+@Component
+@Slf4j
+public class WebSocketSessionMonitor implements ChannelInterceptor {
+
+    public static final String RESYNC_HEADER = "resync";
+
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE".getBytes(StandardCharsets.UTF_8);
+    private static final int TOP_SESSIONS = 20;
+
+    public enum Policy {
+        RESYNC, DISCONNECT
+    }
+
+    private final Policy policy;
+    private final int maxQueuedFrames;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+    private final AtomicLong limitExceededCloses = new AtomicLong();
+
+    private static final class SessionState {
+        final WebSocketSession session;
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicInteger peakQueued = new AtomicInteger();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicBoolean resyncPending = new AtomicBoolean();
+        final AtomicBoolean closedBySlowness = new AtomicBoolean();
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+
+    public record SessionStats(String sessionId, int queuedFrames, int peakQueuedFrames, long droppedFrames) {
+    }
+
+    public record Stats(Policy policy, int maxQueuedFrames, int sessions, int queuedFrames, long droppedFrames,
+                        long resyncs, long slowConsumerDisconnects, long limitExceededCloses,
+                        List<SessionStats> deepestSessions) {
+    }
+
+    public WebSocketSessionMonitor(@Value("${websocket.slow-consumer.policy:RESYNC}") Policy policy,
+                                   @Value("${websocket.slow-consumer.max-queued-frames:100}") int maxQueuedFrames) {
+        this.policy = policy;
+        this.maxQueuedFrames = maxQueuedFrames;
+    }
+
+    /**
+     * Para WebSocketTransportRegistration.addDecoratorFactory: registra cada sesión y envuelve el
+     * socket para saber cuándo se escribe cada frame
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new MonitoredSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                SessionState state = sessions.remove(session.getId());
+                if (state != null && !state.closedBySlowness.get()
+                        && closeStatus.equalsCode(CloseStatus.SESSION_NOT_RELIABLE)) {
+                    limitExceededCloses.incrementAndGet();
+                    log.warn("Sesión WebSocket {} cerrada por exceder el tiempo o buffer de envío", session.getId());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Corre en el hilo que publica (broker): decide antes de encolar el frame en el executor de salida
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SessionState state = stateOf(message);
+        if (state == null) {
+            return message;
+        }
+
+        if (state.queued.get() >= maxQueuedFrames) {
+            state.dropped.incrementAndGet();
+            droppedFrames.incrementAndGet();
+            if (policy == Policy.DISCONNECT) {
+                closeSlowConsumer(state);
+            } else if (state.resyncPending.compareAndSet(false, true)) {
+                log.warn("Sesión WebSocket {} lenta ({} frames en espera); se descartan frames hasta que se ponga al día",
+                        state.session.getId(), state.queued.get());
+            }
+            return null;
+        }
+
+        state.peakQueued.accumulateAndGet(state.queued.incrementAndGet(), Math::max);
+        if (state.resyncPending.compareAndSet(true, false)) {
+            resyncs.incrementAndGet();
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            accessor.setNativeHeader(RESYNC_HEADER, "true");
+            return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+        }
+        return message;
+    }
+
+    /**
+     * El executor de salida rechazó el frame (cola llena): no llegará, el cliente debe resincronizar
+     */
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (ex == null || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        SessionState state = stateOf(message);
+        if (state != null) {
+            state.queued.decrementAndGet();
+            state.dropped.incrementAndGet();
+            state.resyncPending.set(true);
+            droppedFrames.incrementAndGet();
+        }
+    }
+
+    private SessionState stateOf(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    private void closeSlowConsumer(SessionState state) {
+        if (!state.closedBySlowness.compareAndSet(false, true)) {
+            return;
+        }
+        slowConsumerDisconnects.incrementAndGet();
+        log.warn("Sesión WebSocket {} desconectada por lenta ({} frames en espera)",
+                state.session.getId(), state.queued.get());
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Error al cerrar la sesión WebSocket {}: {}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra una sesión por id (StompSessionRegistry: token expirado o revocado)
+     * @return false si la sesión ya no existe
+     */
+    public boolean close(String sessionId, CloseStatus status) {
+        SessionState state = sessions.get(sessionId);
+        if (state == null) {
+            return false;
+        }
+        try {
+            state.session.close(status);
+        } catch (IOException e) {
+            log.debug("Error al cerrar la sesión WebSocket {}: {}", sessionId, e.getMessage());
+        }
+        return true;
+    }
+
+    public Stats getStats() {
+        List<SessionStats> perSession = sessions.entrySet().stream()
+                .map(entry -> new SessionStats(entry.getKey(), entry.getValue().queued.get(),
+                        entry.getValue().peakQueued.get(), entry.getValue().dropped.get()))
+                .toList();
+        List<SessionStats> deepest = perSession.stream()
+                .filter(session -> session.queuedFrames() > 0 || session.droppedFrames() > 0)
+                .sorted(Comparator.comparingInt(SessionStats::queuedFrames).reversed()
+                        .thenComparing(Comparator.comparingLong(SessionStats::droppedFrames).reversed()))
+                .limit(TOP_SESSIONS)
+                .toList();
+        return new Stats(policy, maxQueuedFrames, perSession.size(),
+                perSession.stream().mapToInt(SessionStats::queuedFrames).sum(), droppedFrames.get(),
+                resyncs.get(), slowConsumerDisconnects.get(), limitExceededCloses.get(), deepest);
+    }
+
+    /**
+     * Socket real bajo ConcurrentWebSocketSessionDecorator: cada MESSAGE escrito sale de la cuenta en espera
+     */
+    private static final class MonitoredSession extends WebSocketSessionDecorator {
+
+        private final SessionState state;
+
+        MonitoredSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            try {
+                super.sendMessage(message);
+            } finally {
+                if (isMessageFrame(message)) {
+                    state.queued.updateAndGet(queued -> Math.max(0, queued - 1));
+                }
+            }
+        }
+
+        private static boolean isMessageFrame(WebSocketMessage<?> message) {
+            if (message instanceof TextMessage text) {
+                return text.getPayload().startsWith("MESSAGE");
+            }
+            if (message instanceof BinaryMessage binary) {
+                ByteBuffer payload = binary.getPayload();
+                if (payload.remaining() < MESSAGE_COMMAND.length) {
+                    return false;
+                }
+                for (int i = 0; i < MESSAGE_COMMAND.length; i++) {
+                    if (payload.get(payload.position() + i) != MESSAGE_COMMAND[i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package utex.edu.mx.server.service;
+
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Algoritmo en memoria para repartir habitaciones entre mucamas
+ * - Solo se asignan mucamas del mismo hotel que la habitación
+ * - Con al menos una mucama por edificio: cada edificio recibe mucamas según su carga
+ *   (siempre a la que tenga más habitaciones por mucama) y sus habitaciones, ordenadas por
+ *   piso y número, se dividen en bloques contiguos de tamaño parejo (mismo edificio, pisos adyacentes)
+ * - Con menos mucamas que edificios: edificios completos a la mucama con menor carga (LPT)
+ * Costo O(N log N) por el ordenamiento; sin consultas a la base de datos.
+ */
+final class WorkloadBalancer {
+
+    private static final Comparator<Room> BY_FLOOR_AND_NUMBER = Comparator
+            .comparing(Room::getFloor)
+            .thenComparing(room -> room.getNumber().length())
+            .thenComparing(Room::getNumber);
+
+    private WorkloadBalancer() {
+    }
+
+    /**
+     * @return id de habitación -> id de mucama; las habitaciones de hoteles sin mucamas no aparecen
+     */
+    static Map<Long, Long> plan(List<Room> rooms, List<User> maids) {
+        Map<Long, List<Room>> roomsByHotel = new HashMap<>();
+        for (Room room : rooms) {
+            roomsByHotel.computeIfAbsent(room.getBuilding().getHotel().getId(), k -> new ArrayList<>()).add(room);
+        }
+        Map<Long, List<User>> maidsByHotel = new HashMap<>();
+        for (User maid : maids) {
+            if (maid.getHotel() != null) {
+                maidsByHotel.computeIfAbsent(maid.getHotel().getId(), k -> new ArrayList<>()).add(maid);
+            }
+        }
+
+        Map<Long, Long> assignments = new HashMap<>(rooms.size() * 2);
+        roomsByHotel.forEach((hotelId, hotelRooms) -> {
+            List<User> hotelMaids = maidsByHotel.get(hotelId);
+            if (hotelMaids != null) {
+                hotelMaids.sort(Comparator.comparing(User::getId));
+                planHotel(hotelRooms, hotelMaids, assignments);
+            }
+        });
+        return assignments;
+    }
+
+    private static void planHotel(List<Room> rooms, List<User> maids, Map<Long, Long> assignments) {
+        TreeMap<Long, List<Room>> roomsByBuilding = new TreeMap<>();
+        for (Room room : rooms) {
+            roomsByBuilding.computeIfAbsent(room.getBuilding().getId(), k -> new ArrayList<>()).add(room);
+        }
+        List<List<Room>> buildings = new ArrayList<>(roomsByBuilding.values());
+        buildings.forEach(buildingRooms -> buildingRooms.sort(BY_FLOOR_AND_NUMBER));
+
+        if (maids.size() >= buildings.size()) {
+            int[] maidsPerBuilding = apportion(buildings, maids.size());
+            int nextMaid = 0;
+            for (int b = 0; b < buildings.size(); b++) {
+                List<User> buildingMaids = maids.subList(nextMaid, nextMaid + maidsPerBuilding[b]);
+                splitContiguous(buildings.get(b), buildingMaids, assignments);
+                nextMaid += maidsPerBuilding[b];
+            }
+        } else {
+            assignWholeBuildings(buildings, maids, assignments);
+        }
+    }
+
+    /**
+     * Una mucama por edificio y el resto, una a una, al edificio con más habitaciones por mucama
+     */
+    private static int[] apportion(List<List<Room>> buildings, int maidCount) {
+        int[] counts = new int[buildings.size()];
+        PriorityQueue<Integer> byLoad = new PriorityQueue<>(Comparator.comparingDouble(
+                (Integer b) -> (double) buildings.get(b).size() / counts[b]).reversed());
+        for (int b = 0; b < buildings.size(); b++) {
+            counts[b] = 1;
+            byLoad.add(b);
+        }
+        for (int remaining = maidCount - buildings.size(); remaining > 0; remaining--) {
+            int b = byLoad.poll();
+            counts[b]++;
+            byLoad.add(b);
+        }
+        return counts;
+    }
+
+    private static void splitContiguous(List<Room> rooms, List<User> maids, Map<Long, Long> assignments) {
+        int base = rooms.size() / maids.size();
+        int extra = rooms.size() % maids.size();
+        int index = 0;
+        for (int m = 0; m < maids.size(); m++) {
+            int size = base + (m < extra ? 1 : 0);
+            Long maidId = maids.get(m).getId();
+            for (int i = 0; i < size; i++) {
+                assignments.put(rooms.get(index++).getId(), maidId);
+            }
+        }
+    }
+
+    private static void assignWholeBuildings(List<List<Room>> buildings, List<User> maids, Map<Long, Long> assignments) {
+        long[] loads = new long[maids.size()];
+        PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(
+                Comparator.comparingLong((Integer m) -> loads[m]).thenComparing(m -> m));
+        for (int m = 0; m < maids.size(); m++) {
+            leastLoaded.add(m);
+        }
+        buildings.stream()
+                .sorted(Comparator.comparingInt((List<Room> b) -> b.size()).reversed())
+                .forEach(buildingRooms -> {
+                    int m = leastLoaded.poll();
+                    Long maidId = maids.get(m).getId();
+                    buildingRooms.forEach(room -> assignments.put(room.getId(), maidId));
+                    loads[m] += buildingRooms.size();
+                    leastLoaded.add(m);
+                });
+    }
+}
@@ -0,0 +1,7 @@
+-- Versión de habitaciones e incidencias (@Version en Room e Incident).
+-- Sube en cada escritura, también en los UPDATE masivos; es la versión de EntityDelta que el cliente
+-- compara para descartar deltas viejos (antes era updated_at en milisegundos, que se repetía dentro
+-- de un mismo milisegundo y en los UPDATE masivos, y podía retroceder con el reloj).
+
+alter table rooms add column version bigint not null default 0;
+alter table incidents add column version bigint not null default 0;
@@ -0,0 +1,74 @@
+-- Esquema base: equivale a lo que generaba Hibernate con ddl-auto=update.
+-- Las bases existentes se marcan con baseline en la versión 1 y parten de V2.
+
+create table hotels (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    address varchar(255),
+    phone varchar(255),
+    email varchar(255),
+    active bit,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table buildings (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    hotel_id bigint not null,
+    floors integer,
+    active bit,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_buildings_hotel foreign key (hotel_id) references hotels (id)
+) engine=InnoDB;
+
+create table users (
+    id bigint not null auto_increment,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    name varchar(255) not null,
+    email varchar(255),
+    role enum ('ADMIN','MAID','RECEPTION') not null,
+    hotel_id bigint,
+    active bit,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint fk_users_hotel foreign key (hotel_id) references hotels (id)
+) engine=InnoDB;
+
+create table rooms (
+    id bigint not null auto_increment,
+    number varchar(255) not null,
+    building_id bigint not null,
+    floor integer not null,
+    status enum ('CLEAN','DIRTY','OCCUPIED') not null,
+    assigned_to bigint,
+    assigned_at datetime(6),
+    active bit,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_rooms_building foreign key (building_id) references buildings (id),
+    constraint fk_rooms_assigned_to foreign key (assigned_to) references users (id)
+) engine=InnoDB;
+
+create table incidents (
+    id bigint not null auto_increment,
+    room_id bigint not null,
+    reported_by bigint not null,
+    description varchar(2000) not null,
+    photos text,
+    status enum ('OPEN','RESOLVED') not null,
+    resolution_notes varchar(2000),
+    resolved_at datetime(6),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_incidents_room foreign key (room_id) references rooms (id),
+    constraint fk_incidents_reported_by foreign key (reported_by) references users (id)
+) engine=InnoDB;
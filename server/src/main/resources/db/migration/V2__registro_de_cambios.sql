@@ -0,0 +1,14 @@
+-- Historial del feed incremental (/api/changes). No forma parte del esquema base:
+-- las bases marcadas con baseline en la versión 1 lo crean aquí.
+
+create table change_log (
+    id bigint not null auto_increment,
+    entity_type enum ('INCIDENT','ROOM') not null,
+    entity_id bigint not null,
+    operation enum ('DELETE','UPSERT') not null,
+    changed_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
+
+-- ChangeLogRepository.deleteOlderThan (poda diaria)
+create index idx_change_log_changed_at on change_log (changed_at);
@@ -0,0 +1,27 @@
+-- Índices alineados con las consultas de los repositorios y servicios.
+-- Las llaves foráneas ya tienen su propio índice; aquí sólo se agregan los
+-- que cubren filtros combinados y ordenamientos.
+
+-- RoomRepository.findByStatus y distribución de habitaciones sucias
+create index idx_rooms_status on rooms (status);
+-- bulkUpdateStatusByBuilding / recordRoomsByBuildingAndStatus (reinicio diario)
+create index idx_rooms_building_status on rooms (building_id, status);
+-- findByBuildingId + filtro por piso en /api/rooms/page
+create index idx_rooms_building_floor on rooms (building_id, floor);
+-- habitaciones de una camarista filtradas por estado
+create index idx_rooms_assigned_status on rooms (assigned_to, status);
+
+-- IncidentRepository.findByRoomId con filtro de estado
+create index idx_incidents_room_status on incidents (room_id, status);
+-- IncidentRepository.findByStatus y /api/incidents/page?status=
+create index idx_incidents_status on incidents (status);
+-- filtros por rango de fecha de creación
+create index idx_incidents_created_at on incidents (created_at);
+
+-- UserRepository.findByRoleAndActive
+create index idx_users_role_active on users (role, active);
+
+-- BuildingRepository.findByHotelIdAndName (importación)
+create index idx_buildings_hotel_name on buildings (hotel_id, name);
+-- HotelRepository.findByName
+create index idx_hotels_name on hotels (name);
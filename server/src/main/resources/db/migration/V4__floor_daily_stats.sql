@@ -0,0 +1,13 @@
+-- Contadores diarios por piso (OccupancyRollupService).
+-- Se escriben en bloque desde memoria; una fila por día, edificio y piso.
+
+create table floor_daily_stats (
+    stat_date date not null,
+    building_id bigint not null,
+    floor integer not null,
+    hotel_id bigint not null,
+    cleaned integer not null default 0,
+    incidents_opened integer not null default 0,
+    incidents_resolved integer not null default 0,
+    primary key (stat_date, building_id, floor)
+) engine=InnoDB;
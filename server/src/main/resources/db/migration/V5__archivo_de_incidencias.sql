@@ -0,0 +1,26 @@
+-- Historial de incidencias (IncidentArchiveService).
+-- Las incidencias RESOLVED antiguas se mueven aquí por lotes para que `incidents`
+-- conserve solo el conjunto de trabajo. Se conserva el id original.
+
+create table incidents_archive (
+    id bigint not null,
+    room_id bigint not null,
+    reported_by bigint not null,
+    description varchar(2000) not null,
+    photos text,
+    status enum ('OPEN','RESOLVED') not null,
+    resolution_notes varchar(2000),
+    resolved_at datetime(6),
+    created_at datetime(6),
+    updated_at datetime(6),
+    archived_at datetime(6) not null,
+    primary key (id),
+    constraint fk_incidents_archive_room foreign key (room_id) references rooms (id),
+    constraint fk_incidents_archive_reported_by foreign key (reported_by) references users (id)
+) engine=InnoDB;
+
+-- ArchivedIncidentRepository.findByStatus
+create index idx_incidents_archive_status on incidents_archive (status);
+
+-- Selección de candidatos a archivar (status = 'RESOLVED' AND resolved_at < ?) sin recorrer la tabla
+create index idx_incidents_status_resolved_at on incidents (status, resolved_at);
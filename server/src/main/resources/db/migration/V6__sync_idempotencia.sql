@@ -0,0 +1,14 @@
+-- Operaciones ya aplicadas por /api/sync (SyncService), por usuario y clave de idempotencia.
+-- Un reintento con la misma clave devuelve el resultado guardado en lugar de aplicarse otra vez.
+-- Se depuran después de sync.idempotency-retention-hours.
+
+create table sync_operations (
+    user_id bigint not null,
+    idempotency_key varchar(64) not null,
+    operation_type varchar(32) not null,
+    server_id bigint,
+    created_at datetime(6) not null,
+    primary key (user_id, idempotency_key)
+) engine=InnoDB;
+
+create index idx_sync_operations_created_at on sync_operations (created_at);
@@ -0,0 +1,34 @@
+-- Sesiones con access tokens cortos (JWT) y refresh tokens rotativos.
+-- refresh_tokens: solo se guarda el SHA-256 del token; cada uso lo revoca y emite uno nuevo.
+-- token_revocations: jti de access tokens revocados antes de expirar (logout); se depuran al expirar.
+-- user_token_epochs: al desactivar, eliminar o cambiar la contraseña de un usuario se incrementa su época
+-- y dejan de valer todos los access tokens emitidos con una época menor.
+-- TokenRevocationService mantiene ambas listas en memoria; el filtro JWT no consulta estas tablas.
+
+create table refresh_tokens (
+    id bigint not null auto_increment,
+    user_id bigint not null,
+    token_hash char(64) not null,
+    expires_at datetime(6) not null,
+    created_at datetime(6) not null,
+    revoked_at datetime(6),
+    primary key (id),
+    constraint uk_refresh_tokens_hash unique (token_hash),
+    constraint fk_refresh_tokens_user foreign key (user_id) references users (id) on delete cascade
+) engine=InnoDB;
+
+create index idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
+
+create table token_revocations (
+    jti varchar(36) not null,
+    expires_at datetime(6) not null,
+    primary key (jti)
+) engine=InnoDB;
+
+create index idx_token_revocations_expires_at on token_revocations (expires_at);
+
+create table user_token_epochs (
+    user_id bigint not null,
+    epoch int not null,
+    primary key (user_id)
+) engine=InnoDB;
@@ -0,0 +1,16 @@
+-- Outbox de notificaciones WebSocket (NotificationOutbox).
+-- Cada evento se inserta en la misma transacción que el cambio que lo origina: si la transacción
+-- se revierte, el evento desaparece con ella. Después del commit un relay los lee en orden de id,
+-- los entrega a NotificationDispatcher y los borra; lo que no se pudo entregar se reintenta.
+-- username nulo: tópico de hotel; con valor: cola /user/{username}{destination}.
+
+create table notification_outbox (
+    id bigint not null auto_increment,
+    destination varchar(255) not null,
+    username varchar(255),
+    coalesce_key varchar(255),
+    payload longtext not null,
+    attempts int not null default 0,
+    created_at datetime(6) not null,
+    primary key (id)
+) engine=InnoDB;
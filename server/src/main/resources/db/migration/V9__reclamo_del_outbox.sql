@@ -0,0 +1,9 @@
+-- Reclamo de filas del outbox de notificaciones (NotificationOutbox).
+-- Cada pasada del relay marca con su claimed_by las filas que va a entregar; otra instancia no las toma
+-- mientras claimed_until no haya pasado. La fila se borra cuando NotificationDispatcher confirma el envío;
+-- si el envío falla se libera para reintentarla, y si la instancia se cae el reclamo vence.
+
+alter table notification_outbox add column claimed_by varchar(36);
+alter table notification_outbox add column claimed_until datetime(6);
+
+create index idx_notification_outbox_claimed_until on notification_outbox (claimed_until);
@@ -0,0 +1,122 @@
+package utex.edu.mx.server.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.service.RoomStateStore;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class ConditionalGetTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private BuildingRepository buildingRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private RoomStateStore roomStateStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private MockMvc mockMvc;
+	private Hotel hotel;
+	private Building building;
+	private Room room;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+		hotel = new Hotel();
+		hotel.setName("Hotel ETag");
+		hotel = hotelRepository.save(hotel);
+		building = new Building();
+		building.setName("Torre E");
+		building.setHotel(hotel);
+		building = buildingRepository.save(building);
+		room = new Room();
+		room.setNumber("E1");
+		room.setFloor(1);
+		room.setBuilding(building);
+		room = roomRepository.save(room);
+		roomStateStore.load();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM rooms WHERE building_id = ?", building.getId());
+		jdbcTemplate.update("DELETE FROM buildings WHERE id = ?", building.getId());
+		jdbcTemplate.update("DELETE FROM hotels WHERE id = ?", hotel.getId());
+		roomStateStore.load();
+	}
+
+	@Test
+	void unchangedListAnswers304() throws Exception {
+		String url = "/api/rooms/building/" + building.getId();
+		String etag = mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().bytes(new byte[0]));
+	}
+
+	@Test
+	void writeChangesTheEtagAndTheCachedBody() throws Exception {
+		String url = "/api/rooms/building/" + building.getId();
+		MvcResult before = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn();
+		String etag = before.getResponse().getHeader(HttpHeaders.ETAG);
+		assertTrue(before.getResponse().getContentAsString().contains("\"DIRTY\""));
+		String incidentsUrl = "/api/incidents/room/" + room.getId();
+		String incidentsEtag = mockMvc.perform(get(incidentsUrl))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(patch("/api/rooms/" + room.getId() + "/status")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("\"CLEAN\""))
+				.andExpect(status().isOk());
+
+		MvcResult after = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertNotEquals(etag, after.getResponse().getHeader(HttpHeaders.ETAG));
+		assertTrue(after.getResponse().getContentAsString().contains("\"CLEAN\""));
+		// Las incidencias embeben su habitación: su ETag también cambia
+		mockMvc.perform(get(incidentsUrl).header(HttpHeaders.IF_NONE_MATCH, incidentsEtag))
+				.andExpect(status().isOk());
+	}
+}
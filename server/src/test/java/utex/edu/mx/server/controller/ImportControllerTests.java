@@ -0,0 +1,67 @@
+package utex.edu.mx.server.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.service.RoomStateStore;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class ImportControllerTests {
+
+	private static final String HOTEL = "Hotel Importado Por API";
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private RoomStateStore roomStateStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		hotelRepository.findByName(HOTEL).ifPresent(hotel -> {
+			jdbcTemplate.update("DELETE FROM rooms WHERE building_id IN (SELECT id FROM buildings WHERE hotel_id = ?)", hotel.getId());
+			jdbcTemplate.update("DELETE FROM buildings WHERE hotel_id = ?", hotel.getId());
+			jdbcTemplate.update("DELETE FROM hotels WHERE id = ?", hotel.getId());
+		});
+		roomStateStore.load();
+	}
+
+	@Test
+	void missingContentTypeIsRejected() throws Exception {
+		mockMvc.perform(post("/api/import/rooms").content(HOTEL + ",Torre A,1,101"))
+				.andExpect(status().isUnsupportedMediaType());
+	}
+
+	@Test
+	void csvWithCharsetIsImportedAsCsv() throws Exception {
+		mockMvc.perform(post("/api/import/rooms")
+						.header("Content-Type", "text/csv;charset=UTF-8")
+						.content(HOTEL + ",Torre A,1,101\n" + HOTEL + ",Torre A,1,102\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.roomsInserted").value(2));
+	}
+}
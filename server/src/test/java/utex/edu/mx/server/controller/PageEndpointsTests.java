@@ -0,0 +1,172 @@
+package utex.edu.mx.server.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import utex.edu.mx.server.dto.CursorPage;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.IncidentRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@Transactional
+class PageEndpointsTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private BuildingRepository buildingRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private IncidentRepository incidentRepository;
+
+	private MockMvc mockMvc;
+	private Building building;
+	private List<Room> rooms;
+	private List<Incident> incidents;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+
+		Hotel hotel = new Hotel();
+		hotel.setName("Hotel Paginado");
+		hotel = hotelRepository.save(hotel);
+		building = new Building();
+		building.setName("Torre P");
+		building.setHotel(hotel);
+		building = buildingRepository.save(building);
+
+		User maid = new User();
+		maid.setUsername("mucama.paginada");
+		maid.setPassword("x");
+		maid.setName("Mucama Paginada");
+		maid.setRole(User.Role.MAID);
+		maid.setHotel(hotel);
+		maid = userRepository.save(maid);
+
+		rooms = new ArrayList<>();
+		incidents = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			Room room = new Room();
+			room.setNumber("P" + i);
+			room.setFloor(1);
+			room.setBuilding(building);
+			room = roomRepository.save(room);
+			rooms.add(room);
+
+			Incident incident = new Incident();
+			incident.setRoom(room);
+			incident.setReportedBy(maid);
+			incident.setDescription("Incidencia " + i);
+			incidents.add(incidentRepository.save(incident));
+		}
+	}
+
+	@Test
+	void roomCursorRoundTripVisitsEveryRoomOnceInIdOrder() throws Exception {
+		List<Long> visited = new ArrayList<>();
+		Long cursor = null;
+		int pages = 0;
+		JsonNode page;
+		do {
+			page = getJson("/api/rooms/page?buildingId=" + building.getId() + "&limit=2"
+					+ (cursor != null ? "&cursor=" + cursor : ""));
+			page.get("items").forEach(item -> visited.add(item.get("id").asLong()));
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asLong();
+			pages++;
+		} while (page.get("hasMore").asBoolean());
+
+		assertEquals(rooms.stream().map(Room::getId).toList(), visited);
+		assertEquals(3, pages);
+		assertEquals(1, page.get("items").size());
+		assertTrue(page.get("nextCursor").isNull());
+	}
+
+	@Test
+	void incidentPagesAreNewestFirstAndFollowTheCursor() {
+		List<Incident> first = incidentRepository.findPage(null, null, building.getId(), null, null, null, null,
+				null, null, Limit.of(3 + 1));
+		CursorPage<Incident> firstPage = CursorPage.of(first, 3, Incident::getId);
+		List<Incident> rest = incidentRepository.findPage(firstPage.getNextCursor(), null, building.getId(), null,
+				null, null, null, null, null, Limit.of(3 + 1));
+		CursorPage<Incident> lastPage = CursorPage.of(rest, 3, Incident::getId);
+
+		List<Long> expected = incidents.stream().map(Incident::getId).sorted(Comparator.reverseOrder()).toList();
+		assertTrue(firstPage.isHasMore());
+		assertEquals(expected.subList(0, 3), firstPage.getItems().stream().map(Incident::getId).toList());
+		assertFalse(lastPage.isHasMore());
+		assertEquals(expected.subList(3, 5), lastPage.getItems().stream().map(Incident::getId).toList());
+	}
+
+	@Test
+	void pageThatEndsExactlyOnTheLastRowHasNoNextCursor() throws Exception {
+		JsonNode page = getJson("/api/rooms/page?buildingId=" + building.getId() + "&limit=5");
+
+		assertEquals(5, page.get("items").size());
+		assertFalse(page.get("hasMore").asBoolean());
+		assertTrue(page.get("nextCursor").isNull());
+
+		JsonNode past = getJson("/api/rooms/page?buildingId=" + building.getId() + "&cursor=" + rooms.get(4).getId());
+		assertEquals(0, past.get("items").size());
+		assertFalse(past.get("hasMore").asBoolean());
+	}
+
+	@Test
+	void limitIsClampedToTheAllowedRange() throws Exception {
+		assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(null));
+		assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(0));
+		assertEquals(CursorPage.DEFAULT_LIMIT, CursorPage.clampLimit(-3));
+		assertEquals(CursorPage.MAX_LIMIT, CursorPage.clampLimit(CursorPage.MAX_LIMIT + 1));
+		assertEquals(7, CursorPage.clampLimit(7));
+
+		JsonNode page = getJson("/api/users/page?role=MAID&limit=100000");
+		assertTrue(page.get("items").size() <= CursorPage.MAX_LIMIT);
+		assertTrue(page.get("items").size() > 0);
+	}
+
+	private JsonNode getJson(String url) throws Exception {
+		String body = mockMvc.perform(get(url))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+}
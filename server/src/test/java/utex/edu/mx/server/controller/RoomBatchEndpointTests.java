@@ -0,0 +1,184 @@
+package utex.edu.mx.server.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.ObjectMapper;
+import utex.edu.mx.server.dto.RoomBatchRequest;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.repository.UserRepository;
+import utex.edu.mx.server.service.NotificationService;
+import utex.edu.mx.server.service.RoomStateStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class RoomBatchEndpointTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private BuildingRepository buildingRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private RoomStateStore roomStateStore;
+
+	@MockitoSpyBean
+	private NotificationService notificationService;
+
+	private MockMvc mockMvc;
+	private Hotel hotel;
+	private User maid;
+	private User reception;
+	private List<Room> rooms;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+		clearInvocations(notificationService);
+
+		hotel = new Hotel();
+		hotel.setName("Hotel Lotes");
+		hotel = hotelRepository.save(hotel);
+		Building building = new Building();
+		building.setName("Torre L");
+		building.setHotel(hotel);
+		building = buildingRepository.save(building);
+		maid = userRepository.save(user("mucama.lotes", User.Role.MAID));
+		reception = userRepository.save(user("recepcion.lotes", User.Role.RECEPTION));
+
+		rooms = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			Room room = new Room();
+			room.setNumber("L" + i);
+			room.setFloor(1);
+			room.setBuilding(building);
+			rooms.add(roomRepository.save(room));
+		}
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM rooms WHERE building_id IN (SELECT id FROM buildings WHERE hotel_id = ?)", hotel.getId());
+		jdbcTemplate.update("DELETE FROM buildings WHERE hotel_id = ?", hotel.getId());
+		jdbcTemplate.update("DELETE FROM users WHERE hotel_id = ?", hotel.getId());
+		jdbcTemplate.update("DELETE FROM hotels WHERE id = ?", hotel.getId());
+		roomStateStore.load();
+	}
+
+	@Test
+	void appliesTheWholeBatchAndNotifiesOnce() throws Exception {
+		Long first = rooms.get(0).getId();
+		Long second = rooms.get(1).getId();
+
+		mockMvc.perform(patch("/api/rooms/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body(
+								new RoomBatchRequest.Change(first, Room.RoomStatus.CLEAN, null, false),
+								new RoomBatchRequest.Change(second, null, maid.getId(), false),
+								new RoomBatchRequest.Change(first, Room.RoomStatus.OCCUPIED, null, false))))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.length()").value(2));
+
+		assertEquals(Room.RoomStatus.OCCUPIED, statusOf(first));
+		assertEquals(maid.getId(), jdbcTemplate.queryForObject("SELECT assigned_to FROM rooms WHERE id = ?", Long.class, second));
+		verify(notificationService, times(1)).sendRooms(eq("ROOMS_BATCH_UPDATED"), any(),
+				argThat((Collection<Room> notified) -> notified.size() == 2), any(NotificationService.Channel[].class));
+	}
+
+	@Test
+	void unknownRoomRejectsTheWholeBatch() throws Exception {
+		Long first = rooms.get(0).getId();
+
+		mockMvc.perform(patch("/api/rooms/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body(
+								new RoomBatchRequest.Change(first, Room.RoomStatus.CLEAN, null, false),
+								new RoomBatchRequest.Change(Long.MAX_VALUE, Room.RoomStatus.CLEAN, null, false))))
+				.andExpect(status().isBadRequest());
+
+		assertEquals(Room.RoomStatus.DIRTY, statusOf(first));
+		verify(notificationService, never()).sendRooms(anyString(), any(), any(), any(NotificationService.Channel[].class));
+	}
+
+	@Test
+	void assigningToANonMaidRejectsTheWholeBatch() throws Exception {
+		Long first = rooms.get(0).getId();
+		Long second = rooms.get(1).getId();
+
+		mockMvc.perform(patch("/api/rooms/batch")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body(
+								new RoomBatchRequest.Change(first, Room.RoomStatus.CLEAN, null, false),
+								new RoomBatchRequest.Change(second, null, reception.getId(), false))))
+				.andExpect(status().isBadRequest());
+
+		assertEquals(Room.RoomStatus.DIRTY, statusOf(first));
+		assertNull(jdbcTemplate.queryForObject("SELECT assigned_to FROM rooms WHERE id = ?", Long.class, second));
+		verify(notificationService, never()).sendRooms(anyString(), any(), any(), any(NotificationService.Channel[].class));
+	}
+
+	private Room.RoomStatus statusOf(Long roomId) {
+		return Room.RoomStatus.valueOf(jdbcTemplate.queryForObject("SELECT status FROM rooms WHERE id = ?", String.class, roomId));
+	}
+
+	private String body(RoomBatchRequest.Change... changes) {
+		return objectMapper.writeValueAsString(new RoomBatchRequest(List.of(changes)));
+	}
+
+	private User user(String username, User.Role role) {
+		User user = new User();
+		user.setUsername(username);
+		user.setPassword("x");
+		user.setName(username);
+		user.setRole(role);
+		user.setHotel(hotel);
+		return user;
+	}
+}
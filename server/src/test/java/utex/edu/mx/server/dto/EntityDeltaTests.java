@@ -0,0 +1,76 @@
+package utex.edu.mx.server.dto;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EntityDeltaTests {
+
+	@Test
+	void listsOnlyTheChangedFieldsAndVersionsByTheEntityCounter() {
+		Room room = room();
+		Map<String, Object> before = EntityDelta.roomFields(room);
+		User maid = new User();
+		maid.setId(9L);
+		room.setStatus(Room.RoomStatus.CLEAN);
+		room.setAssignedTo(maid);
+		room.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 10, 0, 5));
+		room.setVersion(4L);
+
+		EntityDelta delta = EntityDelta.room(before, room);
+
+		assertEquals(EntityDelta.EntityType.ROOM, delta.getEntity());
+		assertEquals(List.of("status", "assignedToId"), delta.getChanged());
+		assertEquals(9L, delta.getFields().get("assignedToId"));
+		assertEquals(3L, delta.getFields().get("buildingId"));
+		assertEquals(4L, delta.getVersion());
+		assertEquals(EntityDelta.SCHEMA, delta.getSchema());
+		assertNull(EntityDelta.room(null, room).getChanged());
+	}
+
+	@Test
+	void writesInTheSameMillisecondStillGetIncreasingVersions() {
+		Room room = room();
+		room.setVersion(1L);
+		EntityDelta first = EntityDelta.room(null, room);
+		room.setStatus(Room.RoomStatus.CLEAN);
+		room.setVersion(2L);
+		EntityDelta second = EntityDelta.room(null, room);
+
+		assertEquals(first.getFields().get("updatedAt"), second.getFields().get("updatedAt"));
+		assertTrue(second.getVersion() > first.getVersion());
+	}
+
+	@Test
+	void serializesAsCompactJson() {
+		String json = JsonMapper.builder().build().writeValueAsString(EntityDelta.room(null, room()));
+
+		assertTrue(json.contains("\"status\":\"DIRTY\""));
+		assertTrue(json.contains("\"updatedAt\":\"2025-03-01T10:00:00\""));
+		assertFalse(json.contains("\"building\""));
+	}
+
+	private static Room room() {
+		Building building = new Building();
+		building.setId(3L);
+		Room room = new Room();
+		room.setId(5L);
+		room.setNumber("101");
+		room.setFloor(1);
+		room.setStatus(Room.RoomStatus.DIRTY);
+		room.setBuilding(building);
+		room.setUpdatedAt(LocalDateTime.of(2025, 3, 1, 10, 0));
+		return room;
+	}
+}
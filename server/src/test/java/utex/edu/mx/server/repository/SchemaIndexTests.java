@@ -0,0 +1,81 @@
+package utex.edu.mx.server.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class SchemaIndexTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private Flyway flyway;
+
+	@Test
+	void migrationsAreApplied() {
+		assertEquals(0, flyway.info().pending().length);
+		assertTrue(flyway.info().applied().length > 0);
+	}
+
+	@Test
+	void baselinedDatabaseGetsEveryLaterTable() {
+		// Base previa a Flyway: solo el esquema que generaba ddl-auto (idéntico a V1)
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:baselinedb;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__esquema_inicial.sql")).execute(dataSource);
+
+		Flyway baselined = Flyway.configure()
+				.dataSource(dataSource)
+				.baselineOnMigrate(true)
+				.baselineVersion("1")
+				.load();
+		baselined.migrate();
+
+		assertEquals(0, baselined.info().pending().length);
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+		assertEquals(0, jdbc.queryForObject("select count(*) from change_log", Integer.class));
+		assertEquals(0, jdbc.queryForObject("select count(*) from notification_outbox", Integer.class));
+	}
+
+	@Test
+	void roomQueriesUseIndexes() {
+		assertUsesIndex("select * from rooms where status = 'DIRTY'", "idx_rooms_status");
+		assertUsesIndex("update rooms set status = 'DIRTY' where building_id = 1 and status = 'CLEAN'",
+				"idx_rooms_building_status");
+		assertUsesIndex("select * from rooms where building_id = 1 and floor = 2", "idx_rooms_building_floor");
+		assertUsesIndex("select * from rooms where assigned_to = 1 and status = 'DIRTY'", "idx_rooms_assigned_status");
+	}
+
+	@Test
+	void incidentQueriesUseIndexes() {
+		assertUsesIndex("select * from incidents where room_id = 1 and status = 'OPEN'", "idx_incidents_room_status");
+		assertUsesIndex("select * from incidents where created_at >= timestamp '2025-01-01 00:00:00'",
+				"idx_incidents_created_at");
+		assertUsesIndex("select id from incidents where status = 'RESOLVED' and resolved_at < timestamp '2025-01-01 00:00:00'",
+				"idx_incidents_status_resolved_at");
+	}
+
+	@Test
+	void lookupQueriesUseIndexes() {
+		assertUsesIndex("select * from users where role = 'MAID' and active = true", "idx_users_role_active");
+		assertUsesIndex("select * from buildings where hotel_id = 1 and name = 'Torre A'", "idx_buildings_hotel_name");
+		assertUsesIndex("select * from hotels where name = 'Hotel'", "idx_hotels_name");
+		assertUsesIndex("delete from change_log where changed_at < timestamp '2025-01-01 00:00:00'",
+				"idx_change_log_changed_at");
+	}
+
+	private void assertUsesIndex(String sql, String index) {
+		String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+		assertTrue(plan.toLowerCase().contains(index), () -> "Plan sin " + index + ": " + plan.replace("\n", " "));
+	}
+}
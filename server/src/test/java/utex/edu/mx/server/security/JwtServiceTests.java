@@ -0,0 +1,57 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JwtServiceTests {
+
+	private static final String SECRET = "mySecretKeyForHotelManagementSystemThatIsVeryLongAndSecure12345";
+
+	private final UserDetails maid = User.withUsername("mucama1").password("x").roles("MAID").build();
+
+	@Test
+	void verifiesOnceAndReusesTheClaimsUntilExpiry() {
+		JwtService jwtService = new JwtService(SECRET, 60_000L, 100);
+		String token = jwtService.generateToken(maid, Map.of("role", "MAID", "userId", 7));
+
+		Claims claims = jwtService.verify(token);
+		assertEquals("mucama1", claims.getSubject());
+		assertEquals(7, claims.get("userId", Integer.class));
+		assertSame(claims, jwtService.verify(token));
+	}
+
+	@Test
+	void cacheNeverGrowsPastItsMaxSize() {
+		JwtService jwtService = new JwtService(SECRET, 60_000L, 2);
+
+		for (int i = 0; i < 5; i++) {
+			String token = jwtService.generateToken(maid);
+			assertEquals("mucama1", jwtService.verify(token).getSubject());
+			assertEquals("mucama1", jwtService.verify(token).getSubject());
+		}
+
+		assertEquals(2, jwtService.verifiedCacheSize());
+	}
+
+	@Test
+	void rejectsTamperedAndExpiredTokens() {
+		JwtService jwtService = new JwtService(SECRET, 60_000L, 100);
+		String token = jwtService.generateToken(maid);
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+		assertThrows(JwtException.class, () -> jwtService.verify(tampered));
+
+		JwtService expiring = new JwtService(SECRET, -1_000L, 100);
+		String expired = expiring.generateToken(maid);
+		assertThrows(ExpiredJwtException.class, () -> expiring.verify(expired));
+	}
+}
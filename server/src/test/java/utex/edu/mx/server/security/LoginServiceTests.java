@@ -0,0 +1,85 @@
+package utex.edu.mx.server.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"security.bcrypt.strength=5", "security.login.max-failures=2",
+		"security.login.max-tracked-users=3"})
+class LoginServiceTests {
+
+	@Autowired
+	private LoginService loginService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void locksUsernameAfterRepeatedFailuresWithoutHashing() {
+		User user = createUser("bloqueo", passwordEncoder.encode("secreta"));
+
+		assertThrows(BadCredentialsException.class, () -> loginService.authenticate(user.getUsername(), "mala"));
+		assertThrows(BadCredentialsException.class, () -> loginService.authenticate(user.getUsername(), "mala"));
+		long failed = loginService.getStats().failed();
+
+		LoginRejectedException rejected = assertThrows(LoginRejectedException.class,
+				() -> loginService.authenticate(user.getUsername(), "secreta"));
+		assertTrue(rejected.getRetryAfterSeconds() > 0);
+		assertEquals(failed, loginService.getStats().failed());
+	}
+
+	@Test
+	void tracksAtMostTheConfiguredNumberOfUsernames() {
+		for (int i = 0; i < 6; i++) {
+			String username = "inexistente-" + i;
+			assertThrows(BadCredentialsException.class, () -> loginService.authenticate(username, "mala"));
+		}
+
+		assertTrue(loginService.getStats().trackedUsers() <= 3);
+	}
+
+	@Test
+	void rehashesStoredPasswordToTheConfiguredCost() throws InterruptedException {
+		User user = createUser("rehash", new BCryptPasswordEncoder(4).encode("secreta"));
+		assertTrue(loginService.needsRehash(user.getPassword()));
+
+		assertEquals(user.getId(), loginService.authenticate("rehash", "secreta").getId());
+
+		String stored = null;
+		for (int i = 0; i < 50; i++) {
+			stored = jdbcTemplate.queryForObject("SELECT password FROM users WHERE id = ?", String.class, user.getId());
+			if (!loginService.needsRehash(stored)) {
+				break;
+			}
+			Thread.sleep(50);
+		}
+		assertTrue(stored.startsWith("$2a$05$"));
+		assertEquals(user.getId(), loginService.authenticate("rehash", "secreta").getId());
+	}
+
+	private User createUser(String username, String hash) {
+		User user = new User();
+		user.setUsername(username);
+		user.setPassword(hash);
+		user.setName(username);
+		user.setRole(User.Role.MAID);
+		user.setActive(true);
+		return userRepository.save(user);
+	}
+}
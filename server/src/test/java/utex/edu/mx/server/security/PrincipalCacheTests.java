@@ -0,0 +1,69 @@
+package utex.edu.mx.server.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PrincipalCacheTests {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final Function<String, UserDetails> loader = username -> {
+		loads.incrementAndGet();
+		return User.withUsername(username).password("x").roles("MAID").build();
+	};
+
+	@Test
+	void servesRepeatedLookupsFromMemoryUntilInvalidated() {
+		PrincipalCache cache = new PrincipalCache(10, 300);
+
+		cache.get("maria", loader);
+		cache.get("maria", loader);
+		assertEquals(1, loads.get());
+
+		cache.invalidate("maria");
+		cache.get("maria", loader);
+		assertEquals(2, loads.get());
+
+		PrincipalCache.Stats stats = cache.getStats();
+		assertEquals(1, stats.hits());
+		assertEquals(2, stats.misses());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedBeyondMaxSize() {
+		PrincipalCache cache = new PrincipalCache(2, 300);
+
+		cache.get("a", loader);
+		cache.get("b", loader);
+		cache.get("a", loader);
+		cache.get("c", loader);
+		cache.get("a", loader);
+		assertEquals(3, loads.get());
+
+		cache.get("b", loader);
+		assertEquals(4, loads.get());
+		assertEquals(2, cache.getStats().size());
+		assertEquals(2, cache.getStats().evictions());
+	}
+
+	@Test
+	void loadRacingAnInvalidationIsNotCached() {
+		PrincipalCache cache = new PrincipalCache(10, 300);
+
+		cache.get("maria", username -> {
+			cache.invalidate(username);
+			return loader.apply(username);
+		});
+		cache.get("maria", loader);
+
+		assertEquals(2, loads.get());
+		assertFalse(cache.getStats().hits() > 0);
+	}
+}
@@ -0,0 +1,119 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.BadCredentialsException;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class RefreshTokenServiceTests {
+
+	@Autowired
+	private RefreshTokenService refreshTokenService;
+
+	@Autowired
+	private TokenRevocationService tokenRevocations;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private CustomUserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void reuseWithinTheGraceWindowReturnsTheSameSuccessor() {
+		User user = userRepository.findByUsername("admin").orElseThrow();
+		Claims access = issueAccessToken(user);
+
+		String first = refreshTokenService.issue(user.getId());
+		RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+		// Otra pestaña presenta el mismo token al mismo tiempo
+		RefreshTokenService.Rotation concurrent = refreshTokenService.rotate(first);
+
+		assertEquals(rotation.refreshToken(), concurrent.refreshToken());
+		assertFalse(tokenRevocations.isRevoked(access));
+		assertNotEquals(rotation.refreshToken(), refreshTokenService.rotate(rotation.refreshToken()).refreshToken());
+	}
+
+	@Test
+	void rotatesOnceAndRevokesTheWholeSessionOnReuse() {
+		// Sin ventana de gracia cualquier reuso cuenta como robo
+		RefreshTokenService strict = new RefreshTokenService(jdbcTemplate, userRepository, tokenRevocations,
+				1209600000L, 0);
+		User user = userRepository.findByUsername("mucama1").orElseThrow();
+		Claims access = issueAccessToken(user);
+		assertFalse(tokenRevocations.isRevoked(access));
+
+		String first = strict.issue(user.getId());
+		RefreshTokenService.Rotation rotation = strict.rotate(first);
+		assertEquals(user.getId(), rotation.user().getId());
+		assertNotEquals(first, rotation.refreshToken());
+
+		// Reutilizar el token ya rotado invalida todo lo emitido para el usuario
+		assertThrows(BadCredentialsException.class, () -> strict.rotate(first));
+		assertTrue(tokenRevocations.isRevoked(access));
+		assertThrows(BadCredentialsException.class, () -> strict.rotate(rotation.refreshToken()));
+		assertFalse(tokenRevocations.isRevoked(issueAccessToken(user)));
+	}
+
+	@Test
+	void revokedRefreshTokensAreKeptUntilTheyExpire() {
+		User user = userRepository.findByUsername("admin").orElseThrow();
+		String token = refreshTokenService.issue(user.getId());
+		refreshTokenService.revoke(token);
+		jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = ? WHERE token_hash = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusDays(3)), TokenDigests.sha256Hex(token));
+
+		tokenRevocations.pruneExpired();
+		assertEquals(1, countRows(token));
+
+		jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = ? WHERE token_hash = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)), TokenDigests.sha256Hex(token));
+		tokenRevocations.pruneExpired();
+		assertEquals(0, countRows(token));
+	}
+
+	@Test
+	void revokesSingleAccessTokenById() {
+		User user = userRepository.findByUsername("admin").orElseThrow();
+		Claims access = issueAccessToken(user);
+		Claims other = issueAccessToken(user);
+
+		tokenRevocations.revokeToken(access.getId(), access.getExpiration());
+
+		assertTrue(tokenRevocations.isRevoked(access));
+		assertFalse(tokenRevocations.isRevoked(other));
+	}
+
+	private int countRows(String token) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens WHERE token_hash = ?", Integer.class,
+				TokenDigests.sha256Hex(token));
+	}
+
+	private Claims issueAccessToken(User user) {
+		String token = jwtService.generateToken(userDetailsService.toUserDetails(user), Map.of(
+				JwtService.USER_ID_CLAIM, user.getId(),
+				JwtService.EPOCH_CLAIM, tokenRevocations.currentEpoch(user.getId())));
+		return jwtService.verify(token);
+	}
+}
@@ -0,0 +1,181 @@
+package utex.edu.mx.server.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import utex.edu.mx.server.repository.UserRepository;
+import utex.edu.mx.server.service.WebSocketSessionMonitor;
+
+import java.security.Principal;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StompAuthChannelInterceptorTests {
+
+	private static final String SECRET = "mySecretKeyForHotelManagementSystemThatIsVeryLongAndSecure12345";
+
+	private final JwtService jwtService = new JwtService(SECRET, 60_000L, 100);
+	private final TokenRevocationService tokenRevocations = mock(TokenRevocationService.class);
+	private final WebSocketSessionMonitor sessionMonitor = mock(WebSocketSessionMonitor.class);
+	private final StompSessionRegistry sessionRegistry = new StompSessionRegistry(tokenRevocations, sessionMonitor);
+	private final StompAuthChannelInterceptor interceptor =
+			new StompAuthChannelInterceptor(jwtService, tokenRevocations, mock(UserRepository.class), sessionRegistry);
+	private final MessageChannel channel = mock(MessageChannel.class);
+
+	@Test
+	void connectRequiresAValidTokenAndRejectsRevokedOnes() {
+		assertThrows(AccessDeniedException.class, () -> interceptor.preSend(connect(null), channel));
+		assertThrows(AccessDeniedException.class, () -> interceptor.preSend(connect("Bearer no-es-un-jwt"), channel));
+
+		String token = token("recepcion1", "RECEPTION", 3, 1);
+		Message<?> connected = interceptor.preSend(connect("Bearer " + token), channel);
+		StompPrincipal principal = (StompPrincipal) StompHeaderAccessor.wrap(connected).getUser();
+		assertEquals("recepcion1", principal.getName());
+		assertEquals(1L, principal.hotelId());
+
+		when(tokenRevocations.isRevoked(any(Claims.class))).thenReturn(true);
+		assertThrows(AccessDeniedException.class, () -> interceptor.preSend(connect("Bearer " + token), channel));
+	}
+
+	@Test
+	void maidsOnlySubscribeToTheirQueueAndReceptionOnlyToItsHotel() {
+		StompPrincipal maid = principal("mucama1", "MAID", 7, 1);
+		StompPrincipal reception = principal("recepcion1", "RECEPTION", 3, 1);
+
+		assertDoesNotThrow(() -> interceptor.preSend(subscribe(maid, "/user/queue/rooms"), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(subscribe(maid, "/topic/hotels/1/rooms"), channel));
+
+		assertDoesNotThrow(() -> interceptor.preSend(subscribe(reception, "/topic/hotels/1/incidents"), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(subscribe(reception, "/topic/hotels/2/incidents"), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(subscribe(reception, "/topic/rooms"), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(subscribe(null, "/user/queue/rooms"), channel));
+	}
+
+	@Test
+	void sendAndSubscribeAreRejectedOnceTheTokenExpiresOrIsRevoked() {
+		StompPrincipal expired = receptionExpiringAt("recepcion1", 3L, Instant.now().minusSeconds(1));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(subscribe(expired, "/topic/hotels/1/rooms"), channel));
+		assertThrows(AccessDeniedException.class, () -> interceptor.preSend(send(expired), channel));
+
+		StompPrincipal reception = principal("recepcion1", "RECEPTION", 3, 1);
+		assertDoesNotThrow(() -> interceptor.preSend(send(reception), channel));
+		when(tokenRevocations.isRevoked(any(Claims.class))).thenReturn(true);
+		assertThrows(AccessDeniedException.class, () -> interceptor.preSend(send(reception), channel));
+		assertThrows(AccessDeniedException.class,
+				() -> interceptor.preSend(subscribe(reception, "/topic/hotels/1/rooms"), channel));
+	}
+
+	@Test
+	void revokingAUserClosesOnlyThatUsersOpenSessions() {
+		interceptor.preSend(connect("Bearer " + token("recepcion1", "RECEPTION", 3, 1), "s1"), channel);
+		interceptor.preSend(connect("Bearer " + token("recepcion1", "RECEPTION", 3, 1), "s2"), channel);
+		interceptor.preSend(connect("Bearer " + token("mucama1", "MAID", 7, 1), "s3"), channel);
+		interceptor.preSend(disconnect("s2"), channel);
+
+		sessionRegistry.onUserTokensRevoked(new UserTokensRevokedEvent(3L));
+
+		verify(sessionMonitor).close(eq("s1"), any());
+		verify(sessionMonitor, never()).close(eq("s2"), any());
+		verify(sessionMonitor, never()).close(eq("s3"), any());
+	}
+
+	@Test
+	void droppedConnectionsAreForgottenWithoutADisconnectFrame() {
+		Message<byte[]> connect = connect("Bearer " + token("recepcion1", "RECEPTION", 3, 1), "s1");
+		interceptor.preSend(connect, channel);
+
+		sessionRegistry.onSessionDisconnect(new SessionDisconnectEvent(this, connect, "s1", CloseStatus.NO_CLOSE_FRAME));
+		sessionRegistry.onUserTokensRevoked(new UserTokensRevokedEvent(3L));
+
+		verify(sessionMonitor, never()).close(eq("s1"), any());
+	}
+
+	@Test
+	void sweepClosesSessionsWhoseTokenExpired() {
+		sessionRegistry.register("vencida", receptionExpiringAt("recepcion1", 3L, Instant.now().minusSeconds(1)));
+		sessionRegistry.register("vigente", receptionExpiringAt("recepcion2", 4L, Instant.now().plusSeconds(60)));
+
+		sessionRegistry.closeInvalidSessions();
+
+		verify(sessionMonitor).close(eq("vencida"), any());
+		verify(sessionMonitor, never()).close(eq("vigente"), any());
+	}
+
+	private String token(String username, String role, long userId, long hotelId) {
+		return jwtService.generateToken(User.withUsername(username).password("x").roles(role).build(),
+				Map.of(JwtService.ROLE_CLAIM, role, JwtService.USER_ID_CLAIM, userId, JwtService.HOTEL_ID_CLAIM, hotelId));
+	}
+
+	private StompPrincipal principal(String username, String role, long userId, long hotelId) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.wrap(
+				interceptor.preSend(connect("Bearer " + token(username, role, userId, hotelId)), channel));
+		return (StompPrincipal) accessor.getUser();
+	}
+
+	private static StompPrincipal receptionExpiringAt(String username, long userId, Instant expiration) {
+		return new StompPrincipal(username, userId, 1L, utex.edu.mx.server.model.User.Role.RECEPTION,
+				Jwts.claims().subject(username).expiration(Date.from(expiration)).build());
+	}
+
+	private static Message<byte[]> connect(String authorization) {
+		return connect(authorization, null);
+	}
+
+	private static Message<byte[]> connect(String authorization, String sessionId) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+		accessor.setSessionId(sessionId);
+		if (authorization != null) {
+			accessor.addNativeHeader("Authorization", authorization);
+		}
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> disconnect(String sessionId) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+		accessor.setSessionId(sessionId);
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> send(Principal user) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+		accessor.setDestination("/app/ping");
+		accessor.setUser(user);
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private static Message<byte[]> subscribe(Principal user, String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setDestination(destination);
+		accessor.setUser(user);
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,157 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import utex.edu.mx.server.dto.ChangeFeedResponse;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.ChangeLogEntry;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ChangeFeedServiceTests {
+
+	@Autowired
+	private ChangeFeedService changeFeedService;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private BuildingRepository buildingRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Hotel hotel;
+	private Room room;
+	private long caughtUp;
+
+	@BeforeEach
+	void setUp() {
+		hotel = new Hotel();
+		hotel.setName("Hotel Feed");
+		hotel = hotelRepository.save(hotel);
+		Building building = new Building();
+		building.setName("Torre F");
+		building.setHotel(hotel);
+		building = buildingRepository.save(building);
+		room = new Room();
+		room.setNumber("F1");
+		room.setFloor(1);
+		room.setBuilding(building);
+		room = roomRepository.save(room);
+		// La fila más reciente marca el punto de partida: el siguiente id automático es caughtUp + 1
+		changeFeedService.recordRoom(room.getId(), ChangeLogEntry.Operation.UPSERT);
+		caughtUp = jdbcTemplate.queryForObject("SELECT MAX(id) FROM change_log", Long.class);
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM change_log WHERE entity_id = ? AND entity_type = ?", room.getId(),
+				ChangeLogEntry.EntityType.ROOM.name());
+		jdbcTemplate.update("DELETE FROM rooms WHERE id = ?", room.getId());
+		jdbcTemplate.update("DELETE FROM buildings WHERE hotel_id = ?", hotel.getId());
+		jdbcTemplate.update("DELETE FROM hotels WHERE id = ?", hotel.getId());
+	}
+
+	@Test
+	void tokenReturnsOnlyWhatChangedAfterIt() {
+		changeFeedService.recordRoom(room.getId(), ChangeLogEntry.Operation.UPSERT);
+
+		ChangeFeedResponse changes = changeFeedService.getChanges(caughtUp, null);
+		ChangeFeedResponse again = changeFeedService.getChanges(changes.getToken(), null);
+
+		assertFalse(changes.isReset());
+		assertEquals(List.of(room.getId()), changes.getRooms().stream().map(Room::getId).toList());
+		assertTrue(changes.getToken() > caughtUp);
+		assertTrue(again.getRooms().isEmpty());
+		assertEquals(changes.getToken(), again.getToken());
+	}
+
+	@Test
+	void firstSyncResetsToATokenBeforeTheCommitWindow() {
+		ChangeFeedResponse first = changeFeedService.getChanges(null, null);
+
+		assertTrue(first.isReset());
+		assertTrue(first.getRooms().isEmpty());
+		// Lo escrito dentro de la ventana de confirmación queda después del token y se vuelve a entregar
+		assertTrue(first.getToken() < caughtUp);
+	}
+
+	@Test
+	void tokenAheadOfTheHeadResets() {
+		ChangeFeedResponse changes = changeFeedService.getChanges(caughtUp + 1000, null);
+
+		assertTrue(changes.isReset());
+		assertTrue(changes.getRooms().isEmpty());
+	}
+
+	@Test
+	void prunedTokenResets() {
+		changeFeedService.recordRoom(room.getId(), ChangeLogEntry.Operation.UPSERT);
+		changeFeedService.recordRoom(room.getId(), ChangeLogEntry.Operation.UPSERT);
+		long head = changeFeedService.getChanges(caughtUp, null).getToken();
+		jdbcTemplate.update("UPDATE change_log SET changed_at = ? WHERE id < ?",
+				Timestamp.valueOf(LocalDateTime.now().minusDays(30)), head);
+		changeFeedService.pruneChangeLog();
+
+		ChangeFeedResponse expired = changeFeedService.getChanges(caughtUp, null);
+		ChangeFeedResponse resumed = changeFeedService.getChanges(expired.getToken(), null);
+
+		assertTrue(expired.isReset());
+		assertEquals(head - 1, expired.getToken());
+		assertFalse(resumed.isReset());
+		assertEquals(head, resumed.getToken());
+		assertEquals(List.of(room.getId()), resumed.getRooms().stream().map(Room::getId).toList());
+	}
+
+	@Test
+	void recentGapHoldsTheTokenUntilTheLowerIdCommits() {
+		insertEntry(caughtUp + 2, LocalDateTime.now());
+
+		ChangeFeedResponse held = changeFeedService.getChanges(caughtUp, null);
+		insertEntry(caughtUp + 1, LocalDateTime.now());
+		ChangeFeedResponse released = changeFeedService.getChanges(caughtUp, null);
+
+		assertEquals(caughtUp, held.getToken());
+		assertFalse(held.isHasMore());
+		assertTrue(held.getRooms().isEmpty());
+		assertEquals(caughtUp + 2, released.getToken());
+		assertEquals(List.of(room.getId()), released.getRooms().stream().map(Room::getId).toList());
+	}
+
+	@Test
+	void gapOlderThanTheCommitWindowIsSkipped() {
+		insertEntry(caughtUp + 2, LocalDateTime.now().minusHours(1));
+
+		ChangeFeedResponse changes = changeFeedService.getChanges(caughtUp, null);
+
+		assertEquals(caughtUp + 2, changes.getToken());
+		assertEquals(List.of(room.getId()), changes.getRooms().stream().map(Room::getId).toList());
+	}
+
+	private void insertEntry(long id, LocalDateTime changedAt) {
+		jdbcTemplate.update("INSERT INTO change_log (id, entity_type, entity_id, operation, changed_at) VALUES (?, ?, ?, ?, ?)",
+				id, ChangeLogEntry.EntityType.ROOM.name(), room.getId(), ChangeLogEntry.Operation.UPSERT.name(),
+				Timestamp.valueOf(changedAt));
+	}
+}
@@ -0,0 +1,133 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import utex.edu.mx.server.dto.IncidentTimeStats;
+import utex.edu.mx.server.model.Incident;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IncidentAnalyticsServiceTests {
+
+	private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+	@Test
+	void histogramPercentilesStayWithinBucketErrorAndMerge() {
+		DurationHistogram first = new DurationHistogram();
+		DurationHistogram second = new DurationHistogram();
+		for (long minutes = 1; minutes <= 1000; minutes++) {
+			(minutes % 2 == 0 ? first : second).record(minutes * 60);
+		}
+		first.merge(second);
+
+		assertEquals(1000, first.count());
+		assertWithin(500 * 60, first.percentile(0.50));
+		assertWithin(900 * 60, first.percentile(0.90));
+		assertWithin(990 * 60, first.percentile(0.99));
+		assertNull(new DurationHistogram().percentile(0.5));
+		assertEquals(DurationHistogram.BUCKETS - 1, DurationHistogram.bucketOf(Long.MAX_VALUE));
+	}
+
+	@Test
+	void tracksResolutionsReopeningsAndOpenAgePerGroup() {
+		IncidentAnalyticsService analytics = new IncidentAnalyticsService(mock(JdbcTemplate.class));
+		// Hotel 1: edificio 10 (habitaciones 100 y 101); hotel 2: edificio 20. El usuario 7 reporta en ambos
+		analytics.applyChange(1L, null, resolved(1L, 10L, 100L, 7L, 60));
+		analytics.applyChange(2L, null, resolved(1L, 10L, 101L, 8L, 120));
+		analytics.applyChange(3L, null, resolved(2L, 20L, 200L, 7L, 600));
+		analytics.applyChange(4L, null, open(1L, 10L, 100L, 8L, LocalDateTime.now().minusHours(2)));
+
+		IncidentTimeStats byHotel = analytics.getStats(IncidentAnalyticsService.Dimension.HOTEL, null);
+		assertEquals(3, byHotel.getResolution().getCount());
+		assertEquals(2, byHotel.getGroups().size());
+		assertEquals(2, byHotel.getGroups().get(0).getResolution().getCount());
+		assertEquals(1, byHotel.getGroups().get(0).getOpenAge().getCount());
+		assertWithin(2 * 3600, byHotel.getGroups().get(0).getOpenAge().getP50());
+
+		IncidentTimeStats byReporter = analytics.getStats(IncidentAnalyticsService.Dimension.REPORTER, null);
+		assertEquals(2, byReporter.getGroups().get(0).getResolution().getCount());
+		IncidentTimeStats reporterInHotel1 = analytics.getStats(IncidentAnalyticsService.Dimension.REPORTER, 1L);
+		assertWithin(60 * 60, reporterInHotel1.getGroups().get(0).getResolution().getP99());
+
+		// Reabrir quita la resolución anterior y la vuelve a contar como abierta
+		analytics.applyChange(3L, resolved(2L, 20L, 200L, 7L, 600), open(2L, 20L, 200L, 7L, CREATED));
+		IncidentTimeStats building20 = analytics.getStats(IncidentAnalyticsService.Dimension.BUILDING, 2L);
+		assertEquals(0, building20.getResolution().getCount());
+		assertEquals(1, building20.getOpenAge().getCount());
+
+		analytics.applyChange(3L, open(2L, 20L, 200L, 7L, CREATED), null);
+		assertTrue(analytics.getStats(IncidentAnalyticsService.Dimension.ROOM, 2L).getGroups().isEmpty());
+	}
+
+	@Test
+	void changesDuringLoadReplaceWhatTheScanRead() throws Exception {
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		IncidentAnalyticsService analytics = new IncidentAnalyticsService(jdbcTemplate);
+		IncidentAnalyticsService.Sample resolvedOne = resolved(1L, 10L, 100L, 7L, 60);
+		IncidentAnalyticsService.Sample reopenedOne = open(1L, 10L, 100L, 7L, CREATED);
+		IncidentAnalyticsService.Sample createdTwo = open(1L, 10L, 101L, 7L, CREATED);
+		IncidentAnalyticsService.Sample openThree = open(1L, 10L, 102L, 8L, CREATED);
+		IncidentAnalyticsService.Sample resolvedThree = resolved(1L, 10L, 102L, 8L, 30);
+		doAnswer(invocation -> {
+			RowCallbackHandler handler = invocation.getArgument(1);
+			// 1: se lee resuelta y se reabre después; 2: se crea y el recorrido ya la ve;
+			// 3: se resuelve antes de que el recorrido la lea
+			handler.processRow(row(1L, resolvedOne));
+			analytics.applyChange(1L, resolvedOne, reopenedOne);
+			analytics.applyChange(2L, null, createdTwo);
+			handler.processRow(row(2L, createdTwo));
+			analytics.applyChange(3L, openThree, resolvedThree);
+			handler.processRow(row(3L, resolvedThree));
+			return null;
+		}).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+		analytics.load();
+
+		IncidentTimeStats stats = analytics.getStats(IncidentAnalyticsService.Dimension.HOTEL, null);
+		assertEquals(1, stats.getResolution().getCount());
+		assertWithin(30 * 60, stats.getResolution().getP50());
+		assertEquals(2, stats.getOpenAge().getCount());
+	}
+
+	private static ResultSet row(Long id, IncidentAnalyticsService.Sample sample) throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getObject("id", Long.class)).thenReturn(id);
+		when(rs.getObject("hotel_id", Long.class)).thenReturn(sample.hotelId());
+		when(rs.getObject("building_id", Long.class)).thenReturn(sample.buildingId());
+		when(rs.getObject("room_id", Long.class)).thenReturn(sample.roomId());
+		when(rs.getObject("reported_by", Long.class)).thenReturn(sample.reporterId());
+		when(rs.getString("status")).thenReturn(sample.status().name());
+		when(rs.getTimestamp("created_at")).thenReturn(Timestamp.valueOf(sample.createdAt()));
+		when(rs.getTimestamp("resolved_at"))
+				.thenReturn(sample.resolvedAt() != null ? Timestamp.valueOf(sample.resolvedAt()) : null);
+		return rs;
+	}
+
+	private static IncidentAnalyticsService.Sample resolved(Long hotelId, Long buildingId, Long roomId, Long reporterId,
+			long minutes) {
+		return new IncidentAnalyticsService.Sample(hotelId, buildingId, roomId, reporterId,
+				Incident.IncidentStatus.RESOLVED, CREATED, CREATED.plusMinutes(minutes));
+	}
+
+	private static IncidentAnalyticsService.Sample open(Long hotelId, Long buildingId, Long roomId, Long reporterId,
+			LocalDateTime createdAt) {
+		return new IncidentAnalyticsService.Sample(hotelId, buildingId, roomId, reporterId,
+				Incident.IncidentStatus.OPEN, createdAt, null);
+	}
+
+	private static void assertWithin(long expected, Long actual) {
+		assertTrue(Math.abs(actual - expected) <= expected * 0.04, "esperado ~" + expected + ", obtenido " + actual);
+	}
+}
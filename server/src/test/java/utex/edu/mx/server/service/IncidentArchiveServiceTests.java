@@ -0,0 +1,88 @@
+package utex.edu.mx.server.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+import utex.edu.mx.server.model.ArchivedIncident;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.repository.ArchivedIncidentRepository;
+import utex.edu.mx.server.repository.IncidentRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Transactional
+class IncidentArchiveServiceTests {
+
+	@Autowired
+	private IncidentArchiveService archiveService;
+
+	@Autowired
+	private IncidentRepository incidentRepository;
+
+	@Autowired
+	private ArchivedIncidentRepository archivedIncidentRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@AfterEach
+	void restoreBatchSize() {
+		ReflectionTestUtils.setField(archiveService, "batchSize", 500);
+		ReflectionTestUtils.setField(archiveService, "pauseMs", 200L);
+	}
+
+	@Test
+	void movesOnlyOldResolvedIncidentsInBatches() {
+		LocalDateTime now = LocalDateTime.now();
+		Incident oldResolved = save(Incident.IncidentStatus.RESOLVED, now.minusDays(200), "Fuga reparada");
+		Incident olderResolved = save(Incident.IncidentStatus.RESOLVED, now.minusDays(300), "Foco cambiado");
+		Incident recentResolved = save(Incident.IncidentStatus.RESOLVED, now.minusDays(5), "Llave ajustada");
+		Incident oldOpen = save(Incident.IncidentStatus.OPEN, null, null);
+		ReflectionTestUtils.setField(archiveService, "batchSize", 1);
+		ReflectionTestUtils.setField(archiveService, "pauseMs", 0L);
+
+		int archived = archiveService.archiveResolvedBefore(now.minusDays(90));
+		entityManager.clear();
+
+		assertEquals(2, archived);
+		assertTrue(incidentRepository.findById(oldResolved.getId()).isEmpty());
+		assertTrue(incidentRepository.findById(olderResolved.getId()).isEmpty());
+		assertTrue(incidentRepository.findById(recentResolved.getId()).isPresent());
+		assertTrue(incidentRepository.findById(oldOpen.getId()).isPresent());
+
+		ArchivedIncident copy = archivedIncidentRepository.findById(oldResolved.getId()).orElseThrow();
+		assertEquals("Fuga reparada", copy.getResolutionNotes());
+		assertEquals(oldResolved.getRoom().getId(), copy.getRoom().getId());
+		assertNotNull(copy.getArchivedAt());
+		assertEquals(oldResolved.getId(), copy.toIncident().getId());
+	}
+
+	private Incident save(Incident.IncidentStatus status, LocalDateTime resolvedAt, String resolutionNotes) {
+		Incident incident = new Incident();
+		incident.setRoom(roomRepository.findAll().get(0));
+		incident.setReportedBy(userRepository.findAll().get(0));
+		incident.setDescription("Incidencia de prueba");
+		incident.setStatus(status);
+		incident.setResolvedAt(resolvedAt);
+		incident.setResolutionNotes(resolutionNotes);
+		incident.setCreatedAt(LocalDateTime.now().minusDays(400));
+		return incidentRepository.saveAndFlush(incident);
+	}
+}
@@ -0,0 +1,67 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import utex.edu.mx.server.model.Incident;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class IncidentSearchServiceTests {
+
+	private IncidentSearchService search;
+
+	@BeforeEach
+	void setUp() {
+		search = new IncidentSearchService(mock(JdbcTemplate.class));
+		search.index(1L, Incident.IncidentStatus.OPEN, "El aire acondicionado no enfría", null);
+		search.index(2L, Incident.IncidentStatus.RESOLVED, "Fugas de agua en el baño", "Se cambió la llave del lavabo");
+		search.index(3L, Incident.IncidentStatus.OPEN, "Fuga en la regadera, el aire huele a humedad", null);
+		search.index(4L, Incident.IncidentStatus.OPEN, "Foco fundido en la habitación", null);
+	}
+
+	@Test
+	void foldsAccentsCaseAndPlurals() {
+		assertEquals(List.of(2L), ids(search.search("BANO", null, false, 0, 10)));
+		assertEquals(List.of(4L), ids(search.search("habitacion", null, false, 0, 10)));
+		assertEquals(2, search.search("fuga", null, false, 0, 10).total());
+		assertEquals(List.of(2L), ids(search.search("llaves", null, false, 0, 10)));
+	}
+
+	@Test
+	void ranksDocumentsMatchingMoreTermsFirstAndPaginates() {
+		IncidentSearchService.Result result = search.search("aire acondicionado", null, false, 0, 1);
+
+		assertEquals(2, result.total());
+		assertEquals(List.of(1L), ids(result));
+		assertEquals(List.of(3L), ids(search.search("aire acondicionado", null, false, 1, 1)));
+		assertEquals(List.of(), ids(search.search("aire acondicionado", null, false, 2, 1)));
+	}
+
+	@Test
+	void filtersByStatusAndForgetsUpdatedOrRemovedText() {
+		assertEquals(List.of(3L), ids(search.search("fuga", Incident.IncidentStatus.OPEN, false, 0, 10)));
+
+		search.index(3L, Incident.IncidentStatus.RESOLVED, "Regadera goteando", "Se cambió el empaque");
+		search.remove(2L);
+
+		assertEquals(0, search.search("fuga", null, false, 0, 10).total());
+		assertEquals(List.of(3L), ids(search.search("empaque", Incident.IncidentStatus.RESOLVED, false, 0, 10)));
+		assertEquals(0, search.search("de la el", null, false, 0, 10).total());
+	}
+
+	@Test
+	void hidesArchivedIncidentsUnlessRequested() {
+		search.markArchived(List.of(2L));
+
+		assertEquals(0, search.search("baño", null, false, 0, 10).total());
+		assertEquals(List.of(2L), ids(search.search("baño", null, true, 0, 10)));
+	}
+
+	private static List<Long> ids(IncidentSearchService.Result result) {
+		return result.hits().stream().map(IncidentSearchService.Hit::id).toList();
+	}
+}
@@ -0,0 +1,93 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import utex.edu.mx.server.dto.WebSocketNotification;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class NotificationDispatcherTests {
+
+	private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+	// Ventana larga: las pruebas publican con flushAll()
+	private final NotificationDispatcher dispatcher = new NotificationDispatcher(messagingTemplate, 60_000L, 3, 100);
+	private final NotificationDispatcher.Delivery delivery = mock(NotificationDispatcher.Delivery.class);
+
+	@AfterEach
+	void shutdown() {
+		dispatcher.shutdown();
+	}
+
+	@Test
+	void coalescesRepeatedRoomUpdatesIntoOneBatchedFrame() {
+		dispatcher.enqueue("/topic/hotels/1/rooms", "ROOM:5", room("ROOM_UPDATED", 5), delivery);
+		dispatcher.enqueue("/topic/hotels/1/rooms", "ROOM:6", room("ROOM_UPDATED", 6), delivery);
+		dispatcher.enqueue("/topic/hotels/1/rooms", "ROOM:5", room("ROOM_STATUS_CHANGED", 5), delivery);
+		dispatcher.enqueueToUser("mucama1", "/queue/rooms", "ROOM:5", room("ROOM_UPDATED", 5), delivery);
+		verify(messagingTemplate, never()).convertAndSend(any(String.class), any(Object.class));
+		verify(delivery, never()).sent();
+
+		dispatcher.flushAll();
+
+		// El evento reemplazado se confirma con el que lo reemplazó
+		verify(delivery, times(4)).sent();
+
+		ArgumentCaptor<WebSocketNotification> frame = ArgumentCaptor.forClass(WebSocketNotification.class);
+		verify(messagingTemplate).convertAndSend(eq("/topic/hotels/1/rooms"), frame.capture());
+		assertEquals(NotificationDispatcher.BATCH_TYPE, frame.getValue().getType());
+		List<?> events = (List<?>) frame.getValue().getData();
+		assertEquals(2, events.size());
+		assertEquals("ROOM_STATUS_CHANGED", ((WebSocketNotification) events.get(1)).getType());
+
+		// Un solo evento se publica sin envoltura
+		verify(messagingTemplate).convertAndSendToUser(eq("mucama1"), eq("/queue/rooms"), frame.capture());
+		assertEquals("ROOM_UPDATED", frame.getValue().getType());
+
+		NotificationDispatcher.Stats stats = dispatcher.getStats();
+		assertEquals(4, stats.enqueued());
+		assertEquals(1, stats.coalesced());
+		assertEquals(0, stats.pendingEvents());
+		assertEquals(2, stats.frames());
+		assertEquals(1.5, stats.averageBatchSize());
+	}
+
+	@Test
+	void publishesAsSoonAsADestinationFillsABatch() {
+		for (int i = 0; i < 3; i++) {
+			dispatcher.enqueue("/topic/hotels/1/incidents", null, room("INCIDENT_CREATED", i), delivery);
+		}
+		verify(messagingTemplate, timeout(2_000)).convertAndSend(eq("/topic/hotels/1/incidents"), any(Object.class));
+		assertEquals(3, dispatcher.getStats().largestBatch());
+	}
+
+	@Test
+	void failedPublishIsReportedToEveryEventInTheFrame() {
+		RuntimeException error = new MessageDeliveryException("broker caído");
+		doThrow(error).when(messagingTemplate).convertAndSend(eq("/topic/hotels/1/rooms"), any(Object.class));
+
+		dispatcher.enqueue("/topic/hotels/1/rooms", "ROOM:5", room("ROOM_UPDATED", 5), delivery);
+		dispatcher.enqueue("/topic/hotels/1/rooms", "ROOM:6", room("ROOM_UPDATED", 6), delivery);
+		dispatcher.flushAll();
+
+		verify(delivery, times(2)).failed(error);
+		verify(delivery, never()).sent();
+		assertEquals(0, dispatcher.getStats().frames());
+	}
+
+	private static WebSocketNotification room(String type, long id) {
+		return new WebSocketNotification(type, type + " " + id, id);
+	}
+}
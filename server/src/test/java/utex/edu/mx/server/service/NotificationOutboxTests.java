@@ -0,0 +1,189 @@
+package utex.edu.mx.server.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+import utex.edu.mx.server.dto.WebSocketNotification;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Base H2 propia: los contextos de las demás pruebas corren su relay sobre la base compartida
+ */
+class NotificationOutboxTests {
+
+	private static DriverManagerDataSource dataSource;
+
+	private final NotificationDispatcher dispatcher = mock(NotificationDispatcher.class);
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+	private final TransactionTemplate transactionTemplate =
+			new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+	private final NotificationOutbox outbox = outbox(dispatcher);
+
+	@BeforeAll
+	static void migrate() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:outboxdb;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(dataSource).load().migrate();
+	}
+
+	@BeforeEach
+	void clearOutbox() {
+		jdbcTemplate.update("DELETE FROM notification_outbox");
+	}
+
+	@AfterEach
+	void shutdown() {
+		outbox.shutdown();
+	}
+
+	@Test
+	void rolledBackChangesLeaveNoEvents() {
+		transactionTemplate.executeWithoutResult(status -> {
+			outbox.append(List.of(entry("/topic/hotels/1/rooms", null)));
+			status.setRollbackOnly();
+		});
+		outbox.relay();
+
+		assertEquals(0, pending());
+		verify(dispatcher, never()).enqueue(anyString(), any(), any(), any());
+	}
+
+	@Test
+	void rowsAreDeletedOnlyAfterTheDispatcherConfirmsTheSend() {
+		when(dispatcher.enqueueToUser(anyString(), anyString(), any(), any(), any())).thenReturn(true);
+		insert(entry("/queue/rooms", "mucama1"));
+		outbox.relay();
+
+		// Aceptado pero sin publicar: la fila sigue, reclamada por esta instancia
+		NotificationDispatcher.Delivery delivery = capturedUserDelivery(1);
+		assertEquals(1, pending());
+		assertNotNull(jdbcTemplate.queryForObject("SELECT claimed_by FROM notification_outbox", String.class));
+		outbox.relay();
+		verify(dispatcher, times(1)).enqueueToUser(anyString(), anyString(), any(), any(), any());
+
+		delivery.sent();
+		outbox.relay();
+
+		assertEquals(0, pending());
+		assertEquals(1, outbox.getStats().relayed());
+	}
+
+	@Test
+	void failedSendsAndAFullDispatcherAreRetried() {
+		when(dispatcher.enqueueToUser(anyString(), anyString(), any(), any(), any())).thenReturn(false);
+		insert(entry("/queue/rooms", "mucama1"));
+		outbox.relay();
+
+		// Lleno no es un fallo: se libera sin contar intento
+		assertEquals(1, pending());
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT attempts FROM notification_outbox", Integer.class));
+		assertNull(jdbcTemplate.queryForObject("SELECT claimed_by FROM notification_outbox", String.class));
+
+		when(dispatcher.enqueueToUser(anyString(), anyString(), any(), any(), any())).thenReturn(true);
+		outbox.relay();
+		capturedUserDelivery(2).failed(new MessageDeliveryException("broker caído"));
+		outbox.relay();
+
+		// El fallo libera la fila y la misma pasada la vuelve a entregar
+		NotificationDispatcher.Delivery retry = capturedUserDelivery(3);
+		assertEquals(1, jdbcTemplate.queryForObject("SELECT attempts FROM notification_outbox", Integer.class));
+		retry.sent();
+		outbox.relay();
+
+		assertEquals(0, pending());
+		verify(dispatcher, times(3))
+				.enqueueToUser(eq("mucama1"), eq("/queue/rooms"), eq("ROOM:5"), any(WebSocketNotification.class), any());
+	}
+
+	@Test
+	void aFullDispatcherNeverDiscardsCommittedRows() {
+		SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+		NotificationDispatcher full = new NotificationDispatcher(messagingTemplate, 60_000L, 50, 1);
+		NotificationOutbox relay = new NotificationOutbox(jdbcTemplate, JsonMapper.builder().build(), full, 200, 3, 60_000L);
+		full.enqueue("/topic/hotels/1/incidents", null,
+				new WebSocketNotification("INCIDENT_CREATED", "Ocupa el único lugar", 1L), mock(NotificationDispatcher.Delivery.class));
+		insert(entry("/topic/hotels/1/rooms", null));
+
+		for (int pass = 0; pass < 5; pass++) {
+			relay.relay();
+		}
+		assertEquals(1, pending());
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT attempts FROM notification_outbox", Integer.class));
+
+		full.flushAll();
+		relay.relay();
+		full.flushAll();
+		relay.relay();
+
+		verify(messagingTemplate).convertAndSend(eq("/topic/hotels/1/rooms"), any(Object.class));
+		assertEquals(0, pending());
+		relay.shutdown();
+		full.shutdown();
+	}
+
+	@Test
+	void anotherInstanceSkipsClaimedRows() {
+		NotificationDispatcher otherDispatcher = mock(NotificationDispatcher.class);
+		NotificationOutbox other = outbox(otherDispatcher);
+		when(dispatcher.enqueue(anyString(), any(), any(), any())).thenReturn(true);
+		when(otherDispatcher.enqueue(anyString(), any(), any(), any())).thenReturn(true);
+		insert(entry("/topic/hotels/1/rooms", null));
+
+		outbox.relay();
+		other.relay();
+		other.shutdown();
+
+		verify(dispatcher).enqueue(eq("/topic/hotels/1/rooms"), eq("ROOM:5"), any(), any());
+		verify(otherDispatcher, never()).enqueue(anyString(), any(), any(), any());
+	}
+
+	private NotificationOutbox outbox(NotificationDispatcher dispatcher) {
+		return new NotificationOutbox(jdbcTemplate, JsonMapper.builder().build(), dispatcher, 200, 20, 60_000L);
+	}
+
+	/**
+	 * Como append() pero sin despertar el relay en su hilo: cada prueba decide cuándo corre
+	 */
+	private void insert(NotificationOutbox.Entry entry) {
+		jdbcTemplate.update("INSERT INTO notification_outbox (destination, username, coalesce_key, payload, created_at) "
+						+ "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)", entry.destination(), entry.username(),
+				entry.coalesceKey(), JsonMapper.builder().build().writeValueAsString(entry.notification()));
+	}
+
+	private NotificationDispatcher.Delivery capturedUserDelivery(int calls) {
+		ArgumentCaptor<NotificationDispatcher.Delivery> delivery = ArgumentCaptor.forClass(NotificationDispatcher.Delivery.class);
+		verify(dispatcher, times(calls)).enqueueToUser(anyString(), anyString(), any(), any(), delivery.capture());
+		return delivery.getValue();
+	}
+
+	private static NotificationOutbox.Entry entry(String destination, String username) {
+		return new NotificationOutbox.Entry(destination, username, "ROOM:5",
+				new WebSocketNotification("ROOM_UPDATED", "Habitación 101 actualizada", 5L));
+	}
+
+	private int pending() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox", Integer.class);
+	}
+}
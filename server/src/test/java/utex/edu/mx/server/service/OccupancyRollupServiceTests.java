@@ -0,0 +1,108 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import utex.edu.mx.server.dto.DailyRollup;
+import utex.edu.mx.server.dto.OccupancyRollup;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class OccupancyRollupServiceTests {
+
+	@Autowired
+	private OccupancyRollupService rollupService;
+
+	@Autowired
+	private RoomStateStore roomStateStore;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM floor_daily_stats");
+		roomStateStore.load();
+		rollupService.load();
+	}
+
+	@Test
+	void occupancyMatchesRoomStateStore() {
+		List<OccupancyRollup> buildings = rollupService.getOccupancy(null);
+
+		for (Room.RoomStatus status : Room.RoomStatus.values()) {
+			int expected = roomStateStore.findByStatus(status).size();
+			int counted = buildings.stream().mapToInt(building -> count(building, status)).sum();
+			assertEquals(expected, counted, status.name());
+		}
+		for (OccupancyRollup building : buildings) {
+			assertEquals(roomStateStore.findByBuildingId(building.getBuildingId()).size(),
+					building.getClean() + building.getDirty() + building.getOccupied());
+		}
+	}
+
+	@Test
+	void tracksStatusChangesIncidentsAndDailyActivity() {
+		Room room = roomRepository.findById(roomStateStore.findAll().get(0).getId()).orElseThrow();
+		room.setStatus(Room.RoomStatus.DIRTY);
+		roomStateStore.put(roomRepository.save(room));
+		OccupancyRollup.Floor before = floorOf(room);
+
+		room = roomRepository.findById(room.getId()).orElseThrow();
+		room.setStatus(Room.RoomStatus.CLEAN);
+		roomStateStore.put(roomRepository.save(room));
+		rollupService.incidentChanged(room.getId(), null, Incident.IncidentStatus.OPEN);
+		rollupService.incidentChanged(room.getId(), null, Incident.IncidentStatus.OPEN);
+		rollupService.incidentChanged(room.getId(), Incident.IncidentStatus.OPEN, Incident.IncidentStatus.RESOLVED);
+
+		OccupancyRollup.Floor after = floorOf(room);
+		assertEquals(before.getDirty() - 1, after.getDirty());
+		assertEquals(before.getClean() + 1, after.getClean());
+		assertEquals(before.getOpenIncidents() + 1, after.getOpenIncidents());
+		assertEquals(before.getCleanedToday() + 1, after.getCleanedToday());
+
+		rollupService.flush();
+		rollupService.flush();
+		LocalDate today = LocalDate.now();
+		int floor = after.getFloor();
+		List<DailyRollup> daily = rollupService.getDaily(null, room.getBuilding().getId(), today, today).stream()
+				.filter(row -> row.getFloor() == floor)
+				.toList();
+		assertEquals(1, daily.size());
+		assertEquals(2, daily.get(0).getIncidentsOpened());
+		assertEquals(1, daily.get(0).getIncidentsResolved());
+		assertEquals(daily.get(0).getCleaned(), jdbcTemplate.queryForObject(
+				"SELECT cleaned FROM floor_daily_stats WHERE stat_date = ? AND building_id = ? AND floor = ?",
+				Integer.class, Date.valueOf(today), room.getBuilding().getId(), floor));
+	}
+
+	private OccupancyRollup.Floor floorOf(Room room) {
+		return rollupService.getOccupancy(null).stream()
+				.filter(building -> building.getBuildingId().equals(room.getBuilding().getId()))
+				.flatMap(building -> building.getFloors().stream())
+				.filter(floor -> floor.getFloor() == room.getFloor())
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private static int count(OccupancyRollup building, Room.RoomStatus status) {
+		return switch (status) {
+			case CLEAN -> building.getClean();
+			case DIRTY -> building.getDirty();
+			case OCCUPIED -> building.getOccupied();
+		};
+	}
+}
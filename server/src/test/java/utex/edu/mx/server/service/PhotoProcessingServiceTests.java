@@ -0,0 +1,95 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import tools.jackson.databind.json.JsonMapper;
+import utex.edu.mx.server.dto.WebSocketNotification;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class PhotoProcessingServiceTests {
+
+	@TempDir
+	Path storageDir;
+
+	private PhotoStorageService photoStorage;
+	private NotificationService notificationService;
+	private PhotoProcessingService processingService;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		photoStorage = new PhotoStorageService(storageDir.toString(), JsonMapper.builder().build());
+		notificationService = mock(NotificationService.class);
+		processingService = new PhotoProcessingService(photoStorage, notificationService, 1, 10, 4_000_000);
+	}
+
+	@Test
+	void generatesSizeCappedVariantsAndPublishesMediaReady() throws Exception {
+		String key = photoStorage.store(new ByteArrayInputStream(png(2400, 1600))).key();
+
+		NotificationService.Audience audience = new NotificationService.Audience(Set.of(1L), Set.of("mucama1"));
+		processingService.processIncident(7L, List.of(key), audience);
+
+		BufferedImage thumbnail = ImageIO.read(photoStorage.findVariant(key, "thumbnail").orElseThrow().toFile());
+		BufferedImage display = ImageIO.read(photoStorage.findVariant(key, "display").orElseThrow().toFile());
+		assertEquals(320, thumbnail.getWidth());
+		assertEquals(213, thumbnail.getHeight());
+		assertEquals(1280, display.getWidth());
+		assertEquals("image/jpeg", photoStorage.contentTypeOf(photoStorage.findVariant(key, "display").orElseThrow()));
+
+		ArgumentCaptor<WebSocketNotification> notification = ArgumentCaptor.forClass(WebSocketNotification.class);
+		verify(notificationService).send(eq(audience), notification.capture(), eq(NotificationService.Channel.INCIDENTS));
+		assertEquals("INCIDENT_MEDIA_READY", notification.getValue().getType());
+		assertEquals(List.of("/api/photos/" + key + "/thumbnail"),
+				((Map<?, ?>) notification.getValue().getData()).get("thumbnailUrls"));
+	}
+
+	@Test
+	void neverUpscalesSmallPhotos() throws Exception {
+		String key = photoStorage.store(new ByteArrayInputStream(png(200, 100))).key();
+
+		assertTrue(processingService.processPhoto(key));
+
+		BufferedImage thumbnail = ImageIO.read(photoStorage.findVariant(key, "thumbnail").orElseThrow().toFile());
+		assertEquals(200, thumbnail.getWidth());
+		assertEquals(100, thumbnail.getHeight());
+	}
+
+	@Test
+	void skipsPhotosAbovePixelLimitWithoutDecoding() throws Exception {
+		String key = photoStorage.store(new ByteArrayInputStream(png(2500, 1700))).key();
+
+		assertFalse(processingService.processPhoto(key));
+
+		assertTrue(photoStorage.findVariant(key, "thumbnail").isEmpty());
+		assertTrue(photoStorage.findVariant(key, "display").isEmpty());
+	}
+
+	private static byte[] png(int width, int height) throws Exception {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		for (int x = 0; x < width; x += 10) {
+			for (int y = 0; y < height; y += 10) {
+				image.setRGB(x, y, 0xFF000000 | (x * 7 + y * 13));
+			}
+		}
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", output);
+		return output.toByteArray();
+	}
+}
@@ -0,0 +1,109 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import utex.edu.mx.server.controller.PhotoController;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PhotoStorageServiceTests {
+
+	private static final byte[] JPEG = jpeg(4096);
+
+	@TempDir
+	Path storageDir;
+
+	private PhotoStorageService photoStorage;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ObjectMapper objectMapper = JsonMapper.builder().build();
+		photoStorage = new PhotoStorageService(storageDir.toString(), objectMapper);
+	}
+
+	@Test
+	void storesIdenticalContentOnce() throws Exception {
+		PhotoStorageService.StoredPhoto first = photoStorage.store(new ByteArrayInputStream(JPEG));
+		PhotoStorageService.StoredPhoto second = photoStorage.store(new ByteArrayInputStream(JPEG));
+
+		assertEquals(first.key(), second.key());
+		assertEquals(JPEG.length, first.size());
+		assertEquals("image/jpeg", first.contentType());
+		assertArrayEquals(JPEG, Files.readAllBytes(photoStorage.find(first.key()).orElseThrow()));
+		try (Stream<Path> files = Files.walk(storageDir)) {
+			assertEquals(1, files.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test
+	void rejectsNonImagesAndInvalidKeys() {
+		assertThrows(IllegalArgumentException.class,
+				() -> photoStorage.store(new ByteArrayInputStream("no es imagen".getBytes())));
+		assertTrue(photoStorage.find("../../etc/passwd").isEmpty());
+	}
+
+	@Test
+	void normalizesBase64PhotosToKeys() throws Exception {
+		String dataUrl = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(JPEG);
+		String key = photoStorage.store(new ByteArrayInputStream(JPEG)).key();
+
+		String normalized = photoStorage.normalizeReferences("[\"" + dataUrl + "\",\"" + key + "\"]");
+
+		assertEquals("[\"" + key + "\",\"" + key + "\"]", normalized);
+		assertEquals(normalized, photoStorage.normalizeReferences(normalized));
+	}
+
+	@Test
+	void servesRangesAndCacheHeaders() throws Exception {
+		String key = photoStorage.store(new ByteArrayInputStream(JPEG)).key();
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new PhotoController(photoStorage,
+				new PhotoProcessingService(photoStorage, mock(NotificationService.class), 1, 10, 40_000_000))).build();
+
+		mockMvc.perform(get("/api/photos/{key}", key))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, "\"" + key + "\""))
+				.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+				.andExpect(content().bytes(JPEG));
+
+		mockMvc.perform(get("/api/photos/{key}", key).header(HttpHeaders.RANGE, "bytes=0-99"))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-99/" + JPEG.length))
+				.andExpect(content().bytes(Arrays.copyOf(JPEG, 100)));
+
+		mockMvc.perform(get("/api/photos/{key}", key).header(HttpHeaders.IF_NONE_MATCH, "\"" + key + "\""))
+				.andExpect(status().isNotModified());
+	}
+
+	private static byte[] jpeg(int size) {
+		byte[] bytes = new byte[size];
+		for (int i = 0; i < size; i++) {
+			bytes[i] = (byte) (i * 31);
+		}
+		bytes[0] = (byte) 0xFF;
+		bytes[1] = (byte) 0xD8;
+		bytes[2] = (byte) 0xFF;
+		return bytes;
+	}
+}
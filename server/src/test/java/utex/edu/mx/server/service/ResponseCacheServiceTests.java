@@ -0,0 +1,80 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheServiceTests {
+
+	private final ResponseCacheService cache = new ResponseCacheService(JsonMapper.builder().build());
+	private final AtomicInteger loads = new AtomicInteger();
+	private final Supplier<List<String>> loader = () -> List.of("v" + loads.incrementAndGet());
+
+	@Test
+	void matchingIfNoneMatchAnswers304WithoutLoading() {
+		ResponseEntity<byte[]> first = respond(null);
+		String etag = first.getHeaders().getETag();
+
+		ResponseEntity<byte[]> notModified = respond(etag);
+		ResponseEntity<byte[]> weakInList = respond("\"otro\", W/" + etag);
+		ResponseEntity<byte[]> cached = respond("\"otro\"");
+
+		assertEquals(HttpStatus.OK, first.getStatusCode());
+		assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+		assertNull(notModified.getBody());
+		assertEquals(etag, notModified.getHeaders().getETag());
+		assertEquals(HttpStatus.NOT_MODIFIED, weakInList.getStatusCode());
+		assertEquals(HttpStatus.OK, cached.getStatusCode());
+		assertEquals("[\"v1\"]", new String(cached.getBody()));
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void invalidationChangesTheEtagAndReloads() {
+		String before = respond(null).getHeaders().getETag();
+
+		cache.invalidate(ResponseCacheService.Collection.ROOMS);
+		ResponseEntity<byte[]> after = respond(before);
+
+		assertEquals(HttpStatus.OK, after.getStatusCode());
+		assertNotEquals(before, after.getHeaders().getETag());
+		assertEquals("[\"v2\"]", new String(after.getBody()));
+		// Invalidar habitaciones no afecta a incidencias
+		String incidents = cache.respond(ResponseCacheService.Collection.INCIDENTS, "all", null, loader)
+				.getHeaders().getETag();
+		cache.invalidate(ResponseCacheService.Collection.ROOMS);
+		assertEquals(HttpStatus.NOT_MODIFIED,
+				cache.respond(ResponseCacheService.Collection.INCIDENTS, "all", incidents, loader).getStatusCode());
+	}
+
+	@Test
+	void invalidationAfterCommitWaitsForTheCommit() {
+		String etag = respond(null).getHeaders().getETag();
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			cache.invalidateAfterCommit(ResponseCacheService.Collection.ROOMS);
+			assertEquals(HttpStatus.NOT_MODIFIED, respond(etag).getStatusCode());
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		assertEquals(HttpStatus.OK, respond(etag).getStatusCode());
+	}
+
+	private ResponseEntity<byte[]> respond(String ifNoneMatch) {
+		return cache.respond(ResponseCacheService.Collection.ROOMS, "all", ifNoneMatch, loader);
+	}
+}
@@ -0,0 +1,103 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import utex.edu.mx.server.dto.ImportResult;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class RoomImportServiceTests {
+
+	private static final String HOTEL = "Hotel Importado";
+
+	@Autowired
+	private RoomImportService importService;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private BuildingRepository buildingRepository;
+
+	@Autowired
+	private RoomStateStore roomStateStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void cleanUp() {
+		hotelRepository.findByName(HOTEL).ifPresent(hotel -> {
+			jdbcTemplate.update("DELETE FROM rooms WHERE building_id IN (SELECT id FROM buildings WHERE hotel_id = ?)", hotel.getId());
+			jdbcTemplate.update("DELETE FROM buildings WHERE hotel_id = ?", hotel.getId());
+			jdbcTemplate.update("DELETE FROM hotels WHERE id = ?", hotel.getId());
+		});
+		roomStateStore.load();
+	}
+
+	@Test
+	void importsCsvAndReportsInvalidLines() throws Exception {
+		String csv = """
+				hotel,building,floor,number,status
+				"Hotel Importado",Torre A,1,101,DIRTY
+				"Hotel Importado",Torre A,2,201,CLEAN
+				"Hotel Importado",Torre B,1,B101,
+				"Hotel Importado",Torre B,x,B102,
+				"Hotel Importado",Torre B,1,B103,BROKEN
+				""";
+
+		ImportResult result = importService.importRooms(stream(csv), RoomImportService.Format.CSV);
+
+		assertEquals(3, result.getRoomsInserted());
+		assertEquals(1, result.getHotelsCreated());
+		assertEquals(2, result.getBuildingsCreated());
+		assertEquals(2, result.getErrors().size());
+		Hotel hotel = hotelRepository.findByName(HOTEL).orElseThrow();
+		Building towerA = buildingRepository.findByHotelIdAndName(hotel.getId(), "Torre A").orElseThrow();
+		assertEquals(2, towerA.getFloors());
+		// Solo lo importado se agrega al estado en memoria, ya con los pisos del edificio creado
+		assertEquals(2, roomStateStore.findByBuildingId(towerA.getId()).size());
+		assertTrue(roomStateStore.findByBuildingId(towerA.getId()).stream()
+				.allMatch(room -> room.getBuilding().getFloors() == 2));
+	}
+
+	@Test
+	void importsJsonLines() throws Exception {
+		String jsonLines = """
+				{"hotel":"Hotel Importado","building":"Torre A","floor":1,"number":"101"}
+				{"hotel":"Hotel Importado","building":"Torre A","floor":1,"number":"102","status":"OCCUPIED"}
+				""";
+
+		ImportResult result = importService.importRooms(stream(jsonLines), RoomImportService.Format.JSON_LINES);
+
+		assertEquals(2, result.getRoomsInserted());
+		assertTrue(result.getErrors().isEmpty());
+		Hotel hotel = hotelRepository.findByName(HOTEL).orElseThrow();
+		Building towerA = buildingRepository.findByHotelIdAndName(hotel.getId(), "Torre A").orElseThrow();
+		assertEquals(List.of(Room.RoomStatus.DIRTY, Room.RoomStatus.OCCUPIED),
+				roomRepository.findByBuildingId(towerA.getId()).stream().map(Room::getStatus).sorted().toList());
+		assertEquals(2, roomStateStore.findByBuildingId(towerA.getId()).size());
+	}
+
+	private static ByteArrayInputStream stream(String content) {
+		return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,240 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.BuildingRepository;
+import utex.edu.mx.server.repository.HotelRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest
+class RoomSchedulerServiceTests {
+
+	private static final String HOTEL = "Hotel Reinicio";
+
+	@Autowired
+	private RoomSchedulerService schedulerService;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private BuildingRepository buildingRepository;
+
+	@Autowired
+	private HotelRepository hotelRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private StatementCountingDataSource dataSource;
+
+	@MockitoSpyBean
+	private NotificationService notificationService;
+
+	private Hotel hotel;
+
+	@BeforeEach
+	void setUp() {
+		hotel = new Hotel();
+		hotel.setName(HOTEL);
+		hotel = hotelRepository.save(hotel);
+		// Deja sin habitaciones CLEAN a los demás edificios: cada prueba solo ve las suyas
+		schedulerService.resetCleanRooms();
+	}
+
+	@AfterEach
+	void cleanUp() {
+		jdbcTemplate.update("DELETE FROM rooms WHERE building_id IN (SELECT id FROM buildings WHERE hotel_id = ?)", hotel.getId());
+		jdbcTemplate.update("DELETE FROM buildings WHERE hotel_id = ?", hotel.getId());
+		jdbcTemplate.update("DELETE FROM hotels WHERE id = ?", hotel.getId());
+	}
+
+	@Test
+	void resetIssuesSameNumberOfStatementsRegardlessOfRoomCount() {
+		Building building = building("Torre A");
+
+		int smallBatchStatements = resetAndCountStatements(building, 10);
+		int largeBatchStatements = resetAndCountStatements(building, 500);
+
+		assertTrue(smallBatchStatements > 0);
+		assertEquals(smallBatchStatements, largeBatchStatements);
+	}
+
+	@Test
+	void resetReturnsCountsPerHotel() {
+		Building first = building("Torre A");
+		Building second = building("Torre B");
+		cleanRooms(first, 3);
+		cleanRooms(second, 4);
+
+		Map<Long, Integer> countsByHotel = schedulerService.resetCleanRooms();
+
+		assertEquals(Map.of(hotel.getId(), 7), countsByHotel);
+		assertEquals(0, countInStatus(first, Room.RoomStatus.CLEAN) + countInStatus(second, Room.RoomStatus.CLEAN));
+	}
+
+	@Test
+	void resetBumpsTheVersionOfEveryRoomItChanges() {
+		Building building = building("Torre A");
+		cleanRooms(building, 3);
+		List<Long> before = versions(building);
+
+		schedulerService.resetCleanRooms();
+
+		List<Long> after = versions(building);
+		for (int i = 0; i < before.size(); i++) {
+			assertEquals(before.get(i) + 1, after.get(i));
+		}
+	}
+
+	@Test
+	void failingBuildingIsRolledBackWithoutUndoingTheOthers() {
+		Building failing = building("Torre Falla");
+		Building healthy = building("Torre Sana");
+		cleanRooms(failing, 3);
+		cleanRooms(healthy, 2);
+		doThrow(new IllegalStateException("falla simulada")).when(notificationService).sendReset(anyString(), any(),
+				argThat(building -> building != null && building.getId().equals(failing.getId())),
+				anyInt(), any(), any(), any(), any(NotificationService.Channel[].class));
+
+		Map<Long, Integer> countsByHotel = schedulerService.resetCleanRooms();
+
+		assertEquals(Map.of(hotel.getId(), 2), countsByHotel);
+		assertEquals(3, countInStatus(failing, Room.RoomStatus.CLEAN));
+		assertEquals(2, countInStatus(healthy, Room.RoomStatus.DIRTY));
+	}
+
+	private int resetAndCountStatements(Building building, int extraRooms) {
+		cleanRooms(building, extraRooms);
+
+		dataSource.startCounting();
+		schedulerService.resetCleanRooms();
+		return dataSource.stopCounting();
+	}
+
+	private Building building(String name) {
+		Building building = new Building();
+		building.setName(name);
+		building.setHotel(hotel);
+		return buildingRepository.save(building);
+	}
+
+	private void cleanRooms(Building building, int count) {
+		List<Room> rooms = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			Room room = new Room();
+			room.setNumber(building.getName() + "-" + count + "-" + i);
+			room.setFloor(1);
+			room.setStatus(Room.RoomStatus.CLEAN);
+			room.setBuilding(building);
+			rooms.add(room);
+		}
+		roomRepository.saveAll(rooms);
+	}
+
+	private List<Long> versions(Building building) {
+		return jdbcTemplate.queryForList("SELECT version FROM rooms WHERE building_id = ? ORDER BY id",
+				Long.class, building.getId());
+	}
+
+	private int countInStatus(Building building, Room.RoomStatus status) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rooms WHERE building_id = ? AND status = ?",
+				Integer.class, building.getId(), status.name());
+	}
+
+	@TestConfiguration
+	static class StatementCounting {
+
+		@Bean
+		static BeanPostProcessor statementCountingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? new StatementCountingDataSource(dataSource) : bean;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Cuenta las sentencias que prepara el hilo de la prueba, vengan de Hibernate o de JdbcTemplate
+	 * (el relay del outbox corre en otro hilo y no se cuenta)
+	 */
+	static class StatementCountingDataSource extends DelegatingDataSource {
+
+		private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+
+		private final AtomicInteger statements = new AtomicInteger();
+		private volatile Thread countingThread;
+
+		StatementCountingDataSource(DataSource target) {
+			super(target);
+		}
+
+		void startCounting() {
+			statements.set(0);
+			countingThread = Thread.currentThread();
+		}
+
+		int stopCounting() {
+			countingThread = null;
+			return statements.get();
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return counting(super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return counting(super.getConnection(username, password));
+		}
+
+		private Connection counting(Connection connection) {
+			return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						if (Thread.currentThread() == countingThread && STATEMENT_METHODS.contains(method.getName())) {
+							statements.incrementAndGet();
+						}
+						try {
+							return method.invoke(connection, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					});
+		}
+	}
+}
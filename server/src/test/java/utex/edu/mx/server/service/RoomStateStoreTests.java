@@ -0,0 +1,66 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.Test;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.repository.RoomRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomStateStoreTests {
+
+	private final RoomRepository roomRepository = mock(RoomRepository.class);
+	private final RoomStateStore store = new RoomStateStore(roomRepository, mock(ResponseCacheService.class),
+			mock(OccupancyRollupService.class));
+
+	@Test
+	void changesReplaceCopiesInsteadOfMutatingPublishedRooms() {
+		Room entity = room(1L, Room.RoomStatus.CLEAN);
+		when(roomRepository.findAllWithAssociations()).thenReturn(List.of(entity));
+		store.load();
+		Room published = store.findById(1L).orElseThrow();
+
+		store.applyBulkStatus(7L, Room.RoomStatus.CLEAN, Room.RoomStatus.DIRTY, LocalDateTime.now().plusMinutes(1));
+
+		assertNotSame(entity, published);
+		assertEquals(Room.RoomStatus.CLEAN, published.getStatus());
+		assertEquals(Room.RoomStatus.DIRTY, store.findById(1L).orElseThrow().getStatus());
+		assertEquals(List.of(), store.findByStatus(Room.RoomStatus.CLEAN));
+	}
+
+	@Test
+	void changesCommittedWhileLoadingSurviveTheSwap() {
+		Room loaded = room(1L, Room.RoomStatus.DIRTY);
+		Room committedDuringLoad = room(2L, Room.RoomStatus.CLEAN);
+		when(roomRepository.findAllWithAssociations()).thenAnswer(invocation -> {
+			store.put(committedDuringLoad);
+			return List.of(loaded);
+		});
+
+		store.load();
+
+		assertEquals(2, store.findAll().size());
+		assertEquals(List.of(2L), store.findByStatus(Room.RoomStatus.CLEAN).stream().map(Room::getId).toList());
+		assertTrue(store.findByBuildingId(7L).stream().anyMatch(room -> room.getId().equals(2L)));
+	}
+
+	private static Room room(Long id, Room.RoomStatus status) {
+		Building building = new Building();
+		building.setId(7L);
+		Room room = new Room();
+		room.setId(id);
+		room.setNumber("10" + id);
+		room.setFloor(1);
+		room.setStatus(status);
+		room.setBuilding(building);
+		room.setUpdatedAt(LocalDateTime.now());
+		return room;
+	}
+}
@@ -0,0 +1,108 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import utex.edu.mx.server.dto.SyncRequest;
+import utex.edu.mx.server.dto.SyncResponse;
+import utex.edu.mx.server.model.Incident;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+import utex.edu.mx.server.repository.IncidentRepository;
+import utex.edu.mx.server.repository.RoomRepository;
+import utex.edu.mx.server.repository.UserRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@Transactional
+class SyncServiceTests {
+
+	@Autowired
+	private SyncService syncService;
+
+	@Autowired
+	private IncidentRepository incidentRepository;
+
+	@Autowired
+	private RoomRepository roomRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void appliesBatchInOrderAndDeduplicatesReplays() {
+		Room room = roomRepository.findAll().get(0);
+		User maid = userRepository.findAll().get(0);
+		long incidentsBefore = incidentRepository.count();
+		List<SyncRequest.Operation> operations = List.of(
+				roomStatus("k-1", room.getId(), Room.RoomStatus.OCCUPIED),
+				roomStatus("k-2", room.getId(), Room.RoomStatus.CLEAN),
+				incidentCreate("k-3", room, maid, "incident_temp_1"),
+				roomStatus("k-4", -1L, Room.RoomStatus.CLEAN),
+				incidentCreate("k-3", room, maid, "incident_temp_1"));
+
+		List<SyncResponse.Result> first = syncService.apply(maid.getId(), operations).response().getResults();
+
+		assertEquals(List.of(SyncResponse.Status.APPLIED, SyncResponse.Status.APPLIED, SyncResponse.Status.APPLIED,
+				SyncResponse.Status.FAILED, SyncResponse.Status.DUPLICATE), first.stream().map(SyncResponse.Result::getStatus).toList());
+		assertEquals(Room.RoomStatus.CLEAN, roomRepository.findById(room.getId()).orElseThrow().getStatus());
+		Long incidentId = first.get(2).getServerId();
+		assertNotNull(incidentId);
+		assertEquals("incident_temp_1", first.get(2).getTempId());
+		assertEquals(incidentId, first.get(4).getServerId());
+		assertEquals(incidentsBefore + 1, incidentRepository.count());
+
+		// Reintento completo después de un timeout: nada se aplica dos veces, el fallido se vuelve a intentar
+		List<SyncResponse.Result> replay = syncService.apply(maid.getId(), operations).response().getResults();
+
+		assertEquals(SyncResponse.Status.DUPLICATE, replay.get(0).getStatus());
+		assertEquals(SyncResponse.Status.DUPLICATE, replay.get(2).getStatus());
+		assertEquals(incidentId, replay.get(2).getServerId());
+		assertEquals(incidentId, replay.get(2).getIncident().getId());
+		assertEquals(SyncResponse.Status.FAILED, replay.get(3).getStatus());
+		assertEquals(incidentsBefore + 1, incidentRepository.count());
+	}
+
+	@Test
+	void incidentsAreReportedByTheAuthenticatedUserOnly() {
+		Room room = roomRepository.findAll().get(0);
+		User admin = userRepository.findByUsername("admin").orElseThrow();
+		User maid = userRepository.findByUsername("mucama1").orElseThrow();
+		SyncRequest.Operation unattributed = incidentCreate("k-sin-autor", room, maid, "incident_temp_2");
+		unattributed.getIncident().setReportedBy(null);
+
+		List<SyncResponse.Result> results = syncService.apply(maid.getId(), List.of(
+				incidentCreate("k-suplantada", room, admin, "incident_temp_1"), unattributed)).response().getResults();
+
+		assertEquals(SyncResponse.Status.FAILED, results.get(0).getStatus());
+		assertEquals(SyncResponse.Status.APPLIED, results.get(1).getStatus());
+		assertEquals(maid.getId(), incidentRepository.findById(results.get(1).getServerId()).orElseThrow()
+				.getReportedBy().getId());
+	}
+
+	@Test
+	void rejectsOperationsWithoutIdempotencyKey() {
+		assertThrows(IllegalArgumentException.class,
+				() -> syncService.apply(1L, List.of(roomStatus(null, 1L, Room.RoomStatus.CLEAN))));
+	}
+
+	private static SyncRequest.Operation roomStatus(String key, Long roomId, Room.RoomStatus status) {
+		return new SyncRequest.Operation(key, SyncService.ROOM_STATUS, roomId, status, null, null);
+	}
+
+	private static SyncRequest.Operation incidentCreate(String key, Room room, User maid, String tempId) {
+		Incident incident = new Incident();
+		incident.setRoom(new Room());
+		incident.getRoom().setId(room.getId());
+		incident.setReportedBy(new User());
+		incident.getReportedBy().setId(maid.getId());
+		incident.setDescription("Fuga en el lavabo");
+		return new SyncRequest.Operation(key, SyncService.INCIDENT_CREATE, null, null, incident, tempId);
+	}
+}
@@ -0,0 +1,77 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketSessionMonitorTests {
+
+	private final MessageChannel channel = mock(MessageChannel.class);
+
+	@Test
+	void dropsFramesForASlowSessionAndFlagsTheNextOneForResync() throws Exception {
+		WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(WebSocketSessionMonitor.Policy.RESYNC, 2);
+		WebSocketSession socket = connect(monitor, "s1");
+
+		assertNotNull(monitor.preSend(frame("s1"), channel));
+		assertNotNull(monitor.preSend(frame("s1"), channel));
+		assertNull(monitor.preSend(frame("s1"), channel));
+		assertEquals(2, monitor.getStats().queuedFrames());
+		assertEquals(1, monitor.getStats().deepestSessions().get(0).droppedFrames());
+
+		socket.sendMessage(new TextMessage("MESSAGE\ndestination:/user/queue/rooms\n\n{}"));
+		socket.sendMessage(new TextMessage("MESSAGE\ndestination:/user/queue/rooms\n\n{}"));
+		Message<?> next = monitor.preSend(frame("s1"), channel);
+
+		assertEquals("true", SimpMessageHeaderAccessor.wrap(next).getFirstNativeHeader(WebSocketSessionMonitor.RESYNC_HEADER));
+		assertEquals(1, monitor.getStats().queuedFrames());
+		assertEquals(1, monitor.getStats().resyncs());
+	}
+
+	@Test
+	void disconnectsASlowSessionWhenConfigured() throws Exception {
+		WebSocketSessionMonitor monitor = new WebSocketSessionMonitor(WebSocketSessionMonitor.Policy.DISCONNECT, 1);
+		WebSocketSession raw = mock(WebSocketSession.class);
+		when(raw.getId()).thenReturn("s2");
+		monitor.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(raw);
+
+		monitor.preSend(frame("s2"), channel);
+		assertNull(monitor.preSend(frame("s2"), channel));
+
+		verify(raw).close(CloseStatus.SESSION_NOT_RELIABLE);
+		assertEquals(1, monitor.getStats().slowConsumerDisconnects());
+	}
+
+	private static WebSocketSession connect(WebSocketSessionMonitor monitor, String sessionId) throws Exception {
+		WebSocketSession raw = mock(WebSocketSession.class);
+		when(raw.getId()).thenReturn(sessionId);
+		WebSocketHandler delegate = mock(WebSocketHandler.class);
+		monitor.decorate(delegate).afterConnectionEstablished(raw);
+
+		ArgumentCaptor<WebSocketSession> decorated = ArgumentCaptor.forClass(WebSocketSession.class);
+		verify(delegate).afterConnectionEstablished(decorated.capture());
+		return decorated.getValue();
+	}
+
+	private static Message<byte[]> frame(String sessionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setDestination("/user/queue/rooms");
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,130 @@
+package utex.edu.mx.server.service;
+
+import org.junit.jupiter.api.Test;
+import utex.edu.mx.server.model.Building;
+import utex.edu.mx.server.model.Hotel;
+import utex.edu.mx.server.model.Room;
+import utex.edu.mx.server.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkloadBalancerTests {
+
+	@Test
+	void balancesRoomsWithinBuildingsAndAdjacentFloors() {
+		Hotel hotel = hotel(1L);
+		List<Room> rooms = new ArrayList<>();
+		rooms.addAll(rooms(building(1L, hotel), 1, 10, 10, 0));   // 100 habitaciones
+		rooms.addAll(rooms(building(2L, hotel), 1, 5, 10, 1000)); // 50 habitaciones
+		List<User> maids = maids(hotel, 6);
+
+		Map<Long, Long> plan = WorkloadBalancer.plan(rooms, maids);
+
+		assertEquals(rooms.size(), plan.size());
+		IntSummaryStatistics load = loadByMaid(plan).values().stream().mapToInt(Integer::intValue).summaryStatistics();
+		assertEquals(25, load.getMin());
+		assertEquals(25, load.getMax());
+
+		Map<Long, Set<Long>> buildingsByMaid = new HashMap<>();
+		Map<Long, IntSummaryStatistics> floorsByMaid = new HashMap<>();
+		for (Room room : rooms) {
+			Long maidId = plan.get(room.getId());
+			buildingsByMaid.computeIfAbsent(maidId, k -> new HashSet<>()).add(room.getBuilding().getId());
+			floorsByMaid.computeIfAbsent(maidId, k -> new IntSummaryStatistics()).accept(room.getFloor());
+		}
+		buildingsByMaid.values().forEach(buildings -> assertEquals(1, buildings.size()));
+		floorsByMaid.values().forEach(floors -> assertTrue(floors.getMax() - floors.getMin() <= 2));
+	}
+
+	@Test
+	void onlyAssignsMaidsFromTheSameHotel() {
+		Hotel withMaids = hotel(1L);
+		Hotel withoutMaids = hotel(2L);
+		List<Room> rooms = new ArrayList<>(rooms(building(1L, withMaids), 1, 2, 5, 0));
+		rooms.addAll(rooms(building(2L, withoutMaids), 1, 2, 5, 100));
+
+		Map<Long, Long> plan = WorkloadBalancer.plan(rooms, maids(withMaids, 2));
+
+		assertEquals(10, plan.size());
+		rooms.stream()
+				.filter(room -> room.getBuilding().getHotel() == withoutMaids)
+				.forEach(room -> assertTrue(!plan.containsKey(room.getId())));
+	}
+
+	@Test
+	void plansTenThousandRoomsForTwoHundredMaidsUnderOneSecond() {
+		Hotel hotel = hotel(1L);
+		List<Room> rooms = new ArrayList<>();
+		for (long b = 1; b <= 8; b++) {
+			rooms.addAll(rooms(building(b, hotel), 1, 25, 50, b * 10_000)); // 8 x 1250
+		}
+		List<User> maids = maids(hotel, 200);
+
+		long start = System.nanoTime();
+		Map<Long, Long> plan = WorkloadBalancer.plan(rooms, maids);
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		assertEquals(10_000, plan.size());
+		IntSummaryStatistics load = loadByMaid(plan).values().stream().mapToInt(Integer::intValue).summaryStatistics();
+		assertEquals(200, load.getCount());
+		assertEquals(50, load.getMin());
+		assertEquals(50, load.getMax());
+		assertTrue(elapsedMs < 1000, "Plan tardó " + elapsedMs + " ms");
+	}
+
+	private static Map<Long, Integer> loadByMaid(Map<Long, Long> plan) {
+		Map<Long, Integer> load = new HashMap<>();
+		plan.values().forEach(maidId -> load.merge(maidId, 1, Integer::sum));
+		return load;
+	}
+
+	private static Hotel hotel(Long id) {
+		Hotel hotel = new Hotel();
+		hotel.setId(id);
+		return hotel;
+	}
+
+	private static Building building(Long id, Hotel hotel) {
+		Building building = new Building();
+		building.setId(id);
+		building.setHotel(hotel);
+		return building;
+	}
+
+	private static List<Room> rooms(Building building, int firstFloor, int floors, int perFloor, long firstId) {
+		List<Room> rooms = new ArrayList<>();
+		long id = firstId;
+		for (int floor = firstFloor; floor < firstFloor + floors; floor++) {
+			for (int n = 1; n <= perFloor; n++) {
+				Room room = new Room();
+				room.setId(++id);
+				room.setFloor(floor);
+				room.setNumber(String.format("%d%02d", floor, n));
+				room.setBuilding(building);
+				rooms.add(room);
+			}
+		}
+		return rooms;
+	}
+
+	private static List<User> maids(Hotel hotel, int count) {
+		List<User> maids = new ArrayList<>();
+		for (long i = 1; i <= count; i++) {
+			User maid = new User();
+			maid.setId(1000 + i);
+			maid.setRole(User.Role.MAID);
+			maid.setHotel(hotel);
+			maids.add(maid);
+		}
+		return maids;
+	}
+}